@@ -0,0 +1,332 @@
+package com.http.utility;
+
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transport sending through the JDK's java.net.http.HttpClient, available from JDK 11.
+ *
+ * By default the client negotiates HTTP/2: over TLS through ALPN, over cleartext through an Upgrade on the first
+ * request. An HTTP/2 receiver is then served by a single multiplexed connection, instead of one pooled connection
+ * per concurrent notification, and synchronous senders no longer each hold a socket. Receivers which only speak
+ * HTTP/1.1 are served over HTTP/1.1 as before.
+ *
+ * The client's connect timeout is fixed when the transport is built, the socket timeout of each notification bounds
+ * the time until its response has been received. The response body is consumed as it arrives and at most the
+ * request's capture limit is kept.
+ *
+ * The client opens its connections on demand only, so a warm-up opens none.
+ *
+ * On JDK 21 and later the client can run its work on virtual threads.
+ */
+public class JdkHttpTransport implements NotificationTransport {
+
+    private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /*
+        Plugin default JDK transport settings.
+     */
+    public static final HttpClient.Version DEFAULT_VERSION = HttpClient.Version.HTTP_2;
+    public static final Long DEFAULT_CONNECTION_TIMEOUT = HttpNotification.DEFAULT_CONNECTION_TIMEOUT;
+
+    private final HttpClient client;
+    private final ExecutorService ownedExecutor;
+
+    private JdkHttpTransport(Builder builder) {
+        final HttpClient.Version version = builder.version != null ? builder.version : DEFAULT_VERSION;
+        final Long connectionTimeout = builder.connectionTimeout != null && builder.connectionTimeout > 0L ? builder.connectionTimeout : DEFAULT_CONNECTION_TIMEOUT;
+
+        final HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectionTimeout))
+                .followRedirects(HttpClient.Redirect.NEVER);
+
+        if (builder.executor != null) {
+            this.ownedExecutor = null;
+            clientBuilder.executor(builder.executor);
+        } else if (Boolean.TRUE.equals(builder.virtualThreads)) {
+            this.ownedExecutor = virtualThreadExecutor();
+            if (this.ownedExecutor != null) {
+                clientBuilder.executor(this.ownedExecutor);
+            }
+        } else {
+            this.ownedExecutor = null;
+        }
+
+        this.client = clientBuilder.build();
+    }
+
+    /**
+     * Creates a builder for configuring a new JdkHttpTransport.
+     *
+     * @return A builder holding the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return True if the running JDK supports virtual threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The HTTP version the client negotiates.
+     */
+    public HttpClient.Version getVersion() {
+        return client.version();
+    }
+
+    /**
+     * @return True if the client runs on a virtual thread per task executor.
+     */
+    public boolean isVirtualThreads() {
+        return ownedExecutor != null;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        try {
+            return toTransportResponse(client.send(newRequest(request), capture(request)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            final InterruptedIOException interrupted = new InterruptedIOException("Interrupted while sending to " + request.getUri() + ".");
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        try {
+            return client.sendAsync(newRequest(request), capture(request)).thenApply(JdkHttpTransport::toTransportResponse);
+        } catch (IllegalArgumentException e) {
+            final CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(new IOException("Request to " + request.getUri() + " is not supported.", e));
+            return future;
+        }
+    }
+
+    /**
+     * Releases the virtual thread executor, if this transport created one. The JDK client itself is closed when
+     * the running JDK supports it and is otherwise released once it is unreachable.
+     */
+    @Override
+    public void close() {
+        if (client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) client).close();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error: Failed to close JDK Http client.");
+            }
+        }
+
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private static HttpRequest newRequest(TransportRequest request) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+                .timeout(Duration.ofMillis(request.getSocketTimeout()))
+                .header("Content-Type", request.getContentType().getValue())
+                .method(request.getMethod().getValue(), publisher(request));
+
+        if (request.getContentEncoding() != null) {
+            builder.header("Content-Encoding", request.getContentEncoding());
+        }
+        if (request.getIdempotencyKey() != null) {
+            builder.header("Idempotency-Key", request.getIdempotencyKey());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @return A publisher streaming the request's body, with a Content-Length when the length is known up front.
+     */
+    private static HttpRequest.BodyPublisher publisher(TransportRequest request) {
+        final HttpRequest.BodyPublisher content = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return request.getContent();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        final long length = request.getContentLength();
+
+        return length >= 0L ? HttpRequest.BodyPublishers.fromPublisher(content, length) : content;
+    }
+
+    private static HttpResponse.BodyHandler<String> capture(TransportRequest request) {
+        return info -> new CaptureSubscriber(request.captureLimit(info.statusCode()));
+    }
+
+    private static TransportResponse toTransportResponse(HttpResponse<String> response) {
+        final String statusText = EnglishReasonPhraseCatalog.INSTANCE.getReason(response.statusCode(), Locale.ENGLISH);
+        final Long retryAfter = response.headers().firstValue("Retry-After").map(RetryPolicy::parseRetryAfter).orElse(null);
+
+        return new TransportResponse(response.statusCode(), statusText, response.body(), retryAfter);
+    }
+
+    /**
+     * @return A virtual thread per task executor, or null if the running JDK has no virtual threads.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.log(Level.SEVERE, "Error: Virtual threads require JDK 21, the default Http client executor is used.");
+
+            return null;
+        }
+    }
+
+    /**
+     * Consumes a response body as it arrives, keeping at most captureLimit bytes of it.
+     */
+    private static class CaptureSubscriber implements HttpResponse.BodySubscriber<String> {
+
+        private final int captureLimit;
+        private final ByteArrayOutputStream captured;
+        private final CompletableFuture<String> body = new CompletableFuture<>();
+
+        CaptureSubscriber(int captureLimit) {
+            this.captureLimit = captureLimit;
+            this.captured = captureLimit > 0 ? new ByteArrayOutputStream(Math.min(captureLimit, ResponseDrain.BUFFER_SIZE)) : null;
+        }
+
+        @Override
+        public CompletionStage<String> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (captured == null) {
+                return;
+            }
+
+            for (ByteBuffer buffer : buffers) {
+                int length = Math.min(buffer.remaining(), captureLimit - captured.size());
+
+                if (length <= 0) {
+                    return;
+                }
+                if (buffer.hasArray()) {
+                    captured.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                } else {
+                    byte[] bytes = new byte[length];
+                    buffer.get(bytes);
+                    captured.write(bytes, 0, length);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(captured != null ? new String(captured.toByteArray(), StandardCharsets.UTF_8) : null);
+        }
+    }
+
+    /**
+     * Builder for JdkHttpTransport instances. Settings which are left unset, or set to a non positive value, fall
+     * back to the plugin defaults.
+     */
+    public static class Builder {
+
+        private HttpClient.Version version;
+        private Long connectionTimeout;
+        private Executor executor;
+        private Boolean virtualThreads;
+
+        private Builder() {
+        }
+
+        /**
+         * @param version The HTTP version to negotiate, HTTP_2 by default.
+         * @return This builder.
+         */
+        public Builder version(HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        /**
+         * @param connectionTimeout Connection timeout in milliseconds.
+         * @return This builder.
+         */
+        public Builder connectionTimeout(Long connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+            return this;
+        }
+
+        /**
+         * @param executor Executor running the client's asynchronous work, the client's own pool by default.
+         * @return This builder.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Runs the client's asynchronous work on a virtual thread per task. Ignored, with an error logged, on JDKs
+         * without virtual threads, and when an executor is given.
+         *
+         * @param virtualThreads Whether to use virtual threads, false by default.
+         * @return This builder.
+         */
+        public Builder virtualThreads(Boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * @return A new JdkHttpTransport.
+         */
+        public JdkHttpTransport build() {
+            return new JdkHttpTransport(this);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.http.utility;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process Http receiver the benchmarks deliver to, so that measurements do not depend on the network or on a
+ * remote service. Every request is answered with a 200 after responseDelay milliseconds, carrying a body of
+ * responseSize bytes.
+ */
+public class BenchmarkReceiver implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY the server's separately written headers and body run into delayed ACKs, adding ~40ms.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long responseDelay;
+    private final byte[] responseBody;
+
+    public BenchmarkReceiver(long responseDelay, int responseSize) throws IOException {
+        this.responseDelay = responseDelay;
+        this.responseBody = new byte[responseSize];
+        Arrays.fill(responseBody, (byte) 'x');
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // drain the request body
+            }
+        }
+
+        if (responseDelay > 0L) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(responseDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(200, responseBody.length > 0 ? responseBody.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(responseBody);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
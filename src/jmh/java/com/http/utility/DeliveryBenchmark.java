@@ -0,0 +1,76 @@
+package com.http.utility;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput and latency of POST and PUT notifications against an in-process receiver. The receiver's
+ * response delay and body size, and the notification payload size, are benchmark parameters.
+ *
+ * Throughput is reported in notifications per millisecond, latency as a sampled distribution in milliseconds.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class DeliveryBenchmark {
+
+    @Param({"POST", "PUT"})
+    public String httpMethod;
+
+    @Param({"1024"})
+    public int payloadSize;
+
+    @Param({"0"})
+    public long responseDelay;
+
+    @Param({"64"})
+    public int responseSize;
+
+    private BenchmarkReceiver receiver;
+    private HttpNotification notification;
+    private String url;
+    private String body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        receiver = new BenchmarkReceiver(responseDelay, responseSize);
+        notification = HttpNotification.builder().build();
+        url = receiver.url("/notifications");
+        body = Payloads.json(payloadSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        notification.close();
+        receiver.close();
+    }
+
+    @Benchmark
+    public Boolean sendNotification() throws HttpNotificationException {
+        return notification.sendNotification(url, httpMethod, HttpNotification.CONTENT_JSON, body);
+    }
+
+    @Benchmark
+    public NotificationResult sendNotificationAsync() {
+        return notification.sendNotificationAsync(url, httpMethod, HttpNotification.CONTENT_JSON, body).join();
+    }
+}
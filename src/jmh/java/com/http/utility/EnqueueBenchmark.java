@@ -0,0 +1,70 @@
+package com.http.utility;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer side latency of fire-and-forget notifications enqueued through an Endpoint, against an in-process
+ * receiver. Notifications which do not fit the queue are dropped, so the benchmark measures the enqueue itself
+ * rather than the receiver's throughput.
+ *
+ * Latency is reported as a sampled distribution in nanoseconds.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class EnqueueBenchmark {
+
+    @Param({"1024"})
+    public int payloadSize;
+
+    @Param({"65536"})
+    public int queueCapacity;
+
+    private BenchmarkReceiver receiver;
+    private HttpNotification notification;
+    private Endpoint endpoint;
+    private String body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, HttpNotificationException {
+        receiver = new BenchmarkReceiver(0L, 64);
+        notification = HttpNotification.builder()
+                .queueCapacity(queueCapacity)
+                .overflowPolicy(OverflowPolicy.DROP_NEWEST)
+                .build();
+        endpoint = notification.endpoint(receiver.url("/notifications"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+        body = Payloads.json(payloadSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        notification.shutdown(0L);
+        notification.close();
+        receiver.close();
+    }
+
+    @Benchmark
+    public Boolean enqueue() throws HttpNotificationException {
+        return endpoint.enqueue(body);
+    }
+}
@@ -0,0 +1,30 @@
+package com.http.utility;
+
+/**
+ * Notification bodies of a given size for the benchmarks.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    static String json(int size) {
+        final StringBuilder json = new StringBuilder(size + 128).append("{\"notifications\":[");
+
+        for (int i = 0; json.length() < size; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"from\":\"Ruben\",\"message\":\"This is a http notification.\"}");
+        }
+
+        return json.append("]}").toString();
+    }
+
+    static String xml(int size) {
+        final StringBuilder xml = new StringBuilder(size + 128).append("<notifications>");
+
+        for (int i = 0; xml.length() < size; i++) {
+            xml.append("<notification id=\"").append(i).append("\"><from>Ruben</from><message>This is a http notification.</message></notification>");
+        }
+
+        return xml.append("</notifications>").toString();
+    }
+}
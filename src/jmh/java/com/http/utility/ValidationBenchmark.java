@@ -0,0 +1,76 @@
+package com.http.utility;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating a notification before it is sent: the json and xml well-formedness checks, and the complete
+ * validation sendNotification applies to a url, method, content type and body.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    @Param({"256", "65536"})
+    public int payloadSize;
+
+    private String json;
+    private String xml;
+    private HttpNotification notification;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = Payloads.json(payloadSize);
+        xml = Payloads.xml(payloadSize);
+        notification = HttpNotification.builder().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        notification.close();
+    }
+
+    @Benchmark
+    public boolean isValidJson() {
+        return HttpNotification.isValidJson(json);
+    }
+
+    @Benchmark
+    public boolean isValidXml() {
+        return HttpNotification.isValidXml(xml);
+    }
+
+    @Benchmark
+    public Endpoint validateJsonNotification() throws HttpNotificationException {
+        Endpoint endpoint = notification.endpoint("https://receiver.example.com/notifications", HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+        notification.validateBody(endpoint.getContentType(), json);
+
+        return endpoint;
+    }
+
+    @Benchmark
+    public Endpoint validateXmlNotification() throws HttpNotificationException {
+        Endpoint endpoint = notification.endpoint("https://receiver.example.com/notifications", HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_XML);
+        notification.validateBody(endpoint.getContentType(), xml);
+
+        return endpoint;
+    }
+}
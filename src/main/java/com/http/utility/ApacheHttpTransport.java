@@ -0,0 +1,578 @@
+package com.http.utility;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.ssl.SSLIOSession;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The default transport, built on the Apache clients: a pooled blocking client for synchronous notifications and a
+ * lazily started non-blocking client for asynchronous ones. Both share a caching DNS resolver, cap keep-alive at
+ * keepAliveTtl and have their expired and idle connections evicted periodically.
+ *
+ * Both clients also share one SSL context, so a TLS session negotiated by either client is resumed by the other. The
+ * connections opened by a warm-up are kept warm every keepWarmInterval: idle ones are checked and handed back to the
+ * pool with a fresh keep-alive, the ones the receiver closed are opened again.
+ */
+class ApacheHttpTransport implements NotificationTransport {
+
+    private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private static final String HANDSHAKE_START = "http.notification.handshake-start";
+
+    /*
+        Shared daemon timer which sweeps expired and idle connections out of each instance's pools.
+     */
+    private static final ScheduledExecutorService EVICTION_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-notification-eviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /*
+        Shared daemon timer which keeps the warmed up connections warm. Keep-warm sweeps connect to receivers, so they
+        run apart from the evictions, which must never wait on the network.
+     */
+    private static final ScheduledExecutorService KEEP_WARM_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-notification-keep-warm");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Integer maxConnectionsTotal;
+    private final Integer maxConnectionsPerRoute;
+    private final Long keepAliveTtl;
+    private final Long idleEviction;
+    private final Long keepWarmInterval;
+    private final CachingDnsResolver dnsResolver;
+    private final SSLContext sslContext;
+    private final HandshakeMetrics handshakeMetrics = new HandshakeMetrics();
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ScheduledFuture<?> evictionTask;
+
+    /*
+        The routes which were warmed up, with the number of connections kept warm.
+     */
+    private final Map<HttpRoute, WarmRoute> warmRoutes = new ConcurrentHashMap<>();
+    private volatile ScheduledFuture<?> keepWarmTask;
+
+    private volatile PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private volatile CloseableHttpAsyncClient asyncClient;
+
+    /**
+     * @param maxConnectionsTotal    Maximum number of pooled connections per client.
+     * @param maxConnectionsPerRoute Maximum number of pooled connections per route and client.
+     * @param keepAliveTtl           Maximum time in milliseconds an idle connection is kept alive.
+     * @param idleEviction           Interval in milliseconds of the idle connection sweeps.
+     * @param dnsCacheTtl            Time in milliseconds resolved addresses are cached.
+     * @param sslContext             SSL context of both clients, null for the default one.
+     * @param tlsSessionCacheSize    Number of TLS sessions cached for resumption at most.
+     * @param keepWarmInterval       Interval in milliseconds at which warmed up connections are kept warm.
+     */
+    ApacheHttpTransport(Integer maxConnectionsTotal, Integer maxConnectionsPerRoute, Long keepAliveTtl, Long idleEviction, Long dnsCacheTtl, SSLContext sslContext, Integer tlsSessionCacheSize, Long keepWarmInterval) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAliveTtl = keepAliveTtl;
+        this.idleEviction = idleEviction;
+        this.keepWarmInterval = keepWarmInterval;
+        this.dnsResolver = new CachingDnsResolver(dnsCacheTtl);
+        this.sslContext = sslContext != null ? sslContext : SSLContexts.createDefault();
+        this.sslContext.getClientSessionContext().setSessionCacheSize(tlsSessionCacheSize);
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new TimedSSLConnectionSocketFactory())
+                        .build(),
+                this.dnsResolver);
+        this.connectionManager.setMaxTotal(maxConnectionsTotal);
+        this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(this.connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .build();
+
+        this.evictionTask = EVICTION_TIMER.scheduleWithFixedDelay(this::evictConnections, idleEviction, idleEviction, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(newRequest(request))) {
+            final int statusCode = response.getStatusLine().getStatusCode();
+
+            // Read the response to its end so the connection is returned to the pool for reuse.
+            final String responseBody = response.getEntity() != null ? ResponseDrain.drain(response.getEntity().getContent(), request.captureLimit(statusCode)) : null;
+
+            return new TransportResponse(statusCode, response.getStatusLine().getReasonPhrase(), responseBody, ResponseDrain.retryAfter(response));
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        final CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+
+        try {
+            asyncClient().execute(HttpAsyncMethods.create(newRequest(request)), new ResponseDrain.Consumer(request.getCaptureLimit(), request.isCaptureSuccess()), new FutureCallback<TransportResponse>() {
+                @Override
+                public void completed(TransportResponse response) {
+                    future.complete(response);
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    future.completeExceptionally(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            });
+        } catch (IllegalStateException | IOReactorException e) {
+            // The I/O reactor could not be started or has been shut down, i.e. this transport was closed.
+            future.completeExceptionally(new HttpNotificationException("Error: Http notification client is unavailable.", e));
+        }
+
+        return future;
+    }
+
+    /**
+     * Opens up to the given number of connections to the uri's receiver in each client's pool, unless the pool
+     * already holds them, and keeps them warm from then on. The connections of the blocking client are opened one
+     * after the other, so that the first one's TLS session is resumed by the others.
+     *
+     * @param uri               The receiver's url.
+     * @param connections       Number of connections to open per client, at most maxConnectionsPerRoute.
+     * @param connectionTimeout Time in milliseconds to wait for each connection.
+     * @return Number of connections opened.
+     * @throws IOException If a connection could not be opened.
+     */
+    @Override
+    public int warmUp(URI uri, int connections, long connectionTimeout) throws IOException {
+        final HttpRoute route = route(uri);
+        final int count = Math.min(connections, maxConnectionsPerRoute);
+
+        if (count <= 0) {
+            return 0;
+        }
+
+        final WarmRoute warmRoute = warmRoutes.computeIfAbsent(route, key -> new WarmRoute());
+        scheduleKeepWarm();
+        asyncClient();
+
+        // Warm-ups of the same route take turns, or each would open its own connections.
+        synchronized (warmRoute) {
+            warmRoute.connections = Math.max(warmRoute.connections, count);
+
+            return warmUp(route, count, connectionTimeout) + warmUpAsync(asyncConnectionManager, route, count, connectionTimeout);
+        }
+    }
+
+    /**
+     * @return Counters of the TLS handshakes and warmed up connections of both clients.
+     */
+    HandshakeMetrics getHandshakeMetrics() {
+        return handshakeMetrics;
+    }
+
+    /**
+     * @return Usage of the blocking client's connection pool.
+     */
+    PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * @return Usage of the non-blocking client's connection pool, or null if it was not started.
+     */
+    PoolStats getAsyncTotalStats() {
+        final PoolingNHttpClientConnectionManager manager = asyncConnectionManager;
+
+        return manager != null ? manager.getTotalStats() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        evictionTask.cancel(false);
+
+        final ScheduledFuture<?> task = keepWarmTask;
+
+        if (task != null) {
+            task.cancel(false);
+        }
+
+        try {
+            httpClient.close();
+        } finally {
+            CloseableHttpAsyncClient client = asyncClient;
+
+            if (client != null) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * @param request The request to send.
+     * @return The Apache request for the given request.
+     */
+    private static HttpEntityEnclosingRequestBase newRequest(TransportRequest request) {
+        final HttpEntityEnclosingRequestBase apacheRequest = request.getMethod() == NotificationMethod.POST ? new HttpPost(request.getUri()) : new HttpPut(request.getUri());
+        apacheRequest.setConfig(RequestConfig.custom()
+                .setConnectTimeout(request.getConnectionTimeout().intValue())
+                .setSocketTimeout(request.getSocketTimeout().intValue())
+                .build());
+        apacheRequest.setHeader("Content-Type", request.getContentType().getValue());
+        if (request.getIdempotencyKey() != null) {
+            apacheRequest.setHeader("Idempotency-Key", request.getIdempotencyKey());
+        }
+        apacheRequest.setEntity(request.getEntity());
+
+        return apacheRequest;
+    }
+
+    /**
+     * Lazily starts the non-blocking client used for asynchronous notifications.
+     *
+     * @return The started asynchronous client of this transport.
+     * @throws IOReactorException
+     */
+    private CloseableHttpAsyncClient asyncClient() throws IOReactorException {
+        CloseableHttpAsyncClient client = asyncClient;
+
+        if (client == null) {
+            synchronized (this) {
+                client = asyncClient;
+
+                if (client == null) {
+                    PoolingNHttpClientConnectionManager manager = new PoolingNHttpClientConnectionManager(
+                            new DefaultConnectingIOReactor(),
+                            ManagedNHttpClientConnectionFactory.INSTANCE,
+                            RegistryBuilder.<SchemeIOSessionStrategy>create()
+                                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                                    .register("https", new TimedSSLIOSessionStrategy())
+                                    .build(),
+                            dnsResolver);
+                    manager.setMaxTotal(maxConnectionsTotal);
+                    manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+                    client = HttpAsyncClients.custom()
+                            .setConnectionManager(manager)
+                            .setKeepAliveStrategy(keepAliveStrategy())
+                            .build();
+                    client.start();
+
+                    asyncConnectionManager = manager;
+                    asyncClient = client;
+                }
+            }
+        }
+
+        return client;
+    }
+
+    /**
+     * Builds the keep-alive strategy for the pooled clients. The receiver's Keep-Alive hint is honoured
+     * but never exceeds the configured keep-alive TTL.
+     *
+     * @return Keep-alive strategy capped at keepAliveTtl.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+            return duration > 0L && duration < keepAliveTtl ? duration : keepAliveTtl;
+        };
+    }
+
+    /**
+     * The following helper method leases connections to a route from the blocking client's pool, opens the ones which
+     * are not open yet or were closed by the receiver, and returns them to the pool with a fresh keep-alive.
+     *
+     * @return Number of connections opened.
+     */
+    private int warmUp(HttpRoute route, int count, long connectionTimeout) throws IOException {
+        final List<HttpClientConnection> leased = new ArrayList<>(count);
+        int opened = 0;
+
+        try {
+            for (int i = 0; i < count; i++) {
+                final HttpClientConnection connection = connectionManager.requestConnection(route, null).get(connectionTimeout, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+
+                if (connection.isOpen() && connection.isStale()) {
+                    connection.close();
+                }
+                if (connection.isOpen()) {
+                    continue;
+                }
+
+                final HttpClientContext context = HttpClientContext.create();
+                final long start = System.nanoTime();
+
+                connectionManager.connect(connection, route, (int) connectionTimeout, context);
+                connectionManager.routeComplete(connection, route, context);
+                // Binds the connection's streams, which are otherwise bound by its first request.
+                connection.flush();
+
+                final long elapsed = System.nanoTime() - start;
+                handshakeMetrics.warmed(elapsed);
+                opened++;
+
+                awaitSessionTicket(connection, elapsed);
+            }
+        } catch (ConnectionPoolTimeoutException | InterruptedException | ExecutionException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Connection to " + route.getTargetHost() + " could not be leased.", e);
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                connectionManager.releaseConnection(connection, null, connection.isOpen() ? keepAliveTtl : 0L, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return opened;
+    }
+
+    /**
+     * The following helper method leases connections to a route from the non-blocking client's pool, which connects
+     * them, starts the TLS handshake of the ones not set up yet, and returns them to the pool with a fresh keep-alive.
+     * Connections the receiver closed are discarded, and opened again by the next warm-up.
+     *
+     * @return Number of connections opened.
+     */
+    private int warmUpAsync(PoolingNHttpClientConnectionManager manager, HttpRoute route, int count, long connectionTimeout) throws IOException {
+        final List<NHttpClientConnection> leased = new ArrayList<>(count);
+        int opened = 0;
+
+        try {
+            for (int i = 0; i < count; i++) {
+                final long start = System.nanoTime();
+                final NHttpClientConnection connection = manager.requestConnection(route, null, connectionTimeout, connectionTimeout, TimeUnit.MILLISECONDS, null)
+                        .get(2L * connectionTimeout, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+
+                if (!connection.isOpen() || connection.isStale()) {
+                    connection.shutdown();
+                } else if (!manager.isRouteComplete(connection)) {
+                    final HttpClientContext context = HttpClientContext.create();
+
+                    manager.startRoute(connection, route, context);
+                    manager.routeComplete(connection, route, context);
+
+                    handshakeMetrics.warmed(System.nanoTime() - start);
+                    opened++;
+                }
+            }
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Connection to " + route.getTargetHost() + " could not be leased.", e);
+        } finally {
+            for (NHttpClientConnection connection : leased) {
+                manager.releaseConnection(connection, null, connection.isOpen() ? keepAliveTtl : 0L, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return opened;
+    }
+
+    /**
+     * A TLS 1.3 server sends its session tickets after the handshake, and the client only reads them with the next
+     * response. The first connection of a warm-up waits for them, for at most as long as its handshake took, so that
+     * the following connections resume the session instead of making full handshakes.
+     */
+    private static void awaitSessionTicket(HttpClientConnection connection, long handshakeNanos) throws IOException {
+        if (!(connection instanceof ManagedHttpClientConnection)) {
+            return;
+        }
+
+        final SSLSession session = ((ManagedHttpClientConnection) connection).getSSLSession();
+
+        if (session != null && "TLSv1.3".equals(session.getProtocol())) {
+            // Any response data read meanwhile stays buffered in the connection.
+            connection.isResponseAvailable((int) Math.max(TimeUnit.NANOSECONDS.toMillis(handshakeNanos), 1L));
+        }
+    }
+
+    /**
+     * @return The route the clients send a notification to the uri through.
+     */
+    private static HttpRoute route(URI uri) {
+        final boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        final int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+    }
+
+    private void scheduleKeepWarm() {
+        if (keepWarmTask == null) {
+            synchronized (this) {
+                if (keepWarmTask == null) {
+                    keepWarmTask = KEEP_WARM_TIMER.scheduleWithFixedDelay(this::keepWarm, keepWarmInterval, keepWarmInterval, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the connections of the warmed up routes warm. Routes with connections in use are skipped, their
+     * connections are kept alive by the notifications themselves.
+     */
+    private void keepWarm() {
+        final PoolingNHttpClientConnectionManager manager = asyncConnectionManager;
+
+        for (Map.Entry<HttpRoute, WarmRoute> entry : warmRoutes.entrySet()) {
+            final HttpRoute route = entry.getKey();
+            final WarmRoute warmRoute = entry.getValue();
+
+            synchronized (warmRoute) {
+                try {
+                    if (isIdle(connectionManager.getStats(route))) {
+                        warmUp(route, warmRoute.connections, keepWarmInterval);
+                    }
+                    if (manager != null && isIdle(manager.getStats(route))) {
+                        warmUpAsync(manager, route, warmRoute.connections, keepWarmInterval);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Error: Failed to keep connections to " + route.getTargetHost() + " warm.");
+                }
+            }
+        }
+    }
+
+    private static boolean isIdle(PoolStats stats) {
+        return stats.getLeased() == 0 && stats.getPending() == 0;
+    }
+
+    /**
+     * Closes connections whose keep-alive has expired or which have been idle longer than idleEviction.
+     */
+    private void evictConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleEviction, TimeUnit.MILLISECONDS);
+
+        PoolingNHttpClientConnectionManager manager = asyncConnectionManager;
+
+        if (manager != null) {
+            manager.closeExpiredConnections();
+            manager.closeIdleConnections(idleEviction, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static class WarmRoute {
+
+        private int connections;
+    }
+
+    /**
+     * Socket factory of the blocking client, timing each TLS handshake.
+     */
+    private class TimedSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+
+        TimedSSLConnectionSocketFactory() {
+            super(sslContext);
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+            final long startTime = System.currentTimeMillis();
+            final long start = System.nanoTime();
+            final Socket layered = super.createLayeredSocket(socket, target, port, context);
+
+            if (layered instanceof SSLSocket) {
+                handshakeMetrics.handshake(((SSLSocket) layered).getSession(), startTime, System.nanoTime() - start);
+            }
+
+            return layered;
+        }
+    }
+
+    /**
+     * Session strategy of the non-blocking client, timing each TLS handshake from the upgrade of the session to its
+     * verification.
+     */
+    private class TimedSSLIOSessionStrategy extends SSLIOSessionStrategy {
+
+        TimedSSLIOSessionStrategy() {
+            super(sslContext);
+        }
+
+        @Override
+        public SSLIOSession upgrade(HttpHost host, IOSession session) throws IOException {
+            session.setAttribute(HANDSHAKE_START, new long[]{System.currentTimeMillis(), System.nanoTime()});
+
+            return super.upgrade(host, session);
+        }
+
+        @Override
+        protected void verifySession(HttpHost host, IOSession session, SSLSession sslSession) throws SSLException {
+            super.verifySession(host, session, sslSession);
+
+            final Object start = session.getAttribute(HANDSHAKE_START);
+
+            if (start instanceof long[]) {
+                handshakeMetrics.handshake(sslSession, ((long[]) start)[0], System.nanoTime() - ((long[]) start)[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.http.utility;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses notification bodies with pooled Deflaters. Deflaters hold native memory and are expensive to create, so
+ * they are reset and reused across requests, and the compressed output is written to a per-thread buffer. Buffers grown
+ * past NotificationTemplate.MAX_RETAINED_BUFFER are handed off with the output instead of being kept by the thread. The
+ * only allocation per request is the exact size copy handed to the request entity.
+ */
+final class BodyCompressor {
+
+    static final int POOL_SIZE = 64;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private static final ArrayBlockingQueue<Deflater> GZIP_DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final ArrayBlockingQueue<Deflater> ZLIB_DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[ResponseDrain.BUFFER_SIZE]);
+    private static final ThreadLocal<CRC32> CRC = ThreadLocal.withInitial(CRC32::new);
+
+    private BodyCompressor() {
+    }
+
+    /**
+     * Compresses a body with the given content coding.
+     *
+     * @param compression GZIP or DEFLATE.
+     * @param input       The uncompressed body.
+     * @return The compressed body.
+     */
+    static byte[] compress(RequestCompression compression, byte[] input) {
+        final boolean gzip = compression == RequestCompression.GZIP;
+        final ArrayBlockingQueue<Deflater> pool = gzip ? GZIP_DEFLATERS : ZLIB_DEFLATERS;
+
+        Deflater deflater = pool.poll();
+        if (deflater == null) {
+            // gzip frames raw deflate data itself, the deflate content coding is the zlib format.
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+        }
+
+        try {
+            // Deflate output is at most slightly larger than its input, size the buffer so one pass usually suffices.
+            byte[] buffer = ensureCapacity(GZIP_HEADER_SIZE + input.length + (input.length >> 9) + 64 + GZIP_TRAILER_SIZE);
+            int length = 0;
+
+            if (gzip) {
+                writeShort(buffer, 0, GZIP_MAGIC);
+                buffer[2] = Deflater.DEFLATED;
+                Arrays.fill(buffer, 3, GZIP_HEADER_SIZE, (byte) 0);
+                length = GZIP_HEADER_SIZE;
+            }
+
+            deflater.setInput(input);
+            deflater.finish();
+
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = ensureCapacity(buffer.length << 1);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            if (gzip) {
+                if (length + GZIP_TRAILER_SIZE > buffer.length) {
+                    buffer = ensureCapacity(length + GZIP_TRAILER_SIZE);
+                }
+
+                CRC32 crc = CRC.get();
+                crc.reset();
+                crc.update(input, 0, input.length);
+
+                writeInt(buffer, length, (int) crc.getValue());
+                writeInt(buffer, length + 4, input.length);
+                length += GZIP_TRAILER_SIZE;
+            }
+
+            return release(buffer, length);
+        } finally {
+            deflater.reset();
+
+            if (!pool.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * @return The per-thread output buffer, grown to at least the given capacity while keeping its content.
+     */
+    private static byte[] ensureCapacity(int capacity) {
+        byte[] buffer = BUFFER.get();
+
+        if (buffer.length < capacity) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
+            BUFFER.set(buffer);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * @return The compressed output. A buffer which grew past MAX_RETAINED_BUFFER is replaced by a new one, and is
+     * handed over as is when the output fills it.
+     */
+    private static byte[] release(byte[] buffer, int length) {
+        if (buffer.length <= NotificationTemplate.MAX_RETAINED_BUFFER) {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        BUFFER.set(new byte[ResponseDrain.BUFFER_SIZE]);
+        return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    }
+
+    private static void writeShort(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        writeShort(buffer, offset, value);
+        writeShort(buffer, offset + 2, value >>> 16);
+    }
+}
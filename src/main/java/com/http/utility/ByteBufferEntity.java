@@ -0,0 +1,88 @@
+package com.http.utility;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Request entity sending the remaining bytes of a buffer. The non-blocking client writes the buffer, heap or direct,
+ * straight to the connection; the blocking client copies it through a per-thread array.
+ */
+class ByteBufferEntity extends AbstractHttpEntity implements HttpAsyncContentProducer {
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[ResponseDrain.BUFFER_SIZE]);
+
+    private final ByteBuffer content;
+    private ByteBuffer producing;
+
+    /**
+     * @param content The bytes to send, from its position to its limit. The buffer is not modified.
+     */
+    ByteBufferEntity(ByteBuffer content) {
+        this.content = content.duplicate();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return content.remaining();
+    }
+
+    @Override
+    public InputStream getContent() {
+        return new ByteBufferInputStream(content.duplicate());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        final ByteBuffer source = content.duplicate();
+
+        if (source.hasArray()) {
+            out.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+        } else {
+            final byte[] buffer = BUFFER.get();
+
+            while (source.hasRemaining()) {
+                int length = Math.min(buffer.length, source.remaining());
+                source.get(buffer, 0, length);
+                out.write(buffer, 0, length);
+            }
+        }
+
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        if (producing == null) {
+            producing = content.duplicate();
+        }
+
+        encoder.write(producing);
+
+        if (!producing.hasRemaining()) {
+            encoder.complete();
+            producing = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        producing = null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.http.utility;
+
+import org.apache.http.conn.DnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DNS resolver keeping resolved addresses for a fixed time to live, so notifications to hot receivers do not resolve
+ * the host on every new connection. Failed lookups are not cached.
+ */
+class CachingDnsResolver implements DnsResolver {
+
+    /*
+        Upper bound on cached hosts, the cache is simply cleared when it is reached.
+     */
+    static final int MAX_CACHED_HOSTS = 10000;
+
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttlMillis Time in milliseconds resolved addresses are kept for.
+     */
+    CachingDnsResolver(long ttlMillis) {
+        this.ttlNanos = ttlMillis * 1000000L;
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        final long now = System.nanoTime();
+        final Entry entry = cache.get(host);
+
+        if (entry != null && now - entry.resolvedAt < ttlNanos) {
+            return entry.addresses;
+        }
+
+        final InetAddress[] addresses = InetAddress.getAllByName(host);
+
+        if (cache.size() >= MAX_CACHED_HOSTS) {
+            cache.clear();
+        }
+        cache.put(host, new Entry(addresses, now));
+
+        return addresses;
+    }
+
+    private static class Entry {
+
+        final InetAddress[] addresses;
+        final long resolvedAt;
+
+        Entry(InetAddress[] addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
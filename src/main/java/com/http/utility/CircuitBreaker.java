@@ -0,0 +1,77 @@
+package com.http.utility;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-host circuit breaker. After failureThreshold consecutive failures the circuit opens and notifications to the
+ * host fail immediately for openDuration. A single probe is then let through: its success closes the circuit again,
+ * its failure re-opens it.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long openedAt;
+
+    /**
+     * @param failureThreshold Consecutive failures opening the circuit.
+     * @param openMillis       Time in milliseconds the circuit stays open before a probe is allowed.
+     */
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1000000L;
+    }
+
+    /**
+     * Asks for permission to send a notification. Every granted permission must be followed by a call to
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     *
+     * @return True if the notification may be sent, False if the circuit is open.
+     */
+    boolean tryAcquire() {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.nanoTime() - openedAt >= openNanos && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records that the receiver answered, closing the circuit.
+     */
+    void onSuccess() {
+        failures.set(0);
+
+        if (state.get() != State.CLOSED) {
+            state.set(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records that the receiver could not be reached or answered with a server error.
+     */
+    void onFailure() {
+        if (state.get() == State.HALF_OPEN || failures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            failures.set(0);
+            state.set(State.OPEN);
+        }
+    }
+
+    State getState() {
+        return state.get();
+    }
+}
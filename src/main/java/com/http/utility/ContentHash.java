@@ -0,0 +1,121 @@
+package com.http.utility;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming 128 bit hash of a notification target and body, fed byte by byte without copying the body. Two
+ * independent 64 bit lanes are kept, FNV-1a and a multiply-rotate lane, each finished with the murmur3 finalizer.
+ *
+ * The hash identifies a notification for deduplication and in its Idempotency-Key header. It is not a cryptographic
+ * hash.
+ */
+final class ContentHash {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private long lane1 = 0xcbf29ce484222325L;
+    private long lane2 = 0x9e3779b97f4a7c15L;
+    private long length;
+
+    private String key;
+
+    /**
+     * @param endpoint The notification target.
+     * @return A hash seeded with the target's method and url, to be fed the body.
+     */
+    static ContentHash of(Endpoint endpoint) {
+        final ContentHash hash = new ContentHash();
+        hash.update(endpoint.getMethod().getValue());
+        hash.update(' ');
+        hash.update(endpoint.getUri().toString());
+        hash.update('\n');
+
+        return hash;
+    }
+
+    void update(int b) {
+        lane1 = (lane1 ^ (b & 0xff)) * 0x100000001b3L;
+        lane2 = Long.rotateLeft((lane2 ^ (b & 0xff)) * 0xc2b2ae3d27d4eb4fL, 31);
+        length++;
+    }
+
+    /**
+     * Feeds the remaining bytes of the buffer, leaving its position untouched.
+     */
+    void update(ByteBuffer bytes) {
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            update(bytes.get(i));
+        }
+    }
+
+    /**
+     * Feeds the UTF-8 encoding of the characters, the same bytes String.getBytes(UTF_8) would produce.
+     */
+    void update(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+
+            if (c < 0x80) {
+                update(c);
+            } else if (c < 0x800) {
+                update(0xc0 | c >> 6);
+                update(0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars.length() && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                update(0xf0 | codePoint >> 18);
+                update(0x80 | codePoint >> 12 & 0x3f);
+                update(0x80 | codePoint >> 6 & 0x3f);
+                update(0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                update('?');
+            } else {
+                update(0xe0 | c >> 12);
+                update(0x80 | c >> 6 & 0x3f);
+                update(0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    /**
+     * @return The high 64 bits of the hash.
+     */
+    long first() {
+        return mix(lane1 ^ length);
+    }
+
+    /**
+     * @return The low 64 bits of the hash.
+     */
+    long second() {
+        return mix(lane2 + first());
+    }
+
+    /**
+     * @return The hash as 32 lower case hex digits, as sent in the Idempotency-Key header.
+     */
+    String toKey() {
+        if (key == null) {
+            final char[] digits = new char[32];
+            final long first = first();
+            final long second = second();
+
+            for (int i = 0; i < 16; i++) {
+                digits[i] = HEX[(int) (first >>> (60 - 4 * i)) & 0xf];
+                digits[16 + i] = HEX[(int) (second >>> (60 - 4 * i)) & 0xf];
+            }
+            key = new String(digits);
+        }
+
+        return key;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+}
@@ -0,0 +1,100 @@
+package com.http.utility;
+
+/**
+ * Bounded, time expiring set of recently sent notifications, keyed on the 128 bit hash of their target and body.
+ *
+ * Entries live in preallocated primitive arrays, organised as a set associative cache of WAYS entries per bucket, so
+ * recording a notification allocates nothing. A notification evicts an expired entry of its bucket, or else the one
+ * closest to expiry, which bounds memory at the cost of occasionally forgetting an entry before its window ends. A
+ * forgotten entry only means a repeat notification is sent.
+ */
+class Deduplicator {
+
+    static final int WAYS = 4;
+
+    private final long window;
+    private final long origin = System.nanoTime();
+    private final int bucketMask;
+
+    private final long[] firsts;
+    private final long[] seconds;
+
+    /*
+        Expiry of each entry in nanoseconds since origin, 0 for an empty entry.
+     */
+    private final long[] expiries;
+
+    /**
+     * @param window     Time in milliseconds during which a repeat notification is suppressed.
+     * @param maxEntries Number of notifications remembered at most, rounded up to a power of two.
+     */
+    Deduplicator(long window, int maxEntries) {
+        int buckets = 1;
+        while (buckets * WAYS < maxEntries) {
+            buckets <<= 1;
+        }
+
+        this.window = window * 1000000L;
+        this.bucketMask = buckets - 1;
+        this.firsts = new long[buckets * WAYS];
+        this.seconds = new long[buckets * WAYS];
+        this.expiries = new long[buckets * WAYS];
+    }
+
+    /**
+     * Records a notification unless the same notification was recorded within the window.
+     *
+     * @param hash The hash of the notification's target and body.
+     * @return True if the notification was recorded and should be sent, False if it is a repeat.
+     */
+    synchronized boolean record(ContentHash hash) {
+        final long first = hash.first();
+        final long second = hash.second();
+        final long now = Math.max(System.nanoTime() - origin, 1L);
+        final int start = bucket(first, second);
+        int victim = start;
+
+        for (int i = start; i < start + WAYS; i++) {
+            if (expiries[i] > now && firsts[i] == first && seconds[i] == second) {
+                return false;
+            }
+            if (expiries[i] < expiries[victim]) {
+                victim = i;
+            }
+        }
+
+        firsts[victim] = first;
+        seconds[victim] = second;
+        expiries[victim] = now + window;
+
+        return true;
+    }
+
+    /**
+     * Forgets a recorded notification, e.g. once it failed, so that it can be sent again within the window.
+     *
+     * @param hash The hash of the notification's target and body.
+     */
+    synchronized void forget(ContentHash hash) {
+        final long first = hash.first();
+        final long second = hash.second();
+        final int start = bucket(first, second);
+
+        for (int i = start; i < start + WAYS; i++) {
+            if (firsts[i] == first && seconds[i] == second) {
+                expiries[i] = 0L;
+            }
+        }
+    }
+
+    /**
+     * @return Number of entries which can be held.
+     */
+    int capacity() {
+        return expiries.length;
+    }
+
+    private int bucket(long first, long second) {
+        return (int) ((first ^ second) & bucketMask) * WAYS;
+    }
+}
@@ -0,0 +1,113 @@
+package com.http.utility;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivery counters and latency histograms of one HttpNotification instance, kept per endpoint. An endpoint is the
+ * receiver url without its query, so that notifications to the same receiver share their statistics.
+ *
+ * Counters are LongAdders, which stay cheap under contention, and histograms are only allocated for the status
+ * classes an endpoint actually responds with. At most MAX_ENDPOINTS endpoints are tracked, notifications to further
+ * endpoints are accounted under OTHER_ENDPOINTS.
+ */
+class DeliveryMetrics {
+
+    static final int MAX_ENDPOINTS = 1000;
+    static final String OTHER_ENDPOINTS = "other";
+
+    /*
+        Status class slot of notifications which got no response.
+     */
+    static final int TRANSPORT_ERROR = 0;
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param uri The receiver url.
+     * @return The metrics of the receiver's endpoint.
+     */
+    EndpointMetrics forUri(URI uri) {
+        final String key = uri.getScheme() + "://" + uri.getRawAuthority() + (uri.getRawPath() != null ? uri.getRawPath() : "");
+        final EndpointMetrics metrics = endpoints.get(key);
+
+        if (metrics != null) {
+            return metrics;
+        }
+
+        return endpoints.computeIfAbsent(endpoints.size() < MAX_ENDPOINTS ? key : OTHER_ENDPOINTS, EndpointMetrics::new);
+    }
+
+    /**
+     * @return The metrics of every tracked endpoint, by endpoint.
+     */
+    Map<String, EndpointMetrics> endpoints() {
+        return new LinkedHashMap<>(endpoints);
+    }
+
+    /**
+     * Counters and histograms of a single endpoint.
+     */
+    static class EndpointMetrics {
+
+        final String endpoint;
+        final LongAdder requests = new LongAdder();
+        final LongAdder inFlight = new LongAdder();
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder deduplicated = new LongAdder();
+        final LongAdder[] responses = new LongAdder[6];
+        final AtomicReferenceArray<LatencyHistogram> latencies = new AtomicReferenceArray<>(6);
+
+        EndpointMetrics(String endpoint) {
+            this.endpoint = endpoint;
+
+            for (int i = 0; i < responses.length; i++) {
+                responses[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records the start of an attempt.
+         *
+         * @param bytes Size of the request body, negative if unknown.
+         */
+        void started(long bytes) {
+            requests.increment();
+            inFlight.increment();
+
+            if (bytes > 0L) {
+                bytesSent.add(bytes);
+            }
+        }
+
+        /**
+         * Records the end of an attempt.
+         *
+         * @param statusCode   The response status code, or null if no response was received.
+         * @param latencyNanos Time from the start of the attempt to its end.
+         */
+        void completed(Integer statusCode, long latencyNanos) {
+            final int statusClass = statusClass(statusCode);
+
+            inFlight.decrement();
+            responses[statusClass].increment();
+
+            LatencyHistogram histogram = latencies.get(statusClass);
+            if (histogram == null) {
+                latencies.compareAndSet(statusClass, null, new LatencyHistogram());
+                histogram = latencies.get(statusClass);
+            }
+            histogram.record(latencyNanos);
+        }
+
+        static int statusClass(Integer statusCode) {
+            return statusCode != null && statusCode >= 100 && statusCode < 600 ? statusCode / 100 : TRANSPORT_ERROR;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.http.utility;
+
+/**
+ * Per-target outcome of a bulk send. A delivery either holds the receiver's status or the error which
+ * prevented the notification from being delivered.
+ */
+public class DeliveryResult {
+
+    private final NotificationRequest request;
+    private final Integer statusCode;
+    private final String statusText;
+    private final Long latencyNanos;
+    private final HttpNotificationException error;
+    private final boolean deduplicated;
+
+    public DeliveryResult(NotificationRequest request, NotificationResult result, Long latencyNanos, HttpNotificationException error) {
+        this.request = request;
+        this.statusCode = result != null ? result.getStatusCode() : error != null ? error.getStatusCode() : null;
+        this.statusText = result != null ? result.getStatusText() : null;
+        this.latencyNanos = latencyNanos;
+        this.error = error;
+        this.deduplicated = result != null && result.isDeduplicated();
+    }
+
+    /**
+     * @return The notification this result belongs to.
+     */
+    public NotificationRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return The Http status code returned by the receiver, or null if no response was received.
+     */
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return The Http status text returned by the receiver, or null if no successful response was received.
+     */
+    public String getStatusText() {
+        return statusText;
+    }
+
+    /**
+     * @return Time in nanoseconds between dispatching the notification and its completion, 0 if it was never sent.
+     */
+    public Long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return The validation, status code or transport error of this delivery, or null if it succeeded.
+     */
+    public HttpNotificationException getError() {
+        return error;
+    }
+
+    /**
+     * @return True if the notification was a repeat of one sent within the deduplication window, and was not sent.
+     */
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+
+    /**
+     * @return True if the notification was delivered and accepted by the receiver, or was deduplicated.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryResult{url='" + request.getUrl() + "', statusCode=" + statusCode + ", latencyNanos=" + latencyNanos
+                + (deduplicated ? ", deduplicated" : "") + (error != null ? ", error='" + error.getMessage() + "'" : "") + "}";
+    }
+}
@@ -0,0 +1,367 @@
+package com.http.utility;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent delivery mode for Http notifications, providing at-least-once delivery across JVM restarts.
+ *
+ * Submitted notifications are appended to a segmented, memory-mapped write-ahead log in the given directory and
+ * fsynced in groups every syncInterval milliseconds. Background dispatcher threads read the log in order and send
+ * each notification through the HttpNotification instance. A notification is acknowledged in the log once the
+ * receiver accepted it. Transport, circuit breaker and rate limit failures and retryable status codes (408, 429 and
+ * 5xx) are retried after retryDelay. Any other error status, and notifications which fail validation when they are
+ * read back, mark the notification as failed.
+ *
+ * When the queue is created on a directory left by a previous run, the notifications which were not acknowledged
+ * are replayed first.
+ */
+public class DurableNotificationQueue implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /*
+        Plugin default durable queue settings.
+     */
+    public static final Integer DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final Integer DEFAULT_DISPATCHERS = 4;
+    public static final Long DEFAULT_SYNC_INTERVAL = 5L;
+    public static final Long DEFAULT_RETRY_DELAY = 5000L;
+    public static final Integer DEFAULT_MAX_PENDING_RETRIES = 10000;
+
+    private static final long POLL_INTERVAL = 100L;
+
+    private final HttpNotification notification;
+    private final WriteAheadLog log;
+    private final Long retryDelay;
+    private final Integer maxPendingRetries;
+
+    private final ScheduledExecutorService timer;
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private final LinkedBlockingQueue<WriteAheadLog.RecordRef> retries = new LinkedBlockingQueue<>();
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+
+    private volatile boolean running = true;
+
+    private DurableNotificationQueue(Builder builder) throws IOException {
+        this.notification = builder.notification;
+        this.retryDelay = builder.retryDelay != null && builder.retryDelay > 0L ? builder.retryDelay : DEFAULT_RETRY_DELAY;
+        this.maxPendingRetries = builder.maxPendingRetries != null && builder.maxPendingRetries > 0 ? builder.maxPendingRetries : DEFAULT_MAX_PENDING_RETRIES;
+
+        final Integer segmentSize = builder.segmentSize != null && builder.segmentSize > 0 ? builder.segmentSize : DEFAULT_SEGMENT_SIZE;
+        final Long syncInterval = builder.syncInterval != null && builder.syncInterval > 0L ? builder.syncInterval : DEFAULT_SYNC_INTERVAL;
+        final Integer dispatcherCount = builder.dispatchers != null && builder.dispatchers > 0 ? builder.dispatchers : DEFAULT_DISPATCHERS;
+
+        this.log = new WriteAheadLog(builder.directory, segmentSize);
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-notification-wal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.scheduleWithFixedDelay(log::sync, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < dispatcherCount; i++) {
+            Thread dispatcher = new Thread(this::dispatch, "http-notification-wal-dispatcher-" + i);
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+            dispatchers.add(dispatcher);
+        }
+    }
+
+    /**
+     * Creates a builder for a durable queue delivering through the given instance.
+     *
+     * @param notification The instance used to send the queued notifications.
+     * @param directory    Directory holding the write-ahead log.
+     * @return A builder holding the default settings.
+     */
+    public static Builder builder(HttpNotification notification, Path directory) {
+        return new Builder(notification, directory);
+    }
+
+    /**
+     * The following method validates a notification and appends it to the write-ahead log for delivery.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @return A future completing once the notification has been persisted to disk. It completes exceptionally with
+     * an HttpNotificationException if the notification is invalid or could not be persisted.
+     */
+    public CompletableFuture<Void> submit(String url, String httpMethod, String contentType, String body) {
+        try {
+            Endpoint endpoint = notification.endpoint(url, httpMethod, contentType);
+            notification.validateBody(endpoint.getContentType(), body);
+
+            return log.append(encode(url, endpoint, body)).thenApply(record -> null);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        } catch (IOException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new HttpNotificationException("Error: Failed to persist Http Notification.", e));
+            return future;
+        }
+    }
+
+    /**
+     * @return Number of persisted notifications which are neither delivered nor failed yet.
+     */
+    public int getPending() {
+        return log.pending();
+    }
+
+    /**
+     * Stops the dispatchers and flushes the log. Notifications which are not delivered yet stay in the log and are
+     * replayed by the next queue opened on the same directory.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+
+        for (Thread dispatcher : dispatchers) {
+            dispatcher.interrupt();
+        }
+        for (Thread dispatcher : dispatchers) {
+            try {
+                dispatcher.join(notification.getSocketTimeout() + notification.getConnectionTimeout());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        timer.shutdownNow();
+        log.close();
+    }
+
+    /**
+     * Dispatcher loop: retries come first, new records are only read while the retry backlog is below its bound.
+     */
+    private void dispatch() {
+        while (running) {
+            try {
+                WriteAheadLog.RecordRef record = retries.poll();
+
+                if (record != null) {
+                    pendingRetries.decrementAndGet();
+                } else if (pendingRetries.get() < maxPendingRetries) {
+                    record = log.next(POLL_INTERVAL);
+                } else {
+                    record = retries.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    if (record != null) {
+                        pendingRetries.decrementAndGet();
+                    }
+                }
+
+                if (record != null) {
+                    deliver(record);
+                }
+            } catch (InterruptedException e) {
+                // close() interrupts the dispatchers, running is checked by the loop.
+            } catch (RuntimeException e) {
+                // One bad record must not stop the dispatcher.
+                LOGGER.log(Level.SEVERE, "Error: Durable Http Notification dispatch failed. " + e);
+            }
+        }
+    }
+
+    /**
+     * Sends one record and completes, fails or schedules it for retry depending on the outcome.
+     */
+    private void deliver(WriteAheadLog.RecordRef record) {
+        final Entry entry;
+
+        try {
+            entry = decode(log.read(record));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error: Corrupt durable Http Notification dropped.");
+            log.complete(record, WriteAheadLog.STATE_FAILED);
+            return;
+        }
+
+        final Endpoint endpoint;
+
+        try {
+            // Records replayed from an earlier run may not pass this instance's validation, they never will.
+            endpoint = notification.endpoint(entry.url, entry.method.getValue(), entry.contentType.getValue());
+            notification.validateBody(endpoint.getContentType(), entry.body);
+        } catch (HttpNotificationException e) {
+            LOGGER.log(Level.SEVERE, "Error: Invalid durable Http Notification to " + entry.url + " dropped. " + e.getMessage());
+            log.complete(record, WriteAheadLog.STATE_FAILED);
+            return;
+        }
+
+        try {
+            if (notification.execute(endpoint, NotificationBody.of(entry.body))) {
+                log.complete(record, WriteAheadLog.STATE_ACKNOWLEDGED);
+                return;
+            }
+        } catch (HttpNotificationException e) {
+            // Past validation, errors without a status code come from the transport, circuit breaker or rate limit.
+            if (!isRetryable(e.getStatusCode())) {
+                LOGGER.log(Level.SEVERE, "Error: Durable Http Notification to " + entry.url + " failed permanently. " + e.getMessage());
+                log.complete(record, WriteAheadLog.STATE_FAILED);
+                return;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error: Durable Http Notification to " + entry.url + " failed permanently. " + e);
+            log.complete(record, WriteAheadLog.STATE_FAILED);
+            return;
+        }
+
+        if (running) {
+            pendingRetries.incrementAndGet();
+            timer.schedule(() -> retries.add(record), retryDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return True for transport errors and status codes which may succeed when retried.
+     */
+    private static boolean isRetryable(Integer statusCode) {
+        return statusCode == null || statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    private static byte[] encode(String url, Endpoint endpoint, String body) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length() + url.length() + 16);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+
+        out.writeByte(endpoint.getMethod().ordinal());
+        out.writeByte(endpoint.getContentType().ordinal());
+        out.writeUTF(url);
+        out.writeInt(bodyBytes.length);
+        out.write(bodyBytes);
+
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        try {
+            NotificationMethod method = NotificationMethod.values()[in.readUnsignedByte()];
+            NotificationContentType contentType = NotificationContentType.values()[in.readUnsignedByte()];
+            String url = in.readUTF();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+
+            return new Entry(url, method, contentType, new String(body, StandardCharsets.UTF_8));
+        } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt record.", e);
+        }
+    }
+
+    private static class Entry {
+
+        final String url;
+        final NotificationMethod method;
+        final NotificationContentType contentType;
+        final String body;
+
+        Entry(String url, NotificationMethod method, NotificationContentType contentType, String body) {
+            this.url = url;
+            this.method = method;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Builder for DurableNotificationQueue instances. Settings which are left unset, or set to a non positive value,
+     * fall back to the plugin defaults.
+     */
+    public static class Builder {
+
+        private final HttpNotification notification;
+        private final Path directory;
+
+        private Integer segmentSize;
+        private Integer dispatchers;
+        private Long syncInterval;
+        private Long retryDelay;
+        private Integer maxPendingRetries;
+
+        private Builder(HttpNotification notification, Path directory) {
+            this.notification = notification;
+            this.directory = directory;
+        }
+
+        /**
+         * @param segmentSize Size in bytes of each write-ahead log segment, bounding the size of a notification.
+         * @return This builder.
+         */
+        public Builder segmentSize(Integer segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * @param dispatchers Number of background threads delivering notifications.
+         * @return This builder.
+         */
+        public Builder dispatchers(Integer dispatchers) {
+            this.dispatchers = dispatchers;
+            return this;
+        }
+
+        /**
+         * @param syncInterval Interval in milliseconds between group fsyncs of the log.
+         * @return This builder.
+         */
+        public Builder syncInterval(Long syncInterval) {
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        /**
+         * @param retryDelay Delay in milliseconds before a failed delivery is attempted again.
+         * @return This builder.
+         */
+        public Builder retryDelay(Long retryDelay) {
+            this.retryDelay = retryDelay;
+            return this;
+        }
+
+        /**
+         * @param maxPendingRetries Number of deliveries awaiting a retry above which no new notification is read.
+         * @return This builder.
+         */
+        public Builder maxPendingRetries(Integer maxPendingRetries) {
+            this.maxPendingRetries = maxPendingRetries;
+            return this;
+        }
+
+        /**
+         * Opens the write-ahead log, replaying undelivered notifications, and starts the dispatchers.
+         *
+         * @return A new durable queue.
+         * @throws IOException
+         */
+        public DurableNotificationQueue build() throws IOException {
+            return new DurableNotificationQueue(this);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.http.utility;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A pre-validated notification target. The url, method and content type are validated and parsed once, when the
+ * endpoint is created through {@link HttpNotification#endpoint(String, String, String)}, so sending only has to
+ * validate the body.
+ *
+ * Endpoints are immutable and may be shared between threads. They send through the HttpNotification instance which
+ * created them.
+ */
+public class Endpoint {
+
+    private final HttpNotification notification;
+    private final URI uri;
+    private final NotificationMethod method;
+    private final NotificationContentType contentType;
+    private final RequestCompression compression;
+    private final DeliveryMetrics.EndpointMetrics metrics;
+    private final RateLimiter rateLimiter;
+    private final PriorityLanes lanes;
+    private final NotificationPriority priority;
+
+    Endpoint(HttpNotification notification, URI uri, NotificationMethod method, NotificationContentType contentType, RequestCompression compression, DeliveryMetrics.EndpointMetrics metrics, RateLimiter rateLimiter, PriorityLanes lanes, NotificationPriority priority) {
+        this.notification = notification;
+        this.uri = uri;
+        this.method = method;
+        this.contentType = contentType;
+        this.compression = compression;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.lanes = lanes;
+        this.priority = priority;
+    }
+
+    /**
+     * Returns this endpoint sending with another priority. Priorities only take effect with priority lanes enabled.
+     *
+     * @param priority The priority class of the notifications sent through the returned endpoint.
+     * @return An endpoint to the same target with the given priority.
+     */
+    public Endpoint withPriority(NotificationPriority priority) {
+        final NotificationPriority effective = priority != null ? priority : NotificationPriority.NORMAL;
+
+        if (effective == this.priority) {
+            return this;
+        }
+
+        return new Endpoint(notification, uri, method, contentType, compression, metrics, rateLimiter, lanes, effective);
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public NotificationMethod getMethod() {
+        return method;
+    }
+
+    public NotificationContentType getContentType() {
+        return contentType;
+    }
+
+    public RequestCompression getCompression() {
+        return compression;
+    }
+
+    public NotificationPriority getPriority() {
+        return priority;
+    }
+
+    DeliveryMetrics.EndpointMetrics getMetrics() {
+        return metrics;
+    }
+
+    RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @return The priority lanes of the endpoint's receiver, or null if priority lanes are disabled.
+     */
+    PriorityLanes getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Sends a notification to this endpoint, blocking until the receiver responds.
+     *
+     * @param body The notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see HttpNotification#sendNotification(String, String, String, String)
+     */
+    public Boolean send(String body) throws HttpNotificationException {
+        notification.validateBody(contentType, body);
+
+        return notification.execute(this, NotificationBody.of(body));
+    }
+
+    /**
+     * Sends a notification whose body is given as UTF-8 encoded bytes, blocking until the receiver responds.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see HttpNotification#sendNotification(String, String, String, byte[])
+     */
+    public Boolean send(byte[] body) throws HttpNotificationException {
+        return send(body != null ? ByteBuffer.wrap(body) : null);
+    }
+
+    /**
+     * Sends a notification whose body is the remaining bytes of a buffer, blocking until the receiver responds.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see HttpNotification#sendNotification(String, String, String, ByteBuffer)
+     */
+    public Boolean send(ByteBuffer body) throws HttpNotificationException {
+        return send(NotificationBody.of(body));
+    }
+
+    /**
+     * Sends a notification whose body is read from a stream, blocking until the receiver responds.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see HttpNotification#sendNotification(String, String, String, InputStream)
+     */
+    public Boolean send(InputStream body) throws HttpNotificationException {
+        return send(notification.body(contentType, body, false));
+    }
+
+    /**
+     * Sends a notification whose body is a file, blocking until the receiver responds.
+     *
+     * @param body The file holding the UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see HttpNotification#sendNotification(String, String, String, Path)
+     */
+    public Boolean send(Path body) throws HttpNotificationException {
+        return send(NotificationBody.of(body));
+    }
+
+    /**
+     * Sends a notification rendered from a template, blocking until the receiver responds. The body is rendered into
+     * the calling thread's reusable buffer and sent from there, it is not validated again.
+     *
+     * @param template The template, of this endpoint's content type.
+     * @param values   The parameter values, in the order of {@link NotificationTemplate#getParameters()}.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see HttpNotification#sendNotification(String, String, NotificationTemplate, Object...)
+     */
+    public Boolean send(NotificationTemplate template, Object... values) throws HttpNotificationException {
+        checkTemplate(template);
+
+        final ByteBuffer body = template.renderShared(values);
+
+        if (!body.hasRemaining()) {
+            throw new HttpNotificationException("Error: Notification body is required.");
+        }
+
+        return notification.execute(this, NotificationBody.of(body));
+    }
+
+    private Boolean send(NotificationBody body) throws HttpNotificationException {
+        notification.validateBody(contentType, body);
+
+        return notification.execute(this, body);
+    }
+
+    /**
+     * Sends a notification to this endpoint without blocking the caller.
+     *
+     * @param body The notification body.
+     * @return A future holding the result of the notification.
+     * @see HttpNotification#sendNotificationAsync(String, String, String, String)
+     */
+    public CompletableFuture<NotificationResult> sendAsync(String body) {
+        try {
+            notification.validateBody(contentType, body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return notification.submitAsync(this, NotificationBody.of(body));
+    }
+
+    /**
+     * Sends a notification whose body is given as UTF-8 encoded bytes, without blocking the caller.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     * @see HttpNotification#sendNotificationAsync(String, String, String, byte[])
+     */
+    public CompletableFuture<NotificationResult> sendAsync(byte[] body) {
+        return sendAsync(body != null ? ByteBuffer.wrap(body) : null);
+    }
+
+    /**
+     * Sends a notification whose body is the remaining bytes of a buffer, without blocking the caller. The buffer
+     * must not be modified until the future completes.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     * @see HttpNotification#sendNotificationAsync(String, String, String, ByteBuffer)
+     */
+    public CompletableFuture<NotificationResult> sendAsync(ByteBuffer body) {
+        return sendAsync(NotificationBody.of(body));
+    }
+
+    /**
+     * Sends a notification whose body is read from a stream, without blocking the caller once the stream is read.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     * @see HttpNotification#sendNotificationAsync(String, String, String, InputStream)
+     */
+    public CompletableFuture<NotificationResult> sendAsync(InputStream body) {
+        try {
+            return sendAsync(notification.body(contentType, body, true));
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Sends a notification whose body is a file, without blocking the caller.
+     *
+     * @param body The file holding the UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     * @see HttpNotification#sendNotificationAsync(String, String, String, Path)
+     */
+    public CompletableFuture<NotificationResult> sendAsync(Path body) {
+        return sendAsync(NotificationBody.of(body));
+    }
+
+    /**
+     * Sends a notification rendered from a template, without blocking the caller. The body is not validated again.
+     *
+     * @param template The template, of this endpoint's content type.
+     * @param values   The parameter values, in the order of {@link NotificationTemplate#getParameters()}.
+     * @return A future holding the result of the notification.
+     * @see HttpNotification#sendNotificationAsync(String, String, NotificationTemplate, Object...)
+     */
+    public CompletableFuture<NotificationResult> sendAsync(NotificationTemplate template, Object... values) {
+        final byte[] body;
+
+        try {
+            checkTemplate(template);
+            body = template.render(values);
+
+            if (body.length == 0) {
+                throw new HttpNotificationException("Error: Notification body is required.");
+            }
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return notification.submitAsync(this, NotificationBody.of(ByteBuffer.wrap(body)));
+    }
+
+    private CompletableFuture<NotificationResult> sendAsync(NotificationBody body) {
+        try {
+            notification.validateBody(contentType, body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return notification.submitAsync(this, body);
+    }
+
+    /**
+     * Queues a notification to this endpoint for the dispatcher threads and returns without waiting for it to be
+     * sent. Only the presence of the body is checked here, it is validated by the dispatcher. Nothing is allocated.
+     *
+     * @param body The notification body.
+     * @return True if the notification was queued, False if it was dropped or spilled.
+     * @throws HttpNotificationException
+     * @see HttpNotification#enqueue(String, String, String, String)
+     */
+    public Boolean enqueue(String body) throws HttpNotificationException {
+        if (body == null || body.isEmpty()) {
+            throw new HttpNotificationException("Error: Notification body is required.");
+        }
+
+        return notification.ring().enqueue(this, body);
+    }
+
+    /**
+     * Sends a json notification to this endpoint as part of a batch, without blocking the caller.
+     *
+     * @param body The json notification body.
+     * @return A future holding the result of the batch request carrying the notification.
+     * @see HttpNotification#sendNotificationBatched(String, String, String)
+     */
+    public CompletableFuture<NotificationResult> sendBatched(String body) {
+        try {
+            if (contentType != NotificationContentType.JSON) {
+                throw new HttpNotificationException("Error: Only json notifications can be batched.");
+            }
+
+            notification.validateBody(contentType, body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return notification.batcher().add(this, body);
+    }
+
+    private void checkTemplate(NotificationTemplate template) throws HttpNotificationException {
+        if (template == null) {
+            throw new HttpNotificationException("Error: Notification template is required.");
+        } else if (template.getContentType() != contentType) {
+            throw new HttpNotificationException("Error: Template content type " + template.getContentType().getValue() + " does not match the endpoint's " + contentType.getValue() + ".");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Endpoint{" + method.getValue() + " " + uri + ", contentType='" + contentType.getValue() + "'}";
+    }
+}
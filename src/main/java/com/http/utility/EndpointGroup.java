@@ -0,0 +1,526 @@
+package com.http.utility;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Replicas of one receiver behind separate urls, notified as a single target. Created through
+ * {@link HttpNotification#endpointGroup(String, String)}.
+ *
+ * Each notification goes to one replica, picked by the power of two choices over the replicas' peak EWMA latency
+ * weighted by their notifications in flight, so slow replicas are avoided as soon as they slow down. A replica which
+ * could not be reached, or responded with a 5xx status, is ejected for ejectionDuration and the notification fails
+ * over to the next replica, until every replica has been tried. Client errors are not failed over.
+ *
+ * With hedging, a second copy of a notification which has not completed after the group's p95 latency is sent to
+ * another replica, and the first successful response wins. A notification only fails once no copy is left in
+ * flight. Receivers must tolerate the resulting duplicates.
+ *
+ * Each replica attempt follows the retry policy, circuit breakers and rate limits of the HttpNotification instance.
+ * Groups are safe for use by multiple threads.
+ */
+public class EndpointGroup {
+
+    /*
+        Plugin default group settings.
+     */
+    public static final Long DEFAULT_EJECTION_DURATION = 10000L;
+    public static final Long DEFAULT_HEDGE_DELAY = 100L;
+
+    /*
+        Time constant in milliseconds over which a replica's latency estimate decays towards recent latencies, and the
+        number of latencies observed before hedging follows the observed p95 instead of hedgeDelay.
+     */
+    static final long DECAY_TIME = 10000L;
+    static final int MIN_HEDGE_SAMPLES = 20;
+    static final long HEDGE_DELAY_REFRESH = 100L;
+
+    private final HttpNotification notification;
+    private final NotificationContentType contentType;
+    private final List<Replica> replicas;
+    private final List<Endpoint> endpoints;
+    private final boolean hedging;
+    private final Long hedgeDelay;
+    private final Long ejectionDuration;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private volatile long p95Delay;
+    private volatile long p95Refreshed;
+
+    private EndpointGroup(Builder builder, List<Endpoint> endpoints) {
+        this.notification = builder.notification;
+        this.contentType = endpoints.get(0).getContentType();
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.hedging = Boolean.TRUE.equals(builder.hedging) && endpoints.size() > 1;
+        this.hedgeDelay = builder.hedgeDelay != null && builder.hedgeDelay > 0L ? builder.hedgeDelay : DEFAULT_HEDGE_DELAY;
+        this.ejectionDuration = builder.ejectionDuration != null && builder.ejectionDuration > 0L ? builder.ejectionDuration : DEFAULT_EJECTION_DURATION;
+
+        final List<Replica> replicas = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            replicas.add(new Replica(endpoint));
+        }
+        this.replicas = replicas;
+    }
+
+    /**
+     * @return The replicas of this group.
+     */
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    public Long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public Long getEjectionDuration() {
+        return ejectionDuration;
+    }
+
+    /**
+     * @return Number of times a notification failed over to another replica.
+     */
+    public long getFailovers() {
+        return failovers.sum();
+    }
+
+    /**
+     * @return Number of hedged copies sent.
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * Sends a notification to one of the replicas, blocking until a replica accepts it or every replica failed.
+     *
+     * @param body The notification body.
+     * @return True if successful, False if no replica could be reached.
+     * @throws HttpNotificationException
+     */
+    public Boolean send(String body) throws HttpNotificationException {
+        notification.validateBody(contentType, body);
+
+        return await(send(() -> NotificationBody.of(body)));
+    }
+
+    /**
+     * Sends a notification whose body is given as UTF-8 encoded bytes, blocking until a replica accepts it or every
+     * replica failed.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return True if successful, False if no replica could be reached.
+     * @throws HttpNotificationException
+     */
+    public Boolean send(byte[] body) throws HttpNotificationException {
+        final ByteBuffer buffer = body != null ? ByteBuffer.wrap(body) : null;
+        notification.validateBody(contentType, NotificationBody.of(buffer));
+
+        return await(send(() -> NotificationBody.of(buffer)));
+    }
+
+    /**
+     * Sends a notification to one of the replicas without blocking the caller.
+     *
+     * @param body The notification body.
+     * @return A future holding the result of the replica which accepted the notification. It completes exceptionally
+     * with the error of the last replica tried if every replica failed.
+     */
+    public CompletableFuture<NotificationResult> sendAsync(String body) {
+        try {
+            notification.validateBody(contentType, body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return send(() -> NotificationBody.of(body));
+    }
+
+    /**
+     * Sends a notification whose body is given as UTF-8 encoded bytes, without blocking the caller.
+     *
+     * @param body The UTF-8 encoded notification body.
+     * @return A future holding the result of the replica which accepted the notification.
+     */
+    public CompletableFuture<NotificationResult> sendAsync(byte[] body) {
+        final ByteBuffer buffer = body != null ? ByteBuffer.wrap(body) : null;
+
+        try {
+            notification.validateBody(contentType, NotificationBody.of(buffer));
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return send(() -> NotificationBody.of(buffer));
+    }
+
+    /**
+     * @param body Supplies a body per attempt, attempts to different replicas may be in flight at the same time.
+     */
+    private CompletableFuture<NotificationResult> send(Supplier<NotificationBody> body) {
+        final Send send = new Send(body);
+        final Replica first = send.next();
+
+        send.dispatch(first, true);
+
+        if (hedging) {
+            HttpNotification.TIMER_WHEEL.schedule(hedgeDelay(), () -> {
+                Replica hedge = send.isDone() ? null : send.next();
+
+                if (hedge != null) {
+                    hedges.increment();
+                    send.dispatch(hedge, false);
+                }
+            });
+        }
+
+        return send.future;
+    }
+
+    private static Boolean await(CompletableFuture<NotificationResult> future) throws HttpNotificationException {
+        try {
+            future.get();
+
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new HttpNotificationException("Error: Http notification was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof HttpNotificationException)) {
+                throw new HttpNotificationException("Error: Http notification failed.", e.getCause());
+            }
+
+            HttpNotificationException error = (HttpNotificationException) e.getCause();
+
+            // As with a single endpoint, a notification which could not be delivered is reported as False.
+            if (error.getStatusCode() == null && error.getCause() instanceof IOException) {
+                return false;
+            }
+
+            throw error;
+        }
+    }
+
+    /**
+     * @return Delay in milliseconds before a hedged copy is sent: the observed p95 latency once enough latencies were
+     * observed, hedgeDelay until then.
+     */
+    long hedgeDelay() {
+        final long now = System.nanoTime();
+
+        if (now - p95Refreshed > TimeUnit.MILLISECONDS.toNanos(HEDGE_DELAY_REFRESH)) {
+            LatencyHistogram.Snapshot snapshot = latency.snapshot();
+
+            p95Delay = snapshot.getCount() >= MIN_HEDGE_SAMPLES ? Math.max(1L, TimeUnit.NANOSECONDS.toMillis(snapshot.getPercentile(95.0))) : 0L;
+            p95Refreshed = now;
+        }
+
+        return p95Delay > 0L ? p95Delay : hedgeDelay;
+    }
+
+    /**
+     * @return The current load estimate of the replica at the given index, in nanoseconds.
+     */
+    double load(int index) {
+        return replicas.get(index).load();
+    }
+
+    /**
+     * One notification sent to the group: the replicas tried so far and the attempts in flight.
+     */
+    private class Send {
+
+        final Supplier<NotificationBody> body;
+        final CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+        final boolean[] tried = new boolean[replicas.size()];
+        int outstanding;
+        Throwable clientError;
+
+        Send(Supplier<NotificationBody> body) {
+            this.body = body;
+        }
+
+        boolean isDone() {
+            return future.isDone();
+        }
+
+        /**
+         * Picks the next replica by the power of two choices among the healthy replicas not tried yet, or among the
+         * ejected ones once every healthy replica was tried.
+         *
+         * @return The replica, or null if every replica was tried or an attempt failed with a client error.
+         */
+        synchronized Replica next() {
+            if (clientError != null) {
+                return null;
+            }
+
+            final long now = System.nanoTime();
+            final List<Replica> candidates = new ArrayList<>(replicas.size());
+
+            for (int pass = 0; pass < 2 && candidates.isEmpty(); pass++) {
+                for (int i = 0; i < replicas.size(); i++) {
+                    if (!tried[i] && (pass == 1 || replicas.get(i).isHealthy(now))) {
+                        candidates.add(replicas.get(i));
+                    }
+                }
+            }
+
+            if (candidates.isEmpty()) {
+                return null;
+            }
+
+            Replica replica = candidates.get(0);
+
+            if (candidates.size() > 1) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int a = random.nextInt(candidates.size());
+                int b = random.nextInt(candidates.size() - 1);
+                Replica first = candidates.get(a);
+                Replica second = candidates.get(b >= a ? b + 1 : b);
+
+                replica = first.load() <= second.load() ? first : second;
+            }
+
+            tried[replicas.indexOf(replica)] = true;
+            outstanding++;
+
+            return replica;
+        }
+
+        /**
+         * @param replica The replica to send a copy to.
+         * @param caller  Whether this runs on the caller's thread. Hedges and failovers run on the timer wheel or an
+         *                I/O thread, so they wait for a rate limit permit in the limiter's queue rather than blocking.
+         */
+        void dispatch(Replica replica, boolean caller) {
+            final long start = System.nanoTime();
+            final NotificationBody copy = body.get();
+
+            replica.inFlight.incrementAndGet();
+
+            (caller ? notification.submitAsync(replica.endpoint, copy) : notification.dispatchUniqueAsync(replica.endpoint, copy)).whenComplete((result, ex) -> {
+                final long elapsed = System.nanoTime() - start;
+                final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                final Integer statusCode = cause instanceof HttpNotificationException ? ((HttpNotificationException) cause).getStatusCode() : null;
+
+                replica.inFlight.decrementAndGet();
+
+                if (cause == null) {
+                    replica.observe(elapsed);
+                    replica.ejectedUntil = 0L;
+                    latency.record(elapsed);
+                    future.complete(result);
+                    return;
+                } else if (statusCode != null) {
+                    replica.observe(elapsed);
+                }
+
+                if (cause instanceof HttpNotificationException && (statusCode == null || statusCode >= 500)) {
+                    replica.ejectedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ejectionDuration);
+                    failed(cause);
+                } else {
+                    rejected(cause);
+                }
+            });
+        }
+
+        /**
+         * Stops failing the notification over after a client error or rejection, and fails it with that error once
+         * no other attempt is in flight.
+         */
+        private void rejected(Throwable cause) {
+            synchronized (this) {
+                outstanding--;
+
+                if (clientError == null) {
+                    clientError = cause;
+                }
+                if (future.isDone() || outstanding > 0) {
+                    return;
+                }
+            }
+
+            future.completeExceptionally(cause);
+        }
+
+        /**
+         * Fails the notification over to the next replica, or fails it once no replica is left and no attempt is
+         * in flight.
+         */
+        private void failed(Throwable cause) {
+            final Replica replica;
+
+            synchronized (this) {
+                outstanding--;
+
+                if (future.isDone()) {
+                    return;
+                }
+
+                replica = next();
+
+                if (replica == null) {
+                    if (outstanding == 0) {
+                        future.completeExceptionally(clientError != null ? clientError : cause);
+                    }
+                    return;
+                }
+            }
+
+            failovers.increment();
+            dispatch(replica, false);
+        }
+    }
+
+    /**
+     * A replica and its peak EWMA latency estimate. The estimate jumps to any latency above it and otherwise decays
+     * towards recent latencies with time constant DECAY_TIME.
+     */
+    private static class Replica {
+
+        final Endpoint endpoint;
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile long ejectedUntil;
+
+        private double cost;
+        private long stamp = System.nanoTime();
+
+        Replica(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        boolean isHealthy(long now) {
+            return ejectedUntil == 0L || ejectedUntil - now <= 0L;
+        }
+
+        synchronized void observe(long latencyNanos) {
+            final long now = System.nanoTime();
+            final double weight = Math.exp(-(double) Math.max(now - stamp, 0L) / TimeUnit.MILLISECONDS.toNanos(DECAY_TIME));
+
+            stamp = now;
+            cost = latencyNanos > cost ? latencyNanos : cost * weight + latencyNanos * (1.0 - weight);
+        }
+
+        /**
+         * @return The latency estimate weighted by the notifications in flight. A replica which has not responded yet
+         * is free while idle and expensive while busy, so it is tried without piling notifications onto it.
+         */
+        synchronized double load() {
+            final int pending = inFlight.get();
+
+            if (cost == 0.0) {
+                return pending == 0 ? 0.0 : Long.MAX_VALUE / 2.0 + pending;
+            }
+
+            return cost * (pending + 1);
+        }
+    }
+
+    /**
+     * Builder for EndpointGroup instances. Settings which are left unset, or set to a non positive value, fall back
+     * to the plugin defaults.
+     */
+    public static class Builder {
+
+        private final HttpNotification notification;
+        private final String httpMethod;
+        private final String contentType;
+        private final List<String> urls = new ArrayList<>();
+        private Boolean hedging;
+        private Long hedgeDelay;
+        private Long ejectionDuration;
+
+        Builder(HttpNotification notification, String httpMethod, String contentType) {
+            this.notification = notification;
+            this.httpMethod = httpMethod;
+            this.contentType = contentType;
+        }
+
+        /**
+         * @param url The url of a replica.
+         * @return This builder.
+         */
+        public Builder url(String url) {
+            this.urls.add(url);
+            return this;
+        }
+
+        /**
+         * @param urls The urls of replicas.
+         * @return This builder.
+         */
+        public Builder urls(Collection<String> urls) {
+            this.urls.addAll(urls);
+            return this;
+        }
+
+        /**
+         * @param hedging Whether a second copy of a slow notification is sent to another replica, false by default.
+         * @return This builder.
+         */
+        public Builder hedging(Boolean hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+
+        /**
+         * @param hedgeDelay Delay in milliseconds before a hedged copy is sent until the group has observed enough
+         *                   latencies to hedge at their p95.
+         * @return This builder.
+         */
+        public Builder hedgeDelay(Long hedgeDelay) {
+            this.hedgeDelay = hedgeDelay;
+            return this;
+        }
+
+        /**
+         * @param ejectionDuration Time in milliseconds a failed replica is only tried once the others were.
+         * @return This builder.
+         */
+        public Builder ejectionDuration(Long ejectionDuration) {
+            this.ejectionDuration = ejectionDuration;
+            return this;
+        }
+
+        /**
+         * @return A new EndpointGroup.
+         * @throws HttpNotificationException If no url is given or a url, the method or the content type is invalid.
+         */
+        public EndpointGroup build() throws HttpNotificationException {
+            if (urls.isEmpty()) {
+                throw new HttpNotificationException("Error: Endpoint group requires at least one URL.");
+            }
+
+            final List<Endpoint> endpoints = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                endpoints.add(notification.endpoint(url, httpMethod, contentType));
+            }
+
+            return new EndpointGroup(this, endpoints);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.http.utility;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Request entity streaming a file from a FileChannel with chunked transfer coding, so that the file is never held
+ * on the heap. The file is opened each time the entity is written, which makes it repeatable.
+ */
+class FileChannelEntity extends AbstractHttpEntity {
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(ResponseDrain.BUFFER_SIZE));
+
+    private final Path file;
+
+    FileChannelEntity(Path file) {
+        this.file = file;
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        final ByteBuffer buffer = BUFFER.get();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+
+            while (channel.read(buffer) != -1) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
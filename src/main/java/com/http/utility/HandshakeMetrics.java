@@ -0,0 +1,72 @@
+package com.http.utility;
+
+import javax.net.ssl.SSLSession;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the connections a transport set up: TLS handshakes, split into full and resumed ones, and the
+ * connections opened ahead of time by a warm-up.
+ *
+ * A handshake counts as resumed when its session was created before the handshake started, i.e. it was taken from
+ * the client session cache.
+ */
+class HandshakeMetrics {
+
+    private final LongAdder fullHandshakes = new LongAdder();
+    private final LongAdder fullHandshakeNanos = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+    private final LongAdder resumedHandshakeNanos = new LongAdder();
+    private final LongAdder warmedConnections = new LongAdder();
+    private final LongAdder warmUpNanos = new LongAdder();
+
+    /**
+     * @param session   The session negotiated by the handshake.
+     * @param startTime Wall clock time in milliseconds at which the handshake started.
+     * @param nanos     Duration of the handshake.
+     */
+    void handshake(SSLSession session, long startTime, long nanos) {
+        if (session.getCreationTime() < startTime) {
+            resumedHandshakes.increment();
+            resumedHandshakeNanos.add(nanos);
+        } else {
+            fullHandshakes.increment();
+            fullHandshakeNanos.add(nanos);
+        }
+    }
+
+    /**
+     * @param nanos Time taken to open the connection, from the DNS lookup to the end of the TLS handshake.
+     */
+    void warmed(long nanos) {
+        warmedConnections.increment();
+        warmUpNanos.add(nanos);
+    }
+
+    long getFullHandshakes() {
+        return fullHandshakes.sum();
+    }
+
+    long getResumedHandshakes() {
+        return resumedHandshakes.sum();
+    }
+
+    long getWarmedConnections() {
+        return warmedConnections.sum();
+    }
+
+    /**
+     * @return Connection setup time in nanoseconds notifications did not have to wait for: the setup of the connections
+     * opened by warm-ups, plus what each resumed handshake saved over the average full handshake.
+     */
+    long getTimeSaved() {
+        final long full = fullHandshakes.sum();
+        final long resumed = resumedHandshakes.sum();
+        long saved = warmUpNanos.sum();
+
+        if (full > 0L && resumed > 0L) {
+            saved += Math.max(fullHandshakeNanos.sum() / full - resumedHandshakeNanos.sum() / resumed, 0L) * resumed;
+        }
+
+        return saved;
+    }
+}
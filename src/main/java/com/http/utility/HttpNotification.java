@@ -1,33 +1,44 @@
 package com.http.utility;
 
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
-import com.google.gson.Gson;
-
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.DocumentHelper;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
-
 import org.apache.commons.validator.routines.UrlValidator;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.net.ssl.SSLContext;
+
 /**
  * The following implementation Http notification plugin will post requests to the target url.
  * The user of this plugin can pass body content, content type, and HTTP method type.
+ *
+ * Each instance owns its own transport, by default the pooled Apache clients configured through {@link Builder}.
+ * Instances should be closed once they are no longer needed.
  */
-public class HttpNotification {
+public class HttpNotification implements Closeable {
 
     private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
-    private static final Gson gson = new Gson();
 
     /*
         Plugin default request timeout lengths.
@@ -35,10 +46,129 @@ public class HttpNotification {
     public static final Long DEFAULT_CONNECTION_TIMEOUT = 10000L;
     public static final Long DEFAULT_SOCKET_TIMEOUT = 60000L;
 
-    private Long connectionTimeout;
-    private Long socketTimeout;
+    /*
+        Plugin default connection pool settings.
+     */
+    public static final Integer DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+    public static final Integer DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final Long DEFAULT_KEEP_ALIVE_TTL = 30000L;
+    public static final Long DEFAULT_IDLE_EVICTION = 60000L;
+
+    /*
+        Plugin default number of notifications in flight during a bulk send.
+     */
+    public static final Integer DEFAULT_BULK_CONCURRENCY = 64;
+
+    /*
+        Plugin default number of response body bytes kept for error diagnostics.
+     */
+    public static final Integer DEFAULT_RESPONSE_CAPTURE_LIMIT = 1024;
+
+    /*
+        Plugin default time resolved receiver addresses are cached for.
+     */
+    public static final Long DEFAULT_DNS_CACHE_TTL = 60000L;
+
+    /*
+        Plugin default circuit breaker settings, a threshold of 0 disables the circuit breakers.
+     */
+    public static final Integer DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 0;
+    public static final Long DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = 30000L;
+
+    /*
+        Plugin default settings of batched json notifications.
+     */
+    public static final Long DEFAULT_BATCH_LINGER = 10L;
+    public static final Integer DEFAULT_BATCH_MAX_COUNT = 100;
+    public static final Integer DEFAULT_BATCH_MAX_SIZE = 1024 * 1024;
+
+    /*
+        Plugin default body size in bytes from which request bodies are compressed for receivers which accept it.
+     */
+    public static final Integer DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    /*
+        Plugin default deduplication settings, a window of 0 disables deduplication.
+     */
+    public static final Long DEFAULT_DEDUPLICATION_WINDOW = 0L;
+    public static final Integer DEFAULT_DEDUPLICATION_MAX_ENTRIES = 10000;
+
+    /*
+        Plugin default settings of the fire-and-forget queue.
+     */
+    public static final Integer DEFAULT_QUEUE_CAPACITY = 8192;
+    public static final Integer DEFAULT_QUEUE_DISPATCHERS = 4;
+
+    /*
+        Plugin default priority lane settings, the lanes are disabled by default.
+     */
+    public static final Boolean DEFAULT_PRIORITY_LANES = false;
+    public static final Long DEFAULT_STARVATION_THRESHOLD = 1000L;
+
+    /*
+        Plugin default connection warm-up settings.
+     */
+    public static final Integer DEFAULT_WARM_UP_CONNECTIONS = 2;
+    public static final Long DEFAULT_KEEP_WARM_INTERVAL = 15000L;
+    public static final Integer DEFAULT_TLS_SESSION_CACHE_SIZE = 1000;
+
+    /*
+        Url validator for the supported schemes, it is immutable and shared by all instances.
+     */
+    private static final UrlValidator URL_VALIDATOR = new UrlValidator(new String[]{"http", "https"});
+
+    /*
+        Shared timer wheel on which retries and batch flushes are scheduled, so that no thread sleeps through a delay.
+     */
+    static final TimerWheel TIMER_WHEEL = new TimerWheel(5L, 512, "http-notification-timer");
 
-    private Unirest unirest = new Unirest();
+    private volatile Long connectionTimeout;
+    private volatile Long socketTimeout;
+
+    private final Integer maxConnectionsTotal;
+    private final Integer maxConnectionsPerRoute;
+    private final Long keepAliveTtl;
+    private final Long idleEviction;
+    private final Integer bulkConcurrency;
+    private final ValidationMode validationMode;
+    private final ResponseMode responseMode;
+    private final Integer responseCaptureLimit;
+    private final Long dnsCacheTtl;
+    private final RetryPolicy retryPolicy;
+    private final Integer circuitBreakerThreshold;
+    private final Long circuitBreakerOpenDuration;
+    private final Long batchLinger;
+    private final Integer batchMaxCount;
+    private final Integer batchMaxSize;
+    private final Integer compressionThreshold;
+    private final Map<String, RequestCompression> compressions;
+    private final RateLimit rateLimit;
+    private final Map<String, RateLimit> rateLimits;
+    private final Long deduplicationWindow;
+    private final Integer deduplicationMaxEntries;
+    private final Integer queueCapacity;
+    private final Integer queueDispatchers;
+    private final OverflowPolicy overflowPolicy;
+    private final BiConsumer<Endpoint, String> overflowHandler;
+    private final Boolean priorityLanes;
+    private final Map<NotificationPriority, Integer> reservedCapacities;
+    private final Map<NotificationPriority, Integer> priorityWeights;
+    private final Long starvationThreshold;
+    private final Integer warmUpConnections;
+    private final Long keepWarmInterval;
+    private final Integer tlsSessionCacheSize;
+
+    private final NotificationBatcher batcher;
+    private final Deduplicator deduplicator;
+    private volatile NotificationRing ring;
+    private boolean queueShutdown;
+    private final DeliveryMetrics metrics = new DeliveryMetrics();
+    private final ObjectName mbeanName;
+    private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PriorityLanes> lanes = new ConcurrentHashMap<>();
+
+    private final NotificationTransport transport;
 
     /*
         Supported HTTP methods.
@@ -58,15 +188,98 @@ public class HttpNotification {
     public static final List<String> SUPPORTED_CONTENT_TYPES = Arrays.asList(CONTENT_JSON, CONTENT_TEXT, CONTENT_XML);
 
     public HttpNotification(Long connectionTimeout, Long socketTimeout) {
+        this(builder().connectionTimeout(connectionTimeout).socketTimeout(socketTimeout));
+    }
+
+    private HttpNotification(Builder builder) {
+
+        this.connectionTimeout = builder.connectionTimeout != null && builder.connectionTimeout > 0L ? builder.connectionTimeout : DEFAULT_CONNECTION_TIMEOUT;
+
+        this.socketTimeout = builder.socketTimeout != null && builder.socketTimeout > 0L ? builder.socketTimeout : DEFAULT_SOCKET_TIMEOUT;
+
+        this.maxConnectionsTotal = builder.maxConnectionsTotal != null && builder.maxConnectionsTotal > 0 ? builder.maxConnectionsTotal : DEFAULT_MAX_CONNECTIONS_TOTAL;
+
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute != null && builder.maxConnectionsPerRoute > 0 ? builder.maxConnectionsPerRoute : DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+        this.keepAliveTtl = builder.keepAliveTtl != null && builder.keepAliveTtl > 0L ? builder.keepAliveTtl : DEFAULT_KEEP_ALIVE_TTL;
+
+        this.idleEviction = builder.idleEviction != null && builder.idleEviction > 0L ? builder.idleEviction : DEFAULT_IDLE_EVICTION;
+
+        this.bulkConcurrency = builder.bulkConcurrency != null && builder.bulkConcurrency > 0 ? builder.bulkConcurrency : DEFAULT_BULK_CONCURRENCY;
+
+        this.validationMode = builder.validationMode != null ? builder.validationMode : ValidationMode.FULL;
+
+        this.responseMode = builder.responseMode != null ? builder.responseMode : ResponseMode.DISCARD;
+
+        this.responseCaptureLimit = builder.responseCaptureLimit != null && builder.responseCaptureLimit >= 0 ? builder.responseCaptureLimit : DEFAULT_RESPONSE_CAPTURE_LIMIT;
+
+        this.dnsCacheTtl = builder.dnsCacheTtl != null && builder.dnsCacheTtl >= 0L ? builder.dnsCacheTtl : DEFAULT_DNS_CACHE_TTL;
+
+        this.retryPolicy = builder.retryPolicy != null ? builder.retryPolicy : RetryPolicy.NONE;
+
+        this.circuitBreakerThreshold = builder.circuitBreakerThreshold != null && builder.circuitBreakerThreshold > 0 ? builder.circuitBreakerThreshold : DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+
+        this.circuitBreakerOpenDuration = builder.circuitBreakerOpenDuration != null && builder.circuitBreakerOpenDuration > 0L ? builder.circuitBreakerOpenDuration : DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+
+        this.batchLinger = builder.batchLinger != null && builder.batchLinger > 0L ? builder.batchLinger : DEFAULT_BATCH_LINGER;
+
+        this.batchMaxCount = builder.batchMaxCount != null && builder.batchMaxCount > 0 ? builder.batchMaxCount : DEFAULT_BATCH_MAX_COUNT;
+
+        this.batchMaxSize = builder.batchMaxSize != null && builder.batchMaxSize > 0 ? builder.batchMaxSize : DEFAULT_BATCH_MAX_SIZE;
+
+        this.compressionThreshold = builder.compressionThreshold != null && builder.compressionThreshold > 0 ? builder.compressionThreshold : DEFAULT_COMPRESSION_THRESHOLD;
+
+        this.compressions = new HashMap<>(builder.compressions);
 
-        this.connectionTimeout = connectionTimeout != null && connectionTimeout > 0L ? connectionTimeout : DEFAULT_CONNECTION_TIMEOUT;
+        this.rateLimit = builder.rateLimit;
 
-        this.socketTimeout = socketTimeout != null && socketTimeout > 0L ? socketTimeout : DEFAULT_SOCKET_TIMEOUT;
+        this.rateLimits = new HashMap<>(builder.rateLimits);
 
-        this.unirest.setTimeouts(this.connectionTimeout, this.socketTimeout);
+        this.deduplicationWindow = builder.deduplicationWindow != null && builder.deduplicationWindow > 0L ? builder.deduplicationWindow : DEFAULT_DEDUPLICATION_WINDOW;
+
+        this.deduplicationMaxEntries = builder.deduplicationMaxEntries != null && builder.deduplicationMaxEntries > 0 ? builder.deduplicationMaxEntries : DEFAULT_DEDUPLICATION_MAX_ENTRIES;
+
+        this.queueCapacity = builder.queueCapacity != null && builder.queueCapacity > 0 ? builder.queueCapacity : DEFAULT_QUEUE_CAPACITY;
+
+        this.queueDispatchers = builder.queueDispatchers != null && builder.queueDispatchers > 0 ? builder.queueDispatchers : DEFAULT_QUEUE_DISPATCHERS;
+
+        this.overflowPolicy = builder.overflowPolicy != null ? builder.overflowPolicy : OverflowPolicy.BLOCK;
+
+        this.overflowHandler = builder.overflowHandler;
+
+        this.priorityLanes = builder.priorityLanes != null ? builder.priorityLanes : DEFAULT_PRIORITY_LANES;
+
+        this.reservedCapacities = new EnumMap<>(builder.reservedCapacities);
+
+        this.priorityWeights = new EnumMap<>(builder.priorityWeights);
+
+        this.starvationThreshold = builder.starvationThreshold != null && builder.starvationThreshold > 0L ? builder.starvationThreshold : DEFAULT_STARVATION_THRESHOLD;
+
+        this.warmUpConnections = builder.warmUpConnections != null && builder.warmUpConnections > 0 ? builder.warmUpConnections : DEFAULT_WARM_UP_CONNECTIONS;
+
+        this.keepWarmInterval = builder.keepWarmInterval != null && builder.keepWarmInterval > 0L ? builder.keepWarmInterval : DEFAULT_KEEP_WARM_INTERVAL;
+
+        this.tlsSessionCacheSize = builder.tlsSessionCacheSize != null && builder.tlsSessionCacheSize > 0 ? builder.tlsSessionCacheSize : DEFAULT_TLS_SESSION_CACHE_SIZE;
+
+        this.deduplicator = this.deduplicationWindow > 0L ? new Deduplicator(this.deduplicationWindow, this.deduplicationMaxEntries) : null;
+
+        this.batcher = new NotificationBatcher(this, this.batchLinger, this.batchMaxCount, this.batchMaxSize);
+
+        this.transport = builder.transport != null ? builder.transport : new ApacheHttpTransport(this.maxConnectionsTotal, this.maxConnectionsPerRoute, this.keepAliveTtl, this.idleEviction, this.dnsCacheTtl, builder.sslContext, this.tlsSessionCacheSize, this.keepWarmInterval);
+
+        this.mbeanName = builder.jmxName != null ? registerMBean(builder.jmxName) : null;
 
     }
 
+    /**
+     * Creates a builder for configuring a new HttpNotification instance.
+     *
+     * @return A builder holding the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
     /**
      * Getter method for connectionTimout.
      *
@@ -83,7 +296,6 @@ public class HttpNotification {
      */
     public void setConnectionTimeout(Long connectionTimeout) {
         this.connectionTimeout = connectionTimeout;
-        this.unirest.setTimeouts(this.connectionTimeout, this.socketTimeout);
     }
 
     /**
@@ -102,209 +314,2141 @@ public class HttpNotification {
      */
     public void setSocketTimeout(Long socketTimeout) {
         this.socketTimeout = socketTimeout;
-        this.unirest.setTimeouts(this.connectionTimeout, this.socketTimeout);
+    }
 
+    /**
+     * Getter method for maxConnectionsTotal.
+     *
+     * @return Maximum number of pooled connections across all receivers.
+     */
+    public Integer getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
     }
 
     /**
-     * The following method will post an HTTP notification to the passed in url.
+     * Getter method for maxConnectionsPerRoute.
      *
-     * @param url         The designated endpoint accepting the notification.
-     * @param httpMethod  The HTTP method to use.
-     * @param contentType Request header content type.
-     * @param body        The notification body.
-     * @return True if successful, False if not.
-     * @throws HttpNotificationException
+     * @return Maximum number of pooled connections to a single receiver.
      */
-    public Boolean sendNotification(String url, String httpMethod, String contentType, String body) throws HttpNotificationException {
-        if (url == null || url.isEmpty()) {
-            throw new HttpNotificationException("Error: URL is required.");
-        } else {
-            String[] schemes = {"http","https"};
-            UrlValidator urlValidator = new UrlValidator(schemes);
+    public Integer getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
 
-            if (!urlValidator.isValid(url)) {
-                throw new HttpNotificationException("Error: URL is invalid.");
-            }
-        }
+    /**
+     * Getter method for keepAliveTtl.
+     *
+     * @return Maximum time in milliseconds an idle connection is kept alive for reuse.
+     */
+    public Long getKeepAliveTtl() {
+        return keepAliveTtl;
+    }
 
-        if (httpMethod == null || httpMethod.isEmpty()) {
-            throw new HttpNotificationException("Error: HTTP method is required.");
-        } else if (!SUPPORTED_HTTP_METHODS.contains(httpMethod)) {
-            throw new HttpNotificationException("Error: HTTP method not supported. The following methods are supported: " + SUPPORTED_HTTP_METHODS.toString());
-        }
+    /**
+     * Getter method for idleEviction.
+     *
+     * @return Interval in milliseconds after which idle connections are evicted from the pools.
+     */
+    public Long getIdleEviction() {
+        return idleEviction;
+    }
 
-        if (contentType == null || contentType.isEmpty()) {
-            throw new HttpNotificationException("Error: Content type is required.");
-        } else if (!SUPPORTED_CONTENT_TYPES.contains(contentType)) {
-            throw new HttpNotificationException("Error: Content type not supported. The following methods are supported: " + SUPPORTED_CONTENT_TYPES.toString());
-        }
+    /**
+     * Getter method for bulkConcurrency.
+     *
+     * @return Maximum number of notifications in flight during a bulk send.
+     */
+    public Integer getBulkConcurrency() {
+        return bulkConcurrency;
+    }
 
-        if (body == null || body.isEmpty()) {
-            throw new HttpNotificationException("Error: Notification body is required.");
-        }
+    /**
+     * Getter method for validationMode.
+     *
+     * @return How much validation is applied to notifications before they are sent.
+     */
+    public ValidationMode getValidationMode() {
+        return validationMode;
+    }
 
-        if (contentType == CONTENT_JSON && !isValidJson(body)) {
-            throw new HttpNotificationException("Error: Json is invalid.");
-        }
+    /**
+     * Getter method for responseMode.
+     *
+     * @return How the body of a receiver's response is handled.
+     */
+    public ResponseMode getResponseMode() {
+        return responseMode;
+    }
 
-        if (contentType == CONTENT_XML && !isValidXml(body)) {
-            throw new HttpNotificationException("Error: Xml is invalid.");
-        }
+    /**
+     * Getter method for responseCaptureLimit.
+     *
+     * @return Maximum number of response body bytes kept for error diagnostics in DISCARD mode.
+     */
+    public Integer getResponseCaptureLimit() {
+        return responseCaptureLimit;
+    }
 
-        if (httpMethod == HTTP_METHOD_POST) {
-            return postNotification(url, contentType, body);
-        } else if (httpMethod == HTTP_METHOD_PUT) {
-            return putNotification(url, contentType, body);
-        }
+    /**
+     * Getter method for dnsCacheTtl.
+     *
+     * @return Time in milliseconds resolved receiver addresses are cached for.
+     */
+    public Long getDnsCacheTtl() {
+        return dnsCacheTtl;
+    }
 
-        return false;
+    /**
+     * Getter method for retryPolicy.
+     *
+     * @return Policy deciding which failed notifications are attempted again.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
     }
 
     /**
-     * The following helper method will POST an HttpNotification (body) to the designated url.
+     * Getter method for circuitBreakerThreshold.
      *
-     * @param url         The designated endpoint accepting the notification.
-     * @param contentType Request header content type.
-     * @param body        The notification body.
-     * @return True if successful, False if not.
-     * @throws HttpNotificationException
+     * @return Consecutive failures after which notifications to a host fail fast, 0 if circuit breakers are disabled.
      */
-    private Boolean postNotification(String url, String contentType, String body) throws HttpNotificationException {
-        Integer statusCode = 0;
-        String statusText = "";
+    public Integer getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
 
-        try {
-            if (contentType == CONTENT_JSON) {
-                HttpResponse<JsonNode> jsonResponse = unirest.post(url)
-                        .header("Content-Type", contentType)
-                        .body(body)
-                        .asJson();
+    /**
+     * Getter method for circuitBreakerOpenDuration.
+     *
+     * @return Time in milliseconds notifications to a failing host fail fast before it is probed again.
+     */
+    public Long getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
 
-                statusCode = jsonResponse.getStatus();
-                statusText = jsonResponse.getStatusText();
+    /**
+     * Getter method for batchLinger.
+     *
+     * @return Time in milliseconds a batched notification waits for others to the same endpoint.
+     */
+    public Long getBatchLinger() {
+        return batchLinger;
+    }
 
-            } else if (contentType == CONTENT_TEXT || contentType == CONTENT_XML) {
-                HttpResponse response = unirest.post(url)
-                        .header("Content-Type", contentType)
-                        .body(body)
-                        .asString();
+    /**
+     * Getter method for batchMaxCount.
+     *
+     * @return Maximum number of notifications sent in one batch.
+     */
+    public Integer getBatchMaxCount() {
+        return batchMaxCount;
+    }
 
-                statusCode = response.getStatus();
-                statusText = response.getStatusText();
+    /**
+     * Getter method for batchMaxSize.
+     *
+     * @return Size in characters of the batched bodies at which a batch is sent without waiting for the linger time.
+     */
+    public Integer getBatchMaxSize() {
+        return batchMaxSize;
+    }
 
-            }
-        } catch (UnirestException e) {
-            LOGGER.log(Level.SEVERE, "Error: Failed to POST Http Notification.");
+    /**
+     * Getter method for compressionThreshold.
+     *
+     * @return Body size in bytes from which request bodies are compressed for receivers which accept it.
+     */
+    public Integer getCompressionThreshold() {
+        return compressionThreshold;
+    }
 
-            return false;
-        }
+    /**
+     * Looks up the compression a receiver accepts.
+     *
+     * @param host The receiver's host name.
+     * @return The compression configured for the host, NONE if it did not opt in.
+     */
+    public RequestCompression getCompression(String host) {
+        RequestCompression compression = host != null ? compressions.get(host.toLowerCase(Locale.ROOT)) : null;
 
-        if (statusCode >= 300) {
-            throwStatusCodeException(statusCode, statusText);
-        }
+        return compression != null ? compression : RequestCompression.NONE;
+    }
 
-        return true;
+    /**
+     * Get the rate limit applied to each host which has no limit of its own.
+     *
+     * @return The default rate limit, null if hosts without a limit of their own are not limited.
+     */
+    public RateLimit getRateLimit() {
+        return rateLimit;
     }
 
     /**
-     * The following helper method will PUT an HttpNotification (body) to the designated url.
+     * Getter method for deduplicationWindow.
      *
-     * @param url         The designated endpoint accepting the notification.
-     * @param contentType Request header content type.
-     * @param body        The notification body.
-     * @return True if successful, False if not.
-     * @throws HttpNotificationException
+     * @return Time in milliseconds during which repeat notifications are suppressed, 0 if they are not.
      */
-    private Boolean putNotification(String url, String contentType, String body) throws HttpNotificationException {
-        Integer statusCode = 0;
-        String statusText = "";
+    public Long getDeduplicationWindow() {
+        return deduplicationWindow;
+    }
 
-        try {
-            if (contentType == CONTENT_JSON) {
-                HttpResponse<JsonNode> jsonResponse = unirest.put(url)
-                        .header("Content-Type", contentType)
-                        .body(body)
-                        .asJson();
+    /**
+     * Getter method for deduplicationMaxEntries.
+     *
+     * @return Number of sent notifications remembered at most for deduplication.
+     */
+    public Integer getDeduplicationMaxEntries() {
+        return deduplicationMaxEntries;
+    }
 
-                statusCode = jsonResponse.getStatus();
-                statusText = jsonResponse.getStatusText();
+    /**
+     * Getter method for queueCapacity.
+     *
+     * @return Number of notifications the fire-and-forget queue holds at most, rounded up to a power of two.
+     */
+    public Integer getQueueCapacity() {
+        return queueCapacity;
+    }
 
-            } else if (contentType == CONTENT_TEXT || contentType == CONTENT_XML) {
-                HttpResponse response = unirest.put(url)
-                        .header("Content-Type", contentType)
-                        .body(body)
-                        .asString();
+    /**
+     * Getter method for queueDispatchers.
+     *
+     * @return Number of threads sending the notifications of the fire-and-forget queue.
+     */
+    public Integer getQueueDispatchers() {
+        return queueDispatchers;
+    }
 
-                statusCode = response.getStatus();
-                statusText = response.getStatusText();
+    /**
+     * Getter method for overflowPolicy.
+     *
+     * @return What happens to a notification enqueued while the fire-and-forget queue is full.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
 
-            }
-        } catch (UnirestException e) {
-            LOGGER.log(Level.SEVERE, "Error: Failed to PUT Http Notification.");
+    /**
+     * Getter method for priorityLanes.
+     *
+     * @return True if notifications to a receiver are admitted by priority class, False if priorities are ignored.
+     */
+    public Boolean getPriorityLanes() {
+        return priorityLanes;
+    }
 
-            return false;
-        }
+    /**
+     * Looks up the connections per receiver reserved for a priority class.
+     *
+     * @param priority The priority class.
+     * @return Number of connections per receiver only the class may use.
+     */
+    public Integer getReservedCapacity(NotificationPriority priority) {
+        Integer reserved = reservedCapacities.get(priority);
 
-        if (statusCode >= 300) {
-            throwStatusCodeException(statusCode, statusText);
-        }
+        return reserved != null && reserved >= 0 ? reserved : priority.getDefaultReservedCapacity();
+    }
 
-        return true;
+    /**
+     * Looks up the weight of a priority class.
+     *
+     * @param priority The priority class.
+     * @return The share of freed connections the class gets relative to the other waiting classes.
+     */
+    public Integer getPriorityWeight(NotificationPriority priority) {
+        Integer weight = priorityWeights.get(priority);
+
+        return weight != null && weight > 0 ? weight : priority.getDefaultWeight();
     }
 
     /**
-     * This helper method will derive and throw a new HttpNotificationException based on the Http status code.
+     * Getter method for starvationThreshold.
      *
-     * @param code The Http status code returned by the client.
-     * @throws HttpNotificationException
+     * @return Time in milliseconds after which a waiting notification is admitted ahead of the weighted order.
      */
-    private void throwStatusCodeException(Integer code, String codeText) throws HttpNotificationException {
-        if (code >= 300 && code < 400) {
-            throw new HttpNotificationException("Error: Server responded with redirection. Code: " + code + ", Text: " + codeText);
-        } else if (code >= 400 && code < 500) {
-            throw new HttpNotificationException("Error: Server responded with client side error. Code: " + code + ", Text: " + codeText);
-        } else if (code >= 500 && code < 600) {
-            throw new HttpNotificationException("Error: Server responded with server error. Code: " + code + ", Text: " + codeText);
-        }
+    public Long getStarvationThreshold() {
+        return starvationThreshold;
     }
 
     /**
-     * Simple helper method which determines if the given json (string) is valid.
+     * Getter method for warmUpConnections.
      *
-     * @param jsonString The json object as a string.
-     * @return True if valid, False if invalid.
+     * @return Number of connections a warm-up opens per receiver.
      */
-    public static boolean isValidJson(String jsonString) {
-        try {
-            gson.fromJson(jsonString, Object.class);
-            return true;
-        } catch (com.google.gson.JsonSyntaxException ex) {
-            return false;
-        }
+    public Integer getWarmUpConnections() {
+        return warmUpConnections;
     }
 
     /**
-     * Simple helper method which determines if the given xml (string) is valid.
+     * Getter method for keepWarmInterval.
      *
-     * @param xmlString The xml object as a string.
-     * @return True if valid, False if invalid.
+     * @return Interval in milliseconds at which warmed up connections are kept warm.
      */
-    public static boolean isValidXml(String xmlString) {
-        StringWriter sw;
+    public Long getKeepWarmInterval() {
+        return keepWarmInterval;
+    }
 
-        try {
-            final OutputFormat format = OutputFormat.createPrettyPrint();
-            final Document document = DocumentHelper.parseText(xmlString);
-            sw = new StringWriter();
-            final XMLWriter writer = new XMLWriter(sw, format);
-            writer.write(document);
-        } catch (DocumentException e) {
-            return false;
-        } catch (IOException e) {
-            return false;
-        }
+    /**
+     * Getter method for tlsSessionCacheSize.
+     *
+     * @return Number of TLS sessions cached for resumption at most.
+     */
+    public Integer getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    /**
+     * Get the number of notifications waiting in the fire-and-forget queue.
+     *
+     * @return Number of queued notifications, 0 if nothing was enqueued yet.
+     */
+    public Integer getQueueSize() {
+        final NotificationRing current = ring;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Get the number of enqueued notifications which were dropped, because the queue was full or shut down.
+     *
+     * @return Number of dropped notifications.
+     */
+    public Long getQueueDropped() {
+        final NotificationRing current = ring;
+        return current != null ? current.getDropped() : 0L;
+    }
+
+    /**
+     * Get the transport notifications are sent through.
+     *
+     * @return The transport of this instance.
+     */
+    public NotificationTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * The following method validates a notification target once and returns it as an Endpoint. Sending through the
+     * endpoint skips the url, method and content type validation, which makes it the preferred way to notify the
+     * same receiver repeatedly.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @return The validated endpoint, sending through this instance.
+     * @throws HttpNotificationException
+     */
+    public Endpoint endpoint(String url, String httpMethod, String contentType) throws HttpNotificationException {
+        URI uri = uri(url);
+
+        NotificationMethod method = NotificationMethod.fromValue(httpMethod);
+
+        if (httpMethod == null || httpMethod.isEmpty()) {
+            throw new HttpNotificationException("Error: HTTP method is required.");
+        } else if (method == null) {
+            throw new HttpNotificationException("Error: HTTP method not supported. The following methods are supported: " + SUPPORTED_HTTP_METHODS.toString());
+        }
+
+        NotificationContentType type = NotificationContentType.fromValue(contentType);
+
+        if (contentType == null || contentType.isEmpty()) {
+            throw new HttpNotificationException("Error: Content type is required.");
+        } else if (type == null) {
+            throw new HttpNotificationException("Error: Content type not supported. The following methods are supported: " + SUPPORTED_CONTENT_TYPES.toString());
+        }
+
+        return new Endpoint(this, uri, method, type, getCompression(uri.getHost()), metrics.forUri(uri), rateLimiter(uri), lanes(uri), NotificationPriority.NORMAL);
+    }
+
+    /**
+     * The following helper method validates a notification url.
+     *
+     * @param url The designated endpoint accepting the notification.
+     * @return The url as an URI.
+     * @throws HttpNotificationException
+     */
+    private URI uri(String url) throws HttpNotificationException {
+        if (url == null || url.isEmpty()) {
+            throw new HttpNotificationException("Error: URL is required.");
+        } else if (validationMode != ValidationMode.NONE && !URL_VALIDATOR.isValid(url)) {
+            throw new HttpNotificationException("Error: URL is invalid.");
+        }
+
+        try {
+            return URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new HttpNotificationException("Error: URL is invalid.");
+        }
+    }
+
+    /**
+     * The following method opens connections to the given receivers ahead of their first notification, so that the
+     * first notifications do not wait for TCP and TLS handshakes. The receivers are warmed up in parallel, each with
+     * warmUpConnections connections per connection pool, and their connections are kept warm afterwards. A receiver
+     * which cannot be reached is logged and skipped.
+     *
+     * @param urls The receivers' urls.
+     * @return Number of connections opened.
+     * @throws HttpNotificationException
+     */
+    public Integer warmUp(Collection<String> urls) throws HttpNotificationException {
+        if (urls == null) {
+            throw new HttpNotificationException("Error: URLs are required.");
+        }
+
+        final Map<String, URI> uris = new LinkedHashMap<>();
+
+        for (String url : urls) {
+            uris.put(url, uri(url));
+        }
+
+        if (uris.isEmpty()) {
+            return 0;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(uris.size(), 16), runnable -> {
+            Thread thread = new Thread(runnable, "http-notification-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            final List<CompletableFuture<Integer>> warmUps = new ArrayList<>(uris.size());
+
+            for (Map.Entry<String, URI> entry : uris.entrySet()) {
+                warmUps.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return transport.warmUp(entry.getValue(), warmUpConnections, connectionTimeout);
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.log(Level.SEVERE, "Error: Failed to warm up connections to " + entry.getKey() + ".");
+                        return 0;
+                    }
+                }, executor));
+            }
+
+            int opened = 0;
+
+            for (CompletableFuture<Integer> warmUp : warmUps) {
+                opened += warmUp.join();
+            }
+
+            return opened;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The following method starts building a group of replicas of one receiver, notified as a single target with
+     * latency aware replica selection, failover and optional hedging.
+     *
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @return A builder of the group, sending through this instance.
+     * @see EndpointGroup
+     */
+    public EndpointGroup.Builder endpointGroup(String httpMethod, String contentType) {
+        return new EndpointGroup.Builder(this, httpMethod, contentType);
+    }
+
+    /**
+     * The following method will post an HTTP notification to the passed in url.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     */
+    public Boolean sendNotification(String url, String httpMethod, String contentType, String body) throws HttpNotificationException {
+        return endpoint(url, httpMethod, contentType).send(body);
+    }
+
+    /**
+     * The following method will post an HTTP notification to the passed in url with the given priority. With
+     * priority lanes enabled, the notification waits for a connection in the queue of its class.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @param priority    The priority class of the notification.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see #sendNotification(String, String, String, String)
+     */
+    public Boolean sendNotification(String url, String httpMethod, String contentType, String body, NotificationPriority priority) throws HttpNotificationException {
+        return endpoint(url, httpMethod, contentType).withPriority(priority).send(body);
+    }
+
+    /**
+     * The following method will send an HTTP notification with the given priority without blocking the caller.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @param priority    The priority class of the notification.
+     * @return A future holding the result of the notification.
+     * @see #sendNotificationAsync(String, String, String, String)
+     */
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String url, String httpMethod, String contentType, String body, NotificationPriority priority) {
+        try {
+            return endpoint(url, httpMethod, contentType).withPriority(priority).sendAsync(body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * The following method will queue an HTTP notification for the dispatcher threads of this instance and return
+     * without waiting for it to be sent. The body is validated by the dispatcher, failures are logged.
+     *
+     * A full queue is handled according to the overflow policy. Enqueueing through an Endpoint allocates nothing,
+     * which makes it the preferred way on hot paths.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @return True if the notification was queued, False if it was dropped or spilled.
+     * @throws HttpNotificationException
+     * @see Endpoint#enqueue(String)
+     */
+    public Boolean enqueue(String url, String httpMethod, String contentType, String body) throws HttpNotificationException {
+        return endpoint(url, httpMethod, contentType).enqueue(body);
+    }
+
+    /**
+     * The following method stops the fire-and-forget queue. Enqueueing fails from then on, the dispatchers keep
+     * sending the queued notifications for at most drainTimeout milliseconds. Notifications still queued afterwards
+     * are spilled to the overflow handler if there is one, or else dropped.
+     *
+     * @param drainTimeout Time in milliseconds to wait for the queued notifications to be sent.
+     * @return True if every queued notification was sent, False if not.
+     */
+    public Boolean shutdown(Long drainTimeout) {
+        final NotificationRing current;
+
+        synchronized (this) {
+            queueShutdown = true;
+            current = ring;
+        }
+
+        return current == null || current.shutdown(drainTimeout != null && drainTimeout > 0L ? drainTimeout : 0L);
+    }
+
+    /**
+     * The following method will send an HTTP notification to the passed in url without blocking the caller.
+     * The request is executed on the non-blocking I/O reactor of this instance, so a slow receiver does not
+     * hold the calling thread.
+     *
+     * The returned future completes with the receiver's status once a response arrives. It completes
+     * exceptionally with an HttpNotificationException if the arguments are invalid, the server responds
+     * with an error status code, or the request could not be delivered.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @return A future holding the result of the notification.
+     */
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String url, String httpMethod, String contentType, String body) {
+        try {
+            return endpoint(url, httpMethod, contentType).sendAsync(body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * The following method will post an HTTP notification whose body is given as UTF-8 encoded bytes. The bytes are
+     * validated and sent as they are, without being decoded.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see #sendNotification(String, String, String, String)
+     */
+    public Boolean sendNotification(String url, String httpMethod, String contentType, byte[] body) throws HttpNotificationException {
+        return endpoint(url, httpMethod, contentType).send(body);
+    }
+
+    /**
+     * The following method will post an HTTP notification whose body is the remaining bytes of a buffer, heap or
+     * direct. The buffer's position is not modified.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see #sendNotification(String, String, String, String)
+     */
+    public Boolean sendNotification(String url, String httpMethod, String contentType, ByteBuffer body) throws HttpNotificationException {
+        return endpoint(url, httpMethod, contentType).send(body);
+    }
+
+    /**
+     * The following method will post an HTTP notification whose body is read from a stream. Text bodies, and any
+     * body in ValidationMode.NONE, are streamed with chunked transfer coding and cannot be retried. Json and xml
+     * bodies are read into memory first to be validated. The stream is closed once it has been read, an empty stream
+     * is rejected like an empty body.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see #sendNotification(String, String, String, String)
+     */
+    public Boolean sendNotification(String url, String httpMethod, String contentType, InputStream body) throws HttpNotificationException {
+        return endpoint(url, httpMethod, contentType).send(body);
+    }
+
+    /**
+     * The following method will post an HTTP notification whose body is a file. The file is validated and sent by
+     * streaming it from a FileChannel with chunked transfer coding, so it is never held on the heap.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The file holding the UTF-8 encoded notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see #sendNotification(String, String, String, String)
+     */
+    public Boolean sendNotification(String url, String httpMethod, String contentType, Path body) throws HttpNotificationException {
+        return endpoint(url, httpMethod, contentType).send(body);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #sendNotification(String, String, String, byte[])}.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     */
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String url, String httpMethod, String contentType, byte[] body) {
+        return sendNotificationAsync(url, httpMethod, contentType, body != null ? ByteBuffer.wrap(body) : null);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #sendNotification(String, String, String, ByteBuffer)}. The buffer must not
+     * be modified until the future completes.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     */
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String url, String httpMethod, String contentType, ByteBuffer body) {
+        try {
+            return endpoint(url, httpMethod, contentType).sendAsync(body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #sendNotification(String, String, String, InputStream)}. The stream is read
+     * into memory and closed on the calling thread, so that no I/O thread waits on it.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     */
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String url, String httpMethod, String contentType, InputStream body) {
+        try {
+            return endpoint(url, httpMethod, contentType).sendAsync(body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #sendNotification(String, String, String, Path)}.
+     *
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The file holding the UTF-8 encoded notification body.
+     * @return A future holding the result of the notification.
+     */
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String url, String httpMethod, String contentType, Path body) {
+        try {
+            return endpoint(url, httpMethod, contentType).sendAsync(body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * The following method will post an HTTP notification rendered from a precompiled template. The template was
+     * validated when compiled, so only the parameter values are escaped and copied into the body, which is not
+     * validated again.
+     *
+     * @param url        The designated endpoint accepting the notification.
+     * @param httpMethod The HTTP method to use.
+     * @param template   The template, whose content type is sent as the request header content type.
+     * @param values     The parameter values, in the order of {@link NotificationTemplate#getParameters()}.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     * @see NotificationTemplate#compile(String, String)
+     */
+    public Boolean sendNotification(String url, String httpMethod, NotificationTemplate template, Object... values) throws HttpNotificationException {
+        if (template == null) {
+            throw new HttpNotificationException("Error: Notification template is required.");
+        }
+
+        return endpoint(url, httpMethod, template.getContentType().getValue()).send(template, values);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #sendNotification(String, String, NotificationTemplate, Object...)}.
+     *
+     * @param url        The designated endpoint accepting the notification.
+     * @param httpMethod The HTTP method to use.
+     * @param template   The template, whose content type is sent as the request header content type.
+     * @param values     The parameter values, in the order of {@link NotificationTemplate#getParameters()}.
+     * @return A future holding the result of the notification.
+     */
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String url, String httpMethod, NotificationTemplate template, Object... values) {
+        try {
+            if (template == null) {
+                throw new HttpNotificationException("Error: Notification template is required.");
+            }
+
+            return endpoint(url, httpMethod, template.getContentType().getValue()).sendAsync(template, values);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * The following method will send a json notification as part of a batch. Json notifications to the same url and
+     * method are buffered for up to batchLinger milliseconds, or until batchMaxCount notifications or batchMaxSize
+     * characters are buffered, and then sent as one request whose body is the json array of the buffered bodies.
+     *
+     * The receiver must accept json arrays. Each notification is validated on its own, and every future of a batch
+     * completes with the result of the batch request.
+     *
+     * @param url        The designated endpoint accepting the notification.
+     * @param httpMethod The HTTP method to use.
+     * @param body       The json notification body.
+     * @return A future holding the result of the batch request carrying the notification.
+     */
+    public CompletableFuture<NotificationResult> sendNotificationBatched(String url, String httpMethod, String body) {
+        try {
+            return endpoint(url, httpMethod, CONTENT_JSON).sendBatched(body);
+        } catch (HttpNotificationException e) {
+            CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * The following method will send a batch of HTTP notifications in parallel, with at most bulkConcurrency
+     * notifications in flight at once. Bodies shared between notifications are validated once per batch.
+     *
+     * Unlike sendNotification, this method does not stop at the first failure: every notification is attempted
+     * and reported in its own DeliveryResult.
+     *
+     * @param requests The notifications to send.
+     * @return One result per notification, in the iteration order of requests.
+     */
+    public List<DeliveryResult> sendNotifications(Collection<NotificationRequest> requests) {
+        final Semaphore permits = new Semaphore(bulkConcurrency);
+        final Map<NotificationContentType, Map<String, Optional<HttpNotificationException>>> validatedBodies = new EnumMap<>(NotificationContentType.class);
+        final List<CompletableFuture<DeliveryResult>> deliveries = new ArrayList<>(requests.size());
+
+        for (NotificationRequest request : requests) {
+            deliveries.add(deliver(request, permits, validatedBodies));
+        }
+
+        final List<DeliveryResult> results = new ArrayList<>(deliveries.size());
+
+        for (CompletableFuture<DeliveryResult> delivery : deliveries) {
+            results.add(delivery.join());
+        }
+
+        return results;
+    }
+
+    /**
+     * The following method will send the same HTTP notification to every passed in url.
+     *
+     * @param urls        The designated endpoints accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @return One result per url, in the order of urls.
+     * @see #sendNotifications(Collection)
+     */
+    public List<DeliveryResult> broadcast(List<String> urls, String httpMethod, String contentType, String body) {
+        final List<NotificationRequest> requests = new ArrayList<>(urls.size());
+
+        for (String url : urls) {
+            requests.add(new NotificationRequest(url, httpMethod, contentType, body));
+        }
+
+        return sendNotifications(requests);
+    }
+
+    /**
+     * The following method returns the delivery metrics of this instance: request, response and byte counters,
+     * latency percentiles per endpoint and status class, connection pool usage and TLS handshakes.
+     *
+     * @return A point in time view of the metrics.
+     */
+    public MetricsSnapshot getMetrics() {
+        if (!(transport instanceof ApacheHttpTransport)) {
+            return new MetricsSnapshot(metrics.endpoints(), null);
+        }
+
+        final ApacheHttpTransport apacheTransport = (ApacheHttpTransport) transport;
+
+        return new MetricsSnapshot(metrics.endpoints(), apacheTransport.getHandshakeMetrics(), apacheTransport.getTotalStats(), apacheTransport.getAsyncTotalStats());
+    }
+
+    /**
+     * Releases the connection pools and I/O threads held by this instance.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        shutdown(connectionTimeout + socketTimeout);
+        batcher.flushAll();
+
+        if (mbeanName != null && ManagementFactory.getPlatformMBeanServer().isRegistered(mbeanName)) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            } catch (JMException e) {
+                LOGGER.log(Level.SEVERE, "Error: Failed to unregister Http notification metrics " + mbeanName + ".");
+            }
+        }
+
+        transport.close();
+    }
+
+    /**
+     * The following helper method validates the body of a notification against its content type.
+     *
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @throws HttpNotificationException
+     */
+    void validateBody(NotificationContentType contentType, String body) throws HttpNotificationException {
+        if (body == null || body.isEmpty()) {
+            throw new HttpNotificationException("Error: Notification body is required.");
+        }
+
+        if (!PayloadValidator.isValid(validationMode, contentType, body)) {
+            throw new HttpNotificationException(contentType == NotificationContentType.JSON ? "Error: Json is invalid." : "Error: Xml is invalid.");
+        }
+    }
+
+    /**
+     * @return The batcher buffering this instance's batched json notifications.
+     */
+    NotificationBatcher batcher() {
+        return batcher;
+    }
+
+    /**
+     * @return The fire-and-forget queue of this instance, started by the first notification enqueued.
+     * @throws HttpNotificationException
+     */
+    NotificationRing ring() throws HttpNotificationException {
+        final NotificationRing current = ring;
+
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (queueShutdown) {
+                throw new HttpNotificationException("Error: Notification queue is shut down.");
+            } else if (ring == null) {
+                ring = new NotificationRing(queueCapacity, queueDispatchers, overflowPolicy, overflowHandler);
+            }
+
+            return ring;
+        }
+    }
+
+    /**
+     * The following helper method validates a body in the form it was passed in, without converting it to a string.
+     *
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @throws HttpNotificationException
+     */
+    void validateBody(NotificationContentType contentType, NotificationBody body) throws HttpNotificationException {
+        try {
+            if (body.isEmpty()) {
+                throw new HttpNotificationException("Error: Notification body is required.");
+            }
+
+            if (!body.isValid(validationMode, contentType)) {
+                throw new HttpNotificationException(contentType == NotificationContentType.JSON ? "Error: Json is invalid." : "Error: Xml is invalid.");
+            }
+        } catch (IOException e) {
+            throw new HttpNotificationException("Error: Notification body could not be read.", e);
+        }
+    }
+
+    /**
+     * The following helper method wraps a body stream. Streams sent synchronously which need no validation are sent
+     * as they are read. Json and xml streams are read into memory first so that they can be validated, and so are
+     * streams sent asynchronously, so that the I/O threads never wait on a slow stream.
+     *
+     * @param contentType Request header content type.
+     * @param in          The notification body stream.
+     * @param async       Whether the body is sent asynchronously.
+     * @return The notification body.
+     * @throws HttpNotificationException
+     */
+    NotificationBody body(NotificationContentType contentType, InputStream in, boolean async) throws HttpNotificationException {
+        if (in == null || !async && (validationMode == ValidationMode.NONE || contentType == NotificationContentType.TEXT)) {
+            return NotificationBody.streaming(in);
+        }
+
+        try (InputStream stream = in) {
+            final BodyBuffer bytes = new BodyBuffer(Math.max(stream.available(), 32));
+            final byte[] buffer = new byte[ResponseDrain.BUFFER_SIZE];
+            int read;
+
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+
+            return NotificationBody.of(bytes.view());
+        } catch (IOException e) {
+            throw new HttpNotificationException("Error: Notification body could not be read.", e);
+        }
+    }
+
+    /**
+     * The following helper method delivers one notification of a bulk send once a concurrency permit is available.
+     * Body validation results are memoized per content type and body instance in validatedBodies.
+     *
+     * @param request         The notification to deliver.
+     * @param permits         Concurrency permits shared by the bulk send.
+     * @param validatedBodies Body validation results of the bulk send so far.
+     * @return A future holding the result of the delivery, it never completes exceptionally.
+     */
+    private CompletableFuture<DeliveryResult> deliver(NotificationRequest request, Semaphore permits, Map<NotificationContentType, Map<String, Optional<HttpNotificationException>>> validatedBodies) {
+        final Endpoint endpoint;
+
+        try {
+            endpoint = endpoint(request.getUrl(), request.getHttpMethod(), request.getContentType()).withPriority(request.getPriority());
+
+            Map<String, Optional<HttpNotificationException>> bodies = validatedBodies.computeIfAbsent(endpoint.getContentType(), contentType -> new IdentityHashMap<>());
+            Optional<HttpNotificationException> bodyError = bodies.get(request.getBody());
+
+            if (bodyError == null) {
+                try {
+                    validateBody(endpoint.getContentType(), request.getBody());
+                    bodyError = Optional.empty();
+                } catch (HttpNotificationException e) {
+                    bodyError = Optional.of(e);
+                }
+                bodies.put(request.getBody(), bodyError);
+            }
+
+            if (bodyError.isPresent()) {
+                throw bodyError.get();
+            }
+
+            permits.acquire();
+        } catch (HttpNotificationException e) {
+            return CompletableFuture.completedFuture(new DeliveryResult(request, null, 0L, e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return CompletableFuture.completedFuture(new DeliveryResult(request, null, 0L, new HttpNotificationException("Error: Bulk notification was interrupted.", e)));
+        }
+
+        final NotificationBody body = NotificationBody.of(request.getBody());
+
+        if (isDuplicate(endpoint, body)) {
+            permits.release();
+            return CompletableFuture.completedFuture(new DeliveryResult(request, NotificationResult.DEDUPLICATED, 0L, null));
+        }
+
+        final long start = System.nanoTime();
+
+        return forgetOnFailure(body, dispatchAsync(endpoint, body))
+                .handle((result, error) -> {
+                    permits.release();
+
+                    long latency = System.nanoTime() - start;
+
+                    if (error == null) {
+                        return new DeliveryResult(request, result, latency, null);
+                    } else if (error instanceof HttpNotificationException) {
+                        return new DeliveryResult(request, null, latency, (HttpNotificationException) error);
+                    }
+
+                    return new DeliveryResult(request, null, latency, new HttpNotificationException("Error: Failed to " + request.getHttpMethod() + " Http Notification.", error));
+                });
+    }
+
+    /**
+     * The following helper method will send an already validated notification without blocking the caller. Failed
+     * attempts are retried according to the retry policy, each retry being scheduled on the retry timer wheel.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The validated notification body.
+     * @return A future holding the result of the notification.
+     */
+    CompletableFuture<NotificationResult> dispatchAsync(Endpoint endpoint, NotificationBody body) {
+        final CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+
+        dispatchAsync(endpoint, body, 1, circuitBreaker(endpoint), future, false, false);
+
+        return future;
+    }
+
+    /**
+     * The following helper method sends a notification asynchronously on behalf of a caller. When the
+     * endpoint's rate limit uses the BLOCK policy, the caller waits here for the permit of the first attempt, which
+     * slows down callers sending faster than the receiver accepts.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The validated notification body.
+     * @return A future holding the result of the notification.
+     */
+    CompletableFuture<NotificationResult> submitAsync(Endpoint endpoint, NotificationBody body) {
+        final RateLimiter limiter = endpoint.getRateLimiter();
+
+        if (limiter == null || limiter.getPolicy() != RateLimitPolicy.BLOCK) {
+            return dispatchUniqueAsync(endpoint, body);
+        } else if (isDuplicate(endpoint, body)) {
+            return CompletableFuture.completedFuture(NotificationResult.DEDUPLICATED);
+        }
+
+        final CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+
+        try {
+            awaitPermit(endpoint, limiter);
+        } catch (HttpNotificationException e) {
+            forget(body);
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        dispatchAsync(endpoint, body, 1, circuitBreaker(endpoint), future, true, false);
+
+        return forgetOnFailure(body, future);
+    }
+
+    /**
+     * The following helper method sends a notification asynchronously unless it is a duplicate, without ever blocking
+     * the calling thread: with the BLOCK policy, the first attempt waits for its rate limit permit in the limiter's
+     * queue. Used where the caller is a timer or I/O thread.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The validated notification body.
+     * @return A future holding the result of the notification.
+     */
+    CompletableFuture<NotificationResult> dispatchUniqueAsync(Endpoint endpoint, NotificationBody body) {
+        if (isDuplicate(endpoint, body)) {
+            return CompletableFuture.completedFuture(NotificationResult.DEDUPLICATED);
+        }
+
+        return forgetOnFailure(body, dispatchAsync(endpoint, body));
+    }
+
+    /**
+     * The following helper method makes one asynchronous attempt at sending a notification and completes the future,
+     * or schedules the next attempt.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The validated notification body.
+     * @param attempt  Number of this attempt, starting at 1.
+     * @param breaker   The circuit breaker of the endpoint's host, null if circuit breakers are disabled.
+     * @param future    The future of the notification.
+     * @param permitted Whether the rate limit permit of this attempt was already granted.
+     * @param admitted  Whether this attempt was already admitted by the priority lanes.
+     */
+    private void dispatchAsync(Endpoint endpoint, NotificationBody body, int attempt, CircuitBreaker breaker, CompletableFuture<NotificationResult> future, boolean permitted, boolean admitted) {
+        final RateLimiter limiter = endpoint.getRateLimiter();
+        final PriorityLanes lanes = endpoint.getLanes();
+
+        if (lanes != null && !admitted) {
+            // Admitted before the rate limit, so that the rate limiter's queue is not filled with low priority traffic.
+            lanes.acquire(endpoint.getPriority()).thenRun(() -> {
+                if (future.isDone()) {
+                    lanes.release(endpoint.getPriority());
+                } else {
+                    dispatchAsync(endpoint, body, attempt, breaker, future, permitted, true);
+                }
+            });
+            return;
+        }
+
+        if (limiter != null && !permitted) {
+            limiter.acquire().whenComplete((granted, ex) -> {
+                if (ex != null) {
+                    release(endpoint);
+                    endpoint.getMetrics().rejected.increment();
+                    future.completeExceptionally(ex);
+                } else if (future.isDone()) {
+                    limiter.release();
+                    release(endpoint);
+                } else {
+                    dispatchAsync(endpoint, body, attempt, breaker, future, true, true);
+                }
+            });
+            return;
+        }
+
+        if (breaker != null && !breaker.tryAcquire()) {
+            release(limiter);
+            release(endpoint);
+            endpoint.getMetrics().rejected.increment();
+            future.completeExceptionally(circuitOpenException(endpoint));
+            return;
+        }
+
+        final TransportRequest request = newRequest(endpoint, body, true);
+        final DeliveryMetrics.EndpointMetrics endpointMetrics = endpoint.getMetrics();
+        final long start = System.nanoTime();
+
+        endpointMetrics.started(request.getEntity().getContentLength());
+
+        transport.executeAsync(request).whenComplete((response, ex) -> {
+            release(limiter);
+            release(endpoint);
+
+            if (response != null) {
+                endpointMetrics.completed(response.getStatusCode(), System.nanoTime() - start);
+                recordOutcome(breaker, response.getStatusCode());
+
+                if (response.getStatusCode() < 300) {
+                    future.complete(new NotificationResult(response.getStatusCode(), response.getStatusText()));
+                } else if (!retryAsync(endpoint, body, attempt, breaker, future, response.getStatusCode(), response.getRetryAfter())) {
+                    try {
+                        throwStatusCodeException(response.getStatusCode(), response.getStatusText(), response.getBody(), response.getRetryAfter());
+                        future.complete(new NotificationResult(response.getStatusCode(), response.getStatusText()));
+                    } catch (HttpNotificationException e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+                return;
+            }
+
+            final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+            endpointMetrics.completed(null, System.nanoTime() - start);
+            recordOutcome(breaker, null);
+
+            if (cause instanceof CancellationException) {
+                future.cancel(false);
+            } else if (cause instanceof HttpNotificationException) {
+                // The transport is closed, there is no point in retrying.
+                future.completeExceptionally(cause);
+            } else {
+                String message = "Error: Failed to " + endpoint.getMethod().getValue() + " Http Notification.";
+                LOGGER.log(Level.SEVERE, message);
+
+                if (!retryAsync(endpoint, body, attempt, breaker, future, null, null)) {
+                    future.completeExceptionally(new HttpNotificationException(message, cause));
+                }
+            }
+        });
+    }
+
+    /**
+     * The following helper method schedules the next asynchronous attempt if the retry policy allows one.
+     *
+     * @return True if a retry was scheduled, False if the notification has failed for good.
+     */
+    private boolean retryAsync(Endpoint endpoint, NotificationBody body, int attempt, CircuitBreaker breaker, CompletableFuture<NotificationResult> future, Integer statusCode, Long retryAfter) {
+        if (future.isDone() || !body.isRepeatable() || !retryPolicy.shouldRetry(attempt, statusCode, retryAfter)) {
+            return false;
+        }
+
+        endpoint.getMetrics().retries.increment();
+        TIMER_WHEEL.schedule(retryPolicy.delay(attempt, retryAfter), () -> dispatchAsync(endpoint, body, attempt + 1, breaker, future, false, false));
 
         return true;
     }
+
+    /**
+     * The following helper method will send an already validated notification through this instance's transport.
+     * Failed attempts are retried according to the retry policy, the caller waiting on the retry timer wheel
+     * between attempts.
+     *
+     * A repeat of a notification sent within the deduplication window is not sent again and counts as successful.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The validated notification body.
+     * @return True if successful, False if not.
+     * @throws HttpNotificationException
+     */
+    Boolean execute(Endpoint endpoint, NotificationBody body) throws HttpNotificationException {
+        if (isDuplicate(endpoint, body)) {
+            return true;
+        }
+
+        boolean sent = false;
+
+        try {
+            sent = executeAttempts(endpoint, body);
+
+            return sent;
+        } finally {
+            if (!sent) {
+                forget(body);
+            }
+        }
+    }
+
+    private boolean executeAttempts(Endpoint endpoint, NotificationBody body) throws HttpNotificationException {
+        final CircuitBreaker breaker = circuitBreaker(endpoint);
+        final RateLimiter limiter = endpoint.getRateLimiter();
+
+        for (int attempt = 1; ; attempt++) {
+            if (endpoint.getLanes() != null) {
+                awaitAdmission(endpoint);
+            }
+
+            if (limiter != null) {
+                try {
+                    awaitPermit(endpoint, limiter);
+                } catch (HttpNotificationException e) {
+                    release(endpoint);
+                    throw e;
+                }
+            }
+
+            if (breaker != null && !breaker.tryAcquire()) {
+                release(limiter);
+                release(endpoint);
+                endpoint.getMetrics().rejected.increment();
+                throw circuitOpenException(endpoint);
+            }
+
+            TransportResponse response;
+            try {
+                response = executeOnce(endpoint, body);
+            } finally {
+                release(limiter);
+                release(endpoint);
+            }
+            Integer statusCode = response != null ? response.getStatusCode() : null;
+            Long retryAfter = response != null ? response.getRetryAfter() : null;
+
+            recordOutcome(breaker, statusCode);
+
+            if (statusCode != null && statusCode < 300) {
+                return true;
+            }
+
+            if (!body.isRepeatable() || !retryPolicy.shouldRetry(attempt, statusCode, retryAfter)) {
+                if (response == null) {
+                    return false;
+                }
+
+                throwStatusCodeException(response.getStatusCode(), response.getStatusText(), response.getBody(), retryAfter);
+
+                return true;
+            }
+
+            endpoint.getMetrics().retries.increment();
+
+            try {
+                TIMER_WHEEL.delay(retryPolicy.delay(attempt, retryAfter)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new HttpNotificationException("Error: Http notification retry was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new HttpNotificationException("Error: Http notification retry could not be scheduled.", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The following helper method checks a notification against the deduplication window. A notification which is
+     * not a repeat is recorded, and the hash it is recorded under is attached to its body for the Idempotency-Key
+     * header. Only bodies held in memory are deduplicated.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The validated notification body.
+     * @return True if the same notification was sent to the endpoint within the window, False if not.
+     */
+    private boolean isDuplicate(Endpoint endpoint, NotificationBody body) {
+        if (deduplicator == null) {
+            return false;
+        }
+
+        final ContentHash hash = ContentHash.of(endpoint);
+
+        if (!body.hash(hash)) {
+            return false;
+        } else if (!deduplicator.record(hash)) {
+            endpoint.getMetrics().deduplicated.increment();
+            return true;
+        }
+
+        body.setContentHash(hash);
+
+        return false;
+    }
+
+    /**
+     * Forgets a notification which failed, so that sending it again within the deduplication window is not
+     * suppressed.
+     *
+     * @param body The notification body.
+     */
+    private void forget(NotificationBody body) {
+        if (body.getContentHash() != null) {
+            deduplicator.forget(body.getContentHash());
+        }
+    }
+
+    private CompletableFuture<NotificationResult> forgetOnFailure(NotificationBody body, CompletableFuture<NotificationResult> future) {
+        if (body.getContentHash() != null) {
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    forget(body);
+                }
+            });
+        }
+
+        return future;
+    }
+
+    /**
+     * The following helper method makes one attempt at sending a notification through this instance's transport.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The validated notification body.
+     * @return The receiver's response, or null if the notification could not be delivered.
+     */
+    private TransportResponse executeOnce(Endpoint endpoint, NotificationBody body) {
+        final TransportRequest request = newRequest(endpoint, body, false);
+        final DeliveryMetrics.EndpointMetrics endpointMetrics = endpoint.getMetrics();
+        final long start = System.nanoTime();
+        Integer statusCode = null;
+
+        endpointMetrics.started(request.getEntity().getContentLength());
+
+        try {
+            TransportResponse response = transport.execute(request);
+            statusCode = response.getStatusCode();
+
+            return response;
+        } catch (IOException e) {
+            // A response which could not be read to its end counts as a transport error.
+            LOGGER.log(Level.SEVERE, "Error: Failed to " + endpoint.getMethod().getValue() + " Http Notification.");
+
+            return null;
+        } finally {
+            endpointMetrics.completed(statusCode, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param endpoint The endpoint about to be notified.
+     * @return The circuit breaker of the endpoint's host, or null if circuit breakers are disabled.
+     */
+    private CircuitBreaker circuitBreaker(Endpoint endpoint) {
+        if (circuitBreakerThreshold <= 0) {
+            return null;
+        }
+
+        return circuitBreakers.computeIfAbsent(endpoint.getUri().getAuthority(), host -> new CircuitBreaker(circuitBreakerThreshold, circuitBreakerOpenDuration));
+    }
+
+    /**
+     * Reports the outcome of an attempt to the circuit breaker. Transport errors, server errors and 429 count as
+     * failures of the host, any other response shows the host is up.
+     *
+     * @param breaker    The circuit breaker of the host, may be null.
+     * @param statusCode The status code of the response, or null if the notification could not be delivered.
+     */
+    private static void recordOutcome(CircuitBreaker breaker, Integer statusCode) {
+        if (breaker == null) {
+            return;
+        }
+
+        if (statusCode == null || statusCode >= 500 || statusCode == 429) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    /**
+     * @param uri The endpoint about to be created.
+     * @return The priority lanes of the uri's receiver, null if priority lanes are disabled. Each host and port
+     * gets lanes as wide as its share of the connection pool.
+     */
+    private PriorityLanes lanes(URI uri) {
+        if (!priorityLanes) {
+            return null;
+        }
+
+        final String authority = uri.getRawAuthority() != null ? uri.getRawAuthority().toLowerCase(Locale.ROOT) : "";
+
+        return lanes.computeIfAbsent(authority, route -> {
+            final NotificationPriority[] priorities = NotificationPriority.values();
+            final int[] reserved = new int[priorities.length];
+            final int[] weights = new int[priorities.length];
+
+            for (NotificationPriority priority : priorities) {
+                reserved[priority.ordinal()] = getReservedCapacity(priority);
+                weights[priority.ordinal()] = getPriorityWeight(priority);
+            }
+
+            return new PriorityLanes(maxConnectionsPerRoute, reserved, weights, starvationThreshold);
+        });
+    }
+
+    /**
+     * @param uri The endpoint about to be created.
+     * @return The rate limiter of the endpoint's url or host, or null if the endpoint is not rate limited.
+     */
+    private RateLimiter rateLimiter(URI uri) {
+        final String authority = uri.getRawAuthority() != null ? uri.getRawAuthority().toLowerCase(Locale.ROOT) : null;
+        final String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+
+        // The most specific limit wins: the endpoint's url, then its host and port, then its host.
+        for (String key : new String[]{rateLimitKey(uri), authority, host}) {
+            RateLimit limit = key != null ? rateLimits.get(key) : null;
+
+            if (limit != null) {
+                return rateLimiters.computeIfAbsent(key, target -> new RateLimiter(target, limit, TIMER_WHEEL));
+            }
+        }
+
+        if (rateLimit == null || authority == null) {
+            return null;
+        }
+
+        return rateLimiters.computeIfAbsent(authority, target -> new RateLimiter(target, rateLimit, TIMER_WHEEL));
+    }
+
+    /**
+     * @return The url of the endpoint without its query, with the scheme and authority in lower case.
+     */
+    private static String rateLimitKey(URI uri) {
+        return (uri.getScheme() + "://" + uri.getRawAuthority()).toLowerCase(Locale.ROOT) + (uri.getRawPath() != null ? uri.getRawPath() : "");
+    }
+
+    /**
+     * The following helper method waits for a rate limit permit on the calling thread.
+     *
+     * @param endpoint The endpoint about to be notified.
+     * @param limiter  The endpoint's rate limiter.
+     * @throws HttpNotificationException
+     */
+    private static void awaitPermit(Endpoint endpoint, RateLimiter limiter) throws HttpNotificationException {
+        final CompletableFuture<Void> permit = limiter.acquire();
+
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            limiter.abandon(permit);
+            Thread.currentThread().interrupt();
+
+            throw new HttpNotificationException("Error: Http notification was interrupted waiting for the rate limit.", e);
+        } catch (ExecutionException e) {
+            endpoint.getMetrics().rejected.increment();
+
+            throw (HttpNotificationException) e.getCause();
+        }
+    }
+
+    private static void release(RateLimiter limiter) {
+        if (limiter != null) {
+            limiter.release();
+        }
+    }
+
+    /**
+     * The following helper method waits on the calling thread until the priority lanes admit a notification.
+     *
+     * @param endpoint The endpoint about to be notified, carrying the notification's priority.
+     * @throws HttpNotificationException
+     */
+    private static void awaitAdmission(Endpoint endpoint) throws HttpNotificationException {
+        final CompletableFuture<Void> admission = endpoint.getLanes().acquire(endpoint.getPriority());
+
+        try {
+            admission.get();
+        } catch (InterruptedException e) {
+            endpoint.getLanes().abandon(endpoint.getPriority(), admission);
+            Thread.currentThread().interrupt();
+
+            throw new HttpNotificationException("Error: Http notification was interrupted waiting for a connection.", e);
+        } catch (ExecutionException e) {
+            throw new HttpNotificationException("Error: Http notification was not admitted.", e.getCause());
+        }
+    }
+
+    /**
+     * Releases the priority lane connection held by an admitted notification, if priority lanes are enabled.
+     */
+    private static void release(Endpoint endpoint) {
+        if (endpoint.getLanes() != null) {
+            endpoint.getLanes().release(endpoint.getPriority());
+        }
+    }
+
+    private static HttpNotificationException circuitOpenException(Endpoint endpoint) {
+        return new HttpNotificationException("Error: Circuit breaker is open for " + endpoint.getUri().getAuthority() + ".");
+    }
+
+    /**
+     * @return Number of response body bytes to keep, according to the response mode.
+     */
+    private int captureLimit() {
+        return responseMode == ResponseMode.BUFFER ? Integer.MAX_VALUE : responseCaptureLimit;
+    }
+
+    /**
+     * The following helper method builds the request carrying a notification to an endpoint. Bodies of at least
+     * compressionThreshold bytes are compressed if the endpoint's receiver opted in.
+     *
+     * @param endpoint The validated endpoint accepting the notification.
+     * @param body     The notification body.
+     * @param async    Whether the request is sent without blocking the caller.
+     * @return The populated request.
+     */
+    private TransportRequest newRequest(Endpoint endpoint, NotificationBody body, boolean async) {
+        return new TransportRequest(endpoint.getUri(), endpoint.getMethod(), endpoint.getContentType(),
+                body.entity(endpoint.getCompression(), compressionThreshold, async),
+                connectionTimeout, socketTimeout, captureLimit(), responseMode == ResponseMode.BUFFER,
+                body.getContentHash() != null ? body.getContentHash().toKey() : null);
+    }
+
+    /**
+     * Registers the JMX view of this instance's metrics with the platform MBean server.
+     *
+     * @param name Value of the name key of the MBean's object name.
+     * @return The object name of the registered MBean, or null if it could not be registered.
+     */
+    private ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.http.utility:type=HttpNotification,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(new MetricsMXBean(), HttpNotificationMXBean.class, true), objectName);
+
+            return objectName;
+        } catch (JMException e) {
+            LOGGER.log(Level.SEVERE, "Error: Failed to register Http notification metrics " + name + ".");
+
+            return null;
+        }
+    }
+
+    /**
+     * This helper method will derive and throw a new HttpNotificationException based on the Http status code.
+     *
+     * @param code         The Http status code returned by the client.
+     * @param codeText     The Http status text returned by the client.
+     * @param responseBody The captured response body, may be null.
+     * @param retryAfter   The delay in milliseconds asked for by the receiver, may be null.
+     * @throws HttpNotificationException
+     */
+    private void throwStatusCodeException(Integer code, String codeText, String responseBody, Long retryAfter) throws HttpNotificationException {
+        if (code >= 300 && code < 400) {
+            throw new HttpNotificationException("Error: Server responded with redirection. Code: " + code + ", Text: " + codeText, code, responseBody, retryAfter);
+        } else if (code >= 400 && code < 500) {
+            throw new HttpNotificationException("Error: Server responded with client side error. Code: " + code + ", Text: " + codeText, code, responseBody, retryAfter);
+        } else if (code >= 500 && code < 600) {
+            throw new HttpNotificationException("Error: Server responded with server error. Code: " + code + ", Text: " + codeText, code, responseBody, retryAfter);
+        }
+    }
+
+    /**
+     * Simple helper method which determines if the given json (string) is valid.
+     *
+     * @param jsonString The json object as a string.
+     * @return True if valid, False if invalid.
+     */
+    public static boolean isValidJson(String jsonString) {
+        return PayloadValidator.isWellFormedJson(new StringReader(jsonString));
+    }
+
+    /**
+     * Simple helper method which determines if the given xml (string) is valid.
+     *
+     * @param xmlString The xml object as a string.
+     * @return True if valid, False if invalid.
+     */
+    public static boolean isValidXml(String xmlString) {
+        return PayloadValidator.isWellFormedXml(new StringReader(xmlString));
+    }
+
+    /**
+     * JMX view of this instance's metrics, each attribute read takes a fresh snapshot.
+     */
+    /**
+     * A stream body read into memory, viewed in place rather than copied once more.
+     */
+    private static class BodyBuffer extends ByteArrayOutputStream {
+
+        BodyBuffer(int size) {
+            super(size);
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    private class MetricsMXBean implements HttpNotificationMXBean {
+
+        @Override
+        public long getRequests() {
+            return getMetrics().getRequests();
+        }
+
+        @Override
+        public long getSucceeded() {
+            return getMetrics().getSucceeded();
+        }
+
+        @Override
+        public long getFailed() {
+            return getMetrics().getFailed();
+        }
+
+        @Override
+        public long getInFlight() {
+            return getMetrics().getInFlight();
+        }
+
+        @Override
+        public long getBytesSent() {
+            return getMetrics().getBytesSent();
+        }
+
+        @Override
+        public int getLeasedConnections() {
+            return getMetrics().getLeasedConnections();
+        }
+
+        @Override
+        public int getAvailableConnections() {
+            return getMetrics().getAvailableConnections();
+        }
+
+        @Override
+        public int getPendingConnections() {
+            return getMetrics().getPendingConnections();
+        }
+
+        @Override
+        public long getTlsHandshakes() {
+            return getMetrics().getTlsHandshakes();
+        }
+
+        @Override
+        public long getTlsResumptions() {
+            return getMetrics().getTlsResumptions();
+        }
+
+        @Override
+        public long getHandshakeTimeSaved() {
+            return getMetrics().getHandshakeTimeSaved();
+        }
+
+        @Override
+        public Map<String, Long> getRequestsByEndpoint() {
+            final Map<String, Long> requests = new TreeMap<>();
+
+            for (Map.Entry<String, MetricsSnapshot.EndpointStats> entry : getMetrics().getEndpoints().entrySet()) {
+                requests.put(entry.getKey(), entry.getValue().getRequests());
+            }
+
+            return requests;
+        }
+
+        @Override
+        public Map<String, Double> getP50LatencyByEndpoint() {
+            return latencyByEndpoint(50.0);
+        }
+
+        @Override
+        public Map<String, Double> getP99LatencyByEndpoint() {
+            return latencyByEndpoint(99.0);
+        }
+
+        @Override
+        public Map<String, Double> getP999LatencyByEndpoint() {
+            return latencyByEndpoint(99.9);
+        }
+
+        private Map<String, Double> latencyByEndpoint(double percentile) {
+            final Map<String, Double> latencies = new TreeMap<>();
+
+            for (Map.Entry<String, MetricsSnapshot.EndpointStats> entry : getMetrics().getEndpoints().entrySet()) {
+                latencies.put(entry.getKey(), entry.getValue().getLatency().getPercentile(percentile) / 1000000.0);
+            }
+
+            return latencies;
+        }
+    }
+
+    /**
+     * Builder for HttpNotification instances. Settings which are left unset, or set to a non positive value,
+     * fall back to the plugin defaults.
+     */
+    public static class Builder {
+
+        private Long connectionTimeout;
+        private Long socketTimeout;
+        private Integer maxConnectionsTotal;
+        private Integer maxConnectionsPerRoute;
+        private Long keepAliveTtl;
+        private Long idleEviction;
+        private Integer bulkConcurrency;
+        private ValidationMode validationMode;
+        private ResponseMode responseMode;
+        private Integer responseCaptureLimit;
+        private Long dnsCacheTtl;
+        private RetryPolicy retryPolicy;
+        private Integer circuitBreakerThreshold;
+        private Long circuitBreakerOpenDuration;
+        private Long batchLinger;
+        private Integer batchMaxCount;
+        private Integer batchMaxSize;
+        private Integer compressionThreshold;
+        private final Map<String, RequestCompression> compressions = new HashMap<>();
+        private RateLimit rateLimit;
+        private final Map<String, RateLimit> rateLimits = new HashMap<>();
+        private Long deduplicationWindow;
+        private Integer deduplicationMaxEntries;
+        private Integer queueCapacity;
+        private Integer queueDispatchers;
+        private OverflowPolicy overflowPolicy;
+        private BiConsumer<Endpoint, String> overflowHandler;
+        private Boolean priorityLanes;
+        private final Map<NotificationPriority, Integer> reservedCapacities = new EnumMap<>(NotificationPriority.class);
+        private final Map<NotificationPriority, Integer> priorityWeights = new EnumMap<>(NotificationPriority.class);
+        private Long starvationThreshold;
+        private Integer warmUpConnections;
+        private Long keepWarmInterval;
+        private Integer tlsSessionCacheSize;
+        private SSLContext sslContext;
+        private String jmxName;
+        private NotificationTransport transport;
+
+        private Builder() {
+        }
+
+        /**
+         * @param connectionTimeout Connection timeout in milliseconds.
+         * @return This builder.
+         */
+        public Builder connectionTimeout(Long connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+            return this;
+        }
+
+        /**
+         * @param socketTimeout Socket timeout in milliseconds.
+         * @return This builder.
+         */
+        public Builder socketTimeout(Long socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsTotal Maximum number of pooled connections across all receivers.
+         * @return This builder.
+         */
+        public Builder maxConnectionsTotal(Integer maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerRoute Maximum number of pooled connections to a single receiver.
+         * @return This builder.
+         */
+        public Builder maxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * @param keepAliveTtl Maximum time in milliseconds an idle connection is kept alive for reuse.
+         * @return This builder.
+         */
+        public Builder keepAliveTtl(Long keepAliveTtl) {
+            this.keepAliveTtl = keepAliveTtl;
+            return this;
+        }
+
+        /**
+         * @param idleEviction Interval in milliseconds after which idle connections are evicted from the pools.
+         * @return This builder.
+         */
+        public Builder idleEviction(Long idleEviction) {
+            this.idleEviction = idleEviction;
+            return this;
+        }
+
+        /**
+         * @param bulkConcurrency Maximum number of notifications in flight during a bulk send.
+         * @return This builder.
+         */
+        public Builder bulkConcurrency(Integer bulkConcurrency) {
+            this.bulkConcurrency = bulkConcurrency;
+            return this;
+        }
+
+        /**
+         * @param validationMode How much validation is applied to notifications before they are sent.
+         * @return This builder.
+         */
+        public Builder validationMode(ValidationMode validationMode) {
+            this.validationMode = validationMode;
+            return this;
+        }
+
+        /**
+         * @param responseMode How the body of a receiver's response is handled.
+         * @return This builder.
+         */
+        public Builder responseMode(ResponseMode responseMode) {
+            this.responseMode = responseMode;
+            return this;
+        }
+
+        /**
+         * @param responseCaptureLimit Maximum number of response body bytes kept for error diagnostics, 0 to keep none.
+         * @return This builder.
+         */
+        public Builder responseCaptureLimit(Integer responseCaptureLimit) {
+            this.responseCaptureLimit = responseCaptureLimit;
+            return this;
+        }
+
+        /**
+         * @param dnsCacheTtl Time in milliseconds resolved receiver addresses are cached for, 0 to disable caching.
+         * @return This builder.
+         */
+        public Builder dnsCacheTtl(Long dnsCacheTtl) {
+            this.dnsCacheTtl = dnsCacheTtl;
+            return this;
+        }
+
+        /**
+         * @param retryPolicy Policy deciding which failed notifications are attempted again, RetryPolicy.NONE by default.
+         * @return This builder.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * @param circuitBreakerThreshold Consecutive failures after which notifications to a host fail fast, 0 to disable.
+         * @return This builder.
+         */
+        public Builder circuitBreakerThreshold(Integer circuitBreakerThreshold) {
+            this.circuitBreakerThreshold = circuitBreakerThreshold;
+            return this;
+        }
+
+        /**
+         * @param circuitBreakerOpenDuration Time in milliseconds notifications to a failing host fail fast before it is probed again.
+         * @return This builder.
+         */
+        public Builder circuitBreakerOpenDuration(Long circuitBreakerOpenDuration) {
+            this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+            return this;
+        }
+
+        /**
+         * @param batchLinger Time in milliseconds a batched notification waits for others to the same endpoint.
+         * @return This builder.
+         */
+        public Builder batchLinger(Long batchLinger) {
+            this.batchLinger = batchLinger;
+            return this;
+        }
+
+        /**
+         * @param batchMaxCount Maximum number of notifications sent in one batch.
+         * @return This builder.
+         */
+        public Builder batchMaxCount(Integer batchMaxCount) {
+            this.batchMaxCount = batchMaxCount;
+            return this;
+        }
+
+        /**
+         * @param batchMaxSize Size in characters of the batched bodies at which a batch is sent without waiting.
+         * @return This builder.
+         */
+        public Builder batchMaxSize(Integer batchMaxSize) {
+            this.batchMaxSize = batchMaxSize;
+            return this;
+        }
+
+        /**
+         * @param compressionThreshold Body size in bytes from which request bodies are compressed.
+         * @return This builder.
+         */
+        public Builder compressionThreshold(Integer compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        /**
+         * Opts a receiver in to compressed request bodies. Only receivers known to accept the Content-Encoding
+         * should be added, notifications to other hosts are sent uncompressed.
+         *
+         * @param host        The receiver's host name.
+         * @param compression The compression the receiver accepts, NONE to opt out again.
+         * @return This builder.
+         */
+        public Builder compression(String host, RequestCompression compression) {
+            this.compressions.put(host.toLowerCase(Locale.ROOT), compression != null ? compression : RequestCompression.NONE);
+            return this;
+        }
+
+        /**
+         * Limits every host which has no limit of its own. Each host is counted separately, so a slow receiver does
+         * not hold back notifications to healthy ones.
+         *
+         * @param rateLimit The limit applied to each host, none by default.
+         * @return This builder.
+         */
+        public Builder rateLimit(RateLimit rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * Limits the notifications sent to one receiver. The target is either a url, limiting the endpoints with that
+         * scheme, authority and path, or a host name, optionally with a port, limiting all its endpoints together.
+         *
+         * @param target    The receiver's url or host name.
+         * @param rateLimit The limit applied to the receiver, null to remove it again.
+         * @return This builder.
+         */
+        public Builder rateLimit(String target, RateLimit rateLimit) {
+            final String key = target.contains("://") ? rateLimitKey(URI.create(target)) : target.toLowerCase(Locale.ROOT);
+
+            if (rateLimit != null) {
+                this.rateLimits.put(key, rateLimit);
+            } else {
+                this.rateLimits.remove(key);
+            }
+            return this;
+        }
+
+        /**
+         * Suppresses repeats of a notification: a body sent to the same url with the same method within the window
+         * is not sent again, the send reporting as deduplicated instead. Sent notifications carry an Idempotency-Key
+         * header derived from the hash of their target and body. Notifications which fail are forgotten, so sending
+         * them again is not suppressed. File and stream bodies, and batched notifications, are not deduplicated.
+         *
+         * @param deduplicationWindow Time in milliseconds during which repeats are suppressed, 0 (disabled) by default.
+         * @return This builder.
+         */
+        public Builder deduplicationWindow(Long deduplicationWindow) {
+            this.deduplicationWindow = deduplicationWindow;
+            return this;
+        }
+
+        /**
+         * @param deduplicationMaxEntries Number of sent notifications remembered at most for deduplication.
+         * @return This builder.
+         */
+        public Builder deduplicationMaxEntries(Integer deduplicationMaxEntries) {
+            this.deduplicationMaxEntries = deduplicationMaxEntries;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity Number of notifications the fire-and-forget queue holds at most, rounded up to a
+         *                      power of two. The slots are allocated when the first notification is enqueued.
+         * @return This builder.
+         */
+        public Builder queueCapacity(Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param queueDispatchers Number of threads sending the notifications of the fire-and-forget queue.
+         * @return This builder.
+         */
+        public Builder queueDispatchers(Integer queueDispatchers) {
+            this.queueDispatchers = queueDispatchers;
+            return this;
+        }
+
+        /**
+         * @param overflowPolicy What happens to a notification enqueued while the fire-and-forget queue is full,
+         *                       BLOCK by default.
+         * @return This builder.
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Receives the notifications which did not fit the fire-and-forget queue under the SPILL policy, on the
+         * enqueueing thread, and the ones still queued when the queue is shut down.
+         *
+         * @param overflowHandler Consumer of the endpoint and body of each spilled notification.
+         * @return This builder.
+         */
+        public Builder overflowHandler(BiConsumer<Endpoint, String> overflowHandler) {
+            this.overflowHandler = overflowHandler;
+            return this;
+        }
+
+        /**
+         * Admits the notifications to each receiver by priority class. At most maxConnectionsPerRoute notifications
+         * to a receiver are in flight, the others wait in the queue of their class, so that a critical alert never
+         * waits behind bulk traffic inside the connection pool. Without lanes, priorities are ignored.
+         *
+         * @param priorityLanes True to enable the priority lanes, False (disabled) by default.
+         * @return This builder.
+         */
+        public Builder priorityLanes(Boolean priorityLanes) {
+            this.priorityLanes = priorityLanes;
+            return this;
+        }
+
+        /**
+         * Reserves connections per receiver for a priority class, which other classes may not use. Reservations are
+         * granted in priority order and always leave one connection shared.
+         *
+         * @param priority         The priority class.
+         * @param reservedCapacity Number of reserved connections, see NotificationPriority for the defaults.
+         * @return This builder.
+         */
+        public Builder reservedCapacity(NotificationPriority priority, Integer reservedCapacity) {
+            this.reservedCapacities.put(priority, reservedCapacity);
+            return this;
+        }
+
+        /**
+         * @param priority The priority class.
+         * @param weight   The share of freed connections the class gets relative to the other waiting classes, see
+         *                 NotificationPriority for the defaults.
+         * @return This builder.
+         */
+        public Builder priorityWeight(NotificationPriority priority, Integer weight) {
+            this.priorityWeights.put(priority, weight);
+            return this;
+        }
+
+        /**
+         * @param starvationThreshold Time in milliseconds after which a waiting notification is admitted ahead of the
+         *                            weighted order, so that bulk traffic keeps moving.
+         * @return This builder.
+         */
+        public Builder starvationThreshold(Long starvationThreshold) {
+            this.starvationThreshold = starvationThreshold;
+            return this;
+        }
+
+        /**
+         * @param warmUpConnections Number of connections a warm-up opens per receiver, capped at
+         *                          maxConnectionsPerRoute.
+         * @return This builder.
+         */
+        public Builder warmUpConnections(Integer warmUpConnections) {
+            this.warmUpConnections = warmUpConnections;
+            return this;
+        }
+
+        /**
+         * @param keepWarmInterval Interval in milliseconds at which idle warmed up connections are checked and their
+         *                         keep-alive renewed, below keepAliveTtl.
+         * @return This builder.
+         */
+        public Builder keepWarmInterval(Long keepWarmInterval) {
+            this.keepWarmInterval = keepWarmInterval;
+            return this;
+        }
+
+        /**
+         * @param tlsSessionCacheSize Number of TLS sessions cached for resumption at most.
+         * @return This builder.
+         */
+        public Builder tlsSessionCacheSize(Integer tlsSessionCacheSize) {
+            this.tlsSessionCacheSize = tlsSessionCacheSize;
+            return this;
+        }
+
+        /**
+         * @param sslContext SSL context of the https connections, the default one if not set. Its client session
+         *                   cache is sized to tlsSessionCacheSize.
+         * @return This builder.
+         */
+        public Builder sslContext(SSLContext sslContext) {
+            this.sslContext = sslContext;
+            return this;
+        }
+
+        /**
+         * @param jmxName Name under which the instance's metrics are registered as an MBean, none by default.
+         * @return This builder.
+         */
+        public Builder jmxName(String jmxName) {
+            this.jmxName = jmxName;
+            return this;
+        }
+
+        /**
+         * Sends notifications through the given transport instead of the pooled Apache clients. The connection pool,
+         * keep-alive, idle eviction, DNS cache and TLS settings only apply to the default transport.
+         *
+         * @param transport The transport to send through, closed with the instance.
+         * @return This builder.
+         */
+        public Builder transport(NotificationTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * @return A new HttpNotification instance with its own connection pools.
+         */
+        public HttpNotification build() {
+            return new HttpNotification(this);
+        }
+    }
 }
\ No newline at end of file
@@ -4,7 +4,55 @@ package com.http.utility;
  * Custom exception for HttpNotification.
  */
 public class HttpNotificationException extends Exception {
+
+    private final Integer statusCode;
+    private final String responseBody;
+    private final Long retryAfter;
+
     public HttpNotificationException(String s) {
+        this(s, (Integer) null);
+    }
+
+    public HttpNotificationException(String s, Throwable cause) {
+        super(s, cause);
+        this.statusCode = null;
+        this.responseBody = null;
+        this.retryAfter = null;
+    }
+
+    public HttpNotificationException(String s, Integer statusCode) {
+        this(s, statusCode, null);
+    }
+
+    public HttpNotificationException(String s, Integer statusCode, String responseBody) {
+        this(s, statusCode, responseBody, null);
+    }
+
+    public HttpNotificationException(String s, Integer statusCode, String responseBody, Long retryAfter) {
         super(s);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return The Http status code the receiver responded with, or null if the error did not come from a response.
+     */
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return The (possibly truncated) body the receiver responded with, or null if none was captured.
+     */
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * @return The delay in milliseconds the receiver asked for in its Retry-After header, or null if it sent none.
+     */
+    public Long getRetryAfter() {
+        return retryAfter;
     }
 }
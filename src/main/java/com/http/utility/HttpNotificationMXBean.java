@@ -0,0 +1,40 @@
+package com.http.utility;
+
+import java.util.Map;
+
+/**
+ * JMX view of the delivery metrics of an HttpNotification instance, registered when the instance is built with a
+ * jmxName. Latencies are reported in milliseconds per endpoint url.
+ */
+public interface HttpNotificationMXBean {
+
+    long getRequests();
+
+    long getSucceeded();
+
+    long getFailed();
+
+    long getInFlight();
+
+    long getBytesSent();
+
+    int getLeasedConnections();
+
+    int getAvailableConnections();
+
+    int getPendingConnections();
+
+    long getTlsHandshakes();
+
+    long getTlsResumptions();
+
+    long getHandshakeTimeSaved();
+
+    Map<String, Long> getRequestsByEndpoint();
+
+    Map<String, Double> getP50LatencyByEndpoint();
+
+    Map<String, Double> getP99LatencyByEndpoint();
+
+    Map<String, Double> getP999LatencyByEndpoint();
+}
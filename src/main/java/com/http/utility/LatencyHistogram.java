@@ -0,0 +1,163 @@
+package com.http.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets.
+ *
+ * Values below 16 nanoseconds are counted exactly, larger values fall into one of 16 buckets per power of two, which
+ * bounds the error of a reported percentile to 1/16 of the value. Values are tracked up to 2^40 nanoseconds (about
+ * 18 minutes), larger ones are counted in the last bucket. Recording is a single atomic increment and never
+ * allocates.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * @param nanos The latency to record, in nanoseconds.
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0L, nanos);
+
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return A consistent copy of the recorded values.
+     */
+    public Snapshot snapshot() {
+        final long[] copy = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+
+        return new Snapshot(copy, sum.sum(), max.get());
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        final int mantissa = exponent == MAX_EXPONENT && value >= (1L << (MAX_EXPONENT + 1)) ? SUB_BUCKETS - 1 : (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * @return The highest value counted in the given bucket.
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long mantissa = index % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + mantissa + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Point in time copy of a histogram.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            long count = 0L;
+            for (long bucket : counts) {
+                count += bucket;
+            }
+
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return Number of recorded values.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Mean of the recorded values in nanoseconds, 0 if none was recorded.
+         */
+        public double getMean() {
+            return count > 0L ? (double) sum / count : 0.0;
+        }
+
+        /**
+         * @return Largest recorded value in nanoseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile The percentile, between 0 and 100, e.g. 99.9.
+         * @return The value in nanoseconds below which the given percentage of the recorded values fall, 0 if none
+         * was recorded.
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0L) {
+                return 0L;
+            }
+
+            final long rank = Math.max(1L, (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+            long seen = 0L;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+
+            return max;
+        }
+
+        /**
+         * @return Sum of the recorded values in nanoseconds.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Adds the bucket counts of this snapshot to the given counts, to merge snapshots.
+         */
+        void addTo(long[] target) {
+            for (int i = 0; i < counts.length; i++) {
+                target[i] += counts[i];
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "LatencyHistogram.Snapshot{count=" + count + ", mean=" + (long) getMean() + ", p50=" + getPercentile(50.0) + ", p99=" + getPercentile(99.0) + ", p999=" + getPercentile(99.9) + ", max=" + max + "}";
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.http.utility;
+
+import org.apache.http.pool.PoolStats;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time view of the delivery metrics of an HttpNotification instance, see
+ * {@link HttpNotification#getMetrics()}. Every attempt counts as a request, so a notification which is retried
+ * counts once per attempt.
+ */
+public class MetricsSnapshot {
+
+    private final Map<String, EndpointStats> endpoints;
+    private final int leasedConnections;
+    private final int availableConnections;
+    private final int pendingConnections;
+    private final int maxConnections;
+    private final long tlsHandshakes;
+    private final long tlsResumptions;
+    private final long warmedConnections;
+    private final long handshakeTimeSaved;
+
+    MetricsSnapshot(Map<String, DeliveryMetrics.EndpointMetrics> endpoints, HandshakeMetrics handshakes, PoolStats... pools) {
+        final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+        for (Map.Entry<String, DeliveryMetrics.EndpointMetrics> entry : endpoints.entrySet()) {
+            stats.put(entry.getKey(), new EndpointStats(entry.getValue()));
+        }
+
+        int leased = 0, available = 0, pending = 0, max = 0;
+
+        for (PoolStats pool : pools) {
+            if (pool != null) {
+                leased += pool.getLeased();
+                available += pool.getAvailable();
+                pending += pool.getPending();
+                max += pool.getMax();
+            }
+        }
+
+        this.endpoints = Collections.unmodifiableMap(stats);
+        this.leasedConnections = leased;
+        this.availableConnections = available;
+        this.pendingConnections = pending;
+        this.maxConnections = max;
+        this.tlsHandshakes = handshakes != null ? handshakes.getFullHandshakes() + handshakes.getResumedHandshakes() : 0L;
+        this.tlsResumptions = handshakes != null ? handshakes.getResumedHandshakes() : 0L;
+        this.warmedConnections = handshakes != null ? handshakes.getWarmedConnections() : 0L;
+        this.handshakeTimeSaved = handshakes != null ? TimeUnit.NANOSECONDS.toMillis(handshakes.getTimeSaved()) : 0L;
+    }
+
+    /**
+     * @return The statistics of every endpoint notified so far, by endpoint url.
+     */
+    public Map<String, EndpointStats> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @return Number of attempts made across all endpoints.
+     */
+    public long getRequests() {
+        long requests = 0L;
+        for (EndpointStats stats : endpoints.values()) {
+            requests += stats.getRequests();
+        }
+        return requests;
+    }
+
+    /**
+     * @return Number of attempts answered with a 2xx status across all endpoints.
+     */
+    public long getSucceeded() {
+        long succeeded = 0L;
+        for (EndpointStats stats : endpoints.values()) {
+            succeeded += stats.getResponses(2);
+        }
+        return succeeded;
+    }
+
+    /**
+     * @return Number of attempts which got no response or an error status across all endpoints.
+     */
+    public long getFailed() {
+        long failed = 0L;
+        for (EndpointStats stats : endpoints.values()) {
+            failed += stats.getResponses(DeliveryMetrics.TRANSPORT_ERROR) + stats.getResponses(3) + stats.getResponses(4) + stats.getResponses(5);
+        }
+        return failed;
+    }
+
+    /**
+     * @return Number of attempts in flight across all endpoints.
+     */
+    public long getInFlight() {
+        long inFlight = 0L;
+        for (EndpointStats stats : endpoints.values()) {
+            inFlight += stats.getInFlight();
+        }
+        return inFlight;
+    }
+
+    /**
+     * @return Number of request body bytes sent across all endpoints.
+     */
+    public long getBytesSent() {
+        long bytesSent = 0L;
+        for (EndpointStats stats : endpoints.values()) {
+            bytesSent += stats.getBytesSent();
+        }
+        return bytesSent;
+    }
+
+    /**
+     * @return Number of connections currently leased from the connection pools.
+     */
+    public int getLeasedConnections() {
+        return leasedConnections;
+    }
+
+    /**
+     * @return Number of idle connections kept in the connection pools.
+     */
+    public int getAvailableConnections() {
+        return availableConnections;
+    }
+
+    /**
+     * @return Number of requests waiting for a pooled connection.
+     */
+    public int getPendingConnections() {
+        return pendingConnections;
+    }
+
+    /**
+     * @return Maximum number of connections of the connection pools.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return Number of TLS handshakes made, including the resumed ones.
+     */
+    public long getTlsHandshakes() {
+        return tlsHandshakes;
+    }
+
+    /**
+     * @return Number of TLS handshakes which resumed a cached session.
+     */
+    public long getTlsResumptions() {
+        return tlsResumptions;
+    }
+
+    /**
+     * @return Number of connections opened ahead of time by warm-ups.
+     */
+    public long getWarmedConnections() {
+        return warmedConnections;
+    }
+
+    /**
+     * @return Time in milliseconds notifications did not spend on connection setup: the setup of the connections
+     * opened by warm-ups, plus what the resumed TLS handshakes saved over full ones.
+     */
+    public long getHandshakeTimeSaved() {
+        return handshakeTimeSaved;
+    }
+
+    /**
+     * Statistics of a single endpoint.
+     */
+    public static class EndpointStats {
+
+        private static final LatencyHistogram.Snapshot EMPTY = new LatencyHistogram.Snapshot(new long[LatencyHistogram.BUCKETS], 0L, 0L);
+
+        private final long requests;
+        private final long inFlight;
+        private final long bytesSent;
+        private final long retries;
+        private final long rejected;
+        private final long deduplicated;
+        private final long[] responses = new long[6];
+        private final LatencyHistogram.Snapshot[] latencies = new LatencyHistogram.Snapshot[6];
+        private final LatencyHistogram.Snapshot latency;
+
+        EndpointStats(DeliveryMetrics.EndpointMetrics metrics) {
+            this.requests = metrics.requests.sum();
+            this.inFlight = metrics.inFlight.sum();
+            this.bytesSent = metrics.bytesSent.sum();
+            this.retries = metrics.retries.sum();
+            this.rejected = metrics.rejected.sum();
+            this.deduplicated = metrics.deduplicated.sum();
+
+            final long[] counts = new long[LatencyHistogram.BUCKETS];
+            long sum = 0L, max = 0L;
+
+            for (int statusClass = 0; statusClass < responses.length; statusClass++) {
+                responses[statusClass] = metrics.responses[statusClass].sum();
+
+                LatencyHistogram histogram = metrics.latencies.get(statusClass);
+                latencies[statusClass] = histogram != null ? histogram.snapshot() : EMPTY;
+
+                latencies[statusClass].addTo(counts);
+                sum += latencies[statusClass].getSum();
+                max = Math.max(max, latencies[statusClass].getMax());
+            }
+
+            this.latency = new LatencyHistogram.Snapshot(counts, sum, max);
+        }
+
+        /**
+         * @return Number of attempts made.
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return Number of attempts in flight.
+         */
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return Number of request body bytes sent, after compression. Bodies of unknown length are not counted.
+         */
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        /**
+         * @return Number of retries scheduled by the retry policy.
+         */
+        public long getRetries() {
+            return retries;
+        }
+
+        /**
+         * @return Number of notifications rejected without being sent, e.g. by an open circuit breaker.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return Number of repeat notifications suppressed by the deduplication window.
+         */
+        public long getDeduplicated() {
+            return deduplicated;
+        }
+
+        /**
+         * @param statusClass The status class, e.g. 5 for 5xx responses, or 0 for attempts which got no response.
+         * @return Number of attempts which ended with the given status class.
+         */
+        public long getResponses(int statusClass) {
+            return responses[statusClass];
+        }
+
+        /**
+         * @return Latency of all attempts.
+         */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        /**
+         * @param statusClass The status class, e.g. 2 for 2xx responses, or 0 for attempts which got no response.
+         * @return Latency of the attempts which ended with the given status class.
+         */
+        public LatencyHistogram.Snapshot getLatency(int statusClass) {
+            return latencies[statusClass];
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointStats{requests=" + requests + ", inFlight=" + inFlight + ", bytesSent=" + bytesSent + ", retries=" + retries + ", rejected=" + rejected + ", deduplicated=" + deduplicated + ", latency=" + latency + "}";
+        }
+    }
+}
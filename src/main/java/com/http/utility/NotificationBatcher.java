@@ -0,0 +1,178 @@
+package com.http.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces json notifications to the same endpoint into json array requests.
+ *
+ * A batch is opened by the first notification to an endpoint and is sent once linger milliseconds have passed, or
+ * as soon as it holds maxCount notifications or maxSize characters. Linger flushes run on the shared timer wheel, so
+ * the linger time has the precision of one wheel tick.
+ */
+class NotificationBatcher {
+
+    private final HttpNotification notification;
+    private final long linger;
+    private final int maxCount;
+    private final int maxSize;
+
+    private final ConcurrentHashMap<String, Batch> batches = new ConcurrentHashMap<>();
+
+    NotificationBatcher(HttpNotification notification, long linger, int maxCount, int maxSize) {
+        this.notification = notification;
+        this.linger = linger;
+        this.maxCount = maxCount;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds an already validated json notification to the open batch of its endpoint.
+     *
+     * @param endpoint The endpoint accepting the notification.
+     * @param body     The validated json body.
+     * @return A future completing with the result of the batch request.
+     */
+    CompletableFuture<NotificationResult> add(Endpoint endpoint, String body) {
+        final String key = endpoint.getMethod().getValue() + " " + endpoint.getUri();
+        final CompletableFuture<NotificationResult> future = new CompletableFuture<>();
+
+        while (true) {
+            Batch batch = batches.computeIfAbsent(key, k -> new Batch(k, endpoint));
+            int added = batch.add(body, future);
+
+            if (added == Batch.CLOSED) {
+                // The batch was flushed concurrently, open the next one.
+                continue;
+            }
+            if (added == Batch.FIRST) {
+                HttpNotification.TIMER_WHEEL.schedule(linger, () -> flush(batch));
+            } else if (added == Batch.FULL) {
+                flush(batch);
+            }
+
+            return future;
+        }
+    }
+
+    /**
+     * Sends every open batch and waits for the batch requests to complete, used when the instance is closed.
+     */
+    void flushAll() {
+        final List<CompletableFuture<NotificationResult>> requests = new ArrayList<>();
+
+        for (Batch batch : batches.values()) {
+            CompletableFuture<NotificationResult> request = flush(batch);
+
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]))
+                    .get(notification.getConnectionTimeout() + notification.getSocketTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Failures are reported through the futures of the batched notifications.
+        }
+    }
+
+    /**
+     * Closes a batch and sends it as one json array request, completing the futures of its notifications.
+     *
+     * @return The future of the batch request, or null if the batch had already been sent.
+     */
+    private CompletableFuture<NotificationResult> flush(Batch batch) {
+        if (!batch.close()) {
+            return null;
+        }
+
+        batches.remove(batch.key, batch);
+
+        final StringBuilder body = new StringBuilder(batch.size + batch.bodies.size() + 1).append('[');
+
+        for (int i = 0; i < batch.bodies.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(batch.bodies.get(i));
+        }
+
+        final CompletableFuture<NotificationResult> request = notification.dispatchAsync(batch.endpoint, NotificationBody.of(body.append(']').toString()));
+
+        request.whenComplete((result, error) -> {
+            for (CompletableFuture<NotificationResult> future : batch.futures) {
+                if (error == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(error);
+                }
+            }
+        });
+
+        return request;
+    }
+
+    /**
+     * Notifications buffered for one endpoint.
+     */
+    private class Batch {
+
+        static final int CLOSED = 0;
+        static final int FIRST = 1;
+        static final int ADDED = 2;
+        static final int FULL = 3;
+
+        final String key;
+        final Endpoint endpoint;
+        final List<String> bodies = new ArrayList<>();
+        final List<CompletableFuture<NotificationResult>> futures = new ArrayList<>();
+
+        int size;
+        boolean closed;
+
+        Batch(String key, Endpoint endpoint) {
+            this.key = key;
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * @return CLOSED if the batch no longer accepts notifications, FIRST if it was empty, FULL if it reached one
+         * of its limits, ADDED otherwise.
+         */
+        synchronized int add(String body, CompletableFuture<NotificationResult> future) {
+            if (closed) {
+                return CLOSED;
+            }
+
+            bodies.add(body);
+            futures.add(future);
+            size += body.length();
+
+            if (bodies.size() >= maxCount || size >= maxSize) {
+                return FULL;
+            }
+
+            return bodies.size() == 1 ? FIRST : ADDED;
+        }
+
+        /**
+         * @return True if this call closed the batch, False if it was already closed.
+         */
+        synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+
+            closed = true;
+            return true;
+        }
+    }
+}
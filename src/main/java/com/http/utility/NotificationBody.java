@@ -0,0 +1,270 @@
+package com.http.utility;
+
+import org.apache.http.Consts;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.nio.entity.NFileEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The body of a notification, held in the form the caller passed it in. Bodies are validated and sent without
+ * being converted to another form first: strings are encoded once into the request, buffers are written in place
+ * and files are streamed.
+ */
+abstract class NotificationBody {
+
+    private ContentHash contentHash;
+
+    static NotificationBody of(String body) {
+        return new StringBody(body);
+    }
+
+    static NotificationBody of(ByteBuffer body) {
+        return new BufferBody(body);
+    }
+
+    static NotificationBody of(Path file) {
+        return new FileBody(file);
+    }
+
+    /**
+     * @param in The body stream, read once when the notification is sent.
+     * @return A body which can be sent only once.
+     */
+    static NotificationBody streaming(InputStream in) {
+        return new StreamBody(in);
+    }
+
+    /**
+     * @return True if the body is missing or empty.
+     * @throws IOException
+     */
+    abstract boolean isEmpty() throws IOException;
+
+    /**
+     * @param mode        The validation mode in use.
+     * @param contentType The content type of the body.
+     * @return True if valid, False if not.
+     * @throws IOException
+     */
+    abstract boolean isValid(ValidationMode mode, NotificationContentType contentType) throws IOException;
+
+    /**
+     * Builds a request entity carrying the body. Each call returns a new entity.
+     *
+     * @param compression The compression the receiver accepts.
+     * @param threshold   Body size in bytes from which the body is compressed.
+     * @param async       Whether the entity is sent by the non-blocking client.
+     * @return The request entity.
+     */
+    abstract HttpEntity entity(RequestCompression compression, int threshold, boolean async);
+
+    /**
+     * @return True if the body can be sent again, e.g. when the notification is retried.
+     */
+    boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * Feeds the body into a hash. Only bodies held in memory are hashed, files and streams are not read for it.
+     *
+     * @param hash The hash, seeded with the notification target.
+     * @return True if the body was fed, False if the body is not hashed.
+     */
+    boolean hash(ContentHash hash) {
+        return false;
+    }
+
+    /**
+     * @return The hash of the notification target and this body, or null if the notification is not deduplicated.
+     */
+    ContentHash getContentHash() {
+        return contentHash;
+    }
+
+    void setContentHash(ContentHash contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @return A compressed entity holding the given bytes, or an uncompressed one below the threshold.
+     */
+    static AbstractHttpEntity bytesEntity(byte[] bytes, RequestCompression compression, int threshold) {
+        if (compression == RequestCompression.NONE || bytes.length < threshold) {
+            return new ByteArrayEntity(bytes);
+        }
+
+        final ByteArrayEntity entity = new ByteArrayEntity(BodyCompressor.compress(compression, bytes));
+        entity.setContentEncoding(compression.getValue());
+
+        return entity;
+    }
+
+    private static class StringBody extends NotificationBody {
+
+        private final String body;
+
+        StringBody(String body) {
+            this.body = body;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return body == null || body.isEmpty();
+        }
+
+        @Override
+        boolean isValid(ValidationMode mode, NotificationContentType contentType) {
+            return PayloadValidator.isValid(mode, contentType, body);
+        }
+
+        @Override
+        HttpEntity entity(RequestCompression compression, int threshold, boolean async) {
+            if (compression == RequestCompression.NONE) {
+                return new StringEntity(body, Consts.UTF_8);
+            }
+
+            return bytesEntity(body.getBytes(Consts.UTF_8), compression, threshold);
+        }
+
+        @Override
+        boolean hash(ContentHash hash) {
+            hash.update(body);
+            return true;
+        }
+    }
+
+    private static class BufferBody extends NotificationBody {
+
+        private final ByteBuffer body;
+
+        BufferBody(ByteBuffer body) {
+            this.body = body != null ? body.duplicate() : null;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return body == null || !body.hasRemaining();
+        }
+
+        @Override
+        boolean isValid(ValidationMode mode, NotificationContentType contentType) {
+            return PayloadValidator.isValid(mode, contentType, body);
+        }
+
+        @Override
+        HttpEntity entity(RequestCompression compression, int threshold, boolean async) {
+            if (compression == RequestCompression.NONE || body.remaining() < threshold) {
+                return new ByteBufferEntity(body);
+            }
+
+            final byte[] bytes = new byte[body.remaining()];
+            body.duplicate().get(bytes);
+
+            return bytesEntity(bytes, compression, threshold);
+        }
+
+        @Override
+        boolean hash(ContentHash hash) {
+            hash.update(body);
+            return true;
+        }
+    }
+
+    /**
+     * File bodies are streamed with chunked transfer coding and are never compressed.
+     */
+    private static class FileBody extends NotificationBody {
+
+        private final Path file;
+
+        FileBody(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        boolean isEmpty() throws IOException {
+            return file == null || Files.size(file) == 0L;
+        }
+
+        @Override
+        boolean isValid(ValidationMode mode, NotificationContentType contentType) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return PayloadValidator.isValid(mode, contentType, channel);
+            }
+        }
+
+        @Override
+        HttpEntity entity(RequestCompression compression, int threshold, boolean async) {
+            if (async) {
+                NFileEntity entity = new NFileEntity(file.toFile(), (ContentType) null);
+                entity.setChunked(true);
+                return entity;
+            }
+
+            return new FileChannelEntity(file);
+        }
+    }
+
+    /**
+     * Stream bodies are sent as they are read, with chunked transfer coding. They cannot be validated nor retried.
+     */
+    private static class StreamBody extends NotificationBody {
+
+        private final PushbackInputStream in;
+
+        StreamBody(InputStream in) {
+            this.in = in != null ? new PushbackInputStream(in) : null;
+        }
+
+        /**
+         * Reads ahead one byte, so that an empty stream is told apart from a missing one. An empty stream is closed.
+         */
+        @Override
+        boolean isEmpty() throws IOException {
+            if (in == null) {
+                return true;
+            }
+
+            final int first = in.read();
+
+            if (first == -1) {
+                in.close();
+                return true;
+            }
+
+            in.unread(first);
+            return false;
+        }
+
+        @Override
+        boolean isValid(ValidationMode mode, NotificationContentType contentType) {
+            return mode == ValidationMode.NONE || contentType == NotificationContentType.TEXT;
+        }
+
+        @Override
+        HttpEntity entity(RequestCompression compression, int threshold, boolean async) {
+            InputStreamEntity entity = new InputStreamEntity(in, -1L);
+            entity.setChunked(true);
+            return entity;
+        }
+
+        @Override
+        boolean isRepeatable() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.http.utility;
+
+/**
+ * Content types supported for notifications.
+ */
+public enum NotificationContentType {
+
+    JSON(HttpNotification.CONTENT_JSON),
+    TEXT(HttpNotification.CONTENT_TEXT),
+    XML(HttpNotification.CONTENT_XML);
+
+    private final String value;
+
+    NotificationContentType(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return The media type, as sent in the Content-Type header.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Looks up a supported content type by media type.
+     *
+     * @param value The media type.
+     * @return The matching content type, or null if the content type is not supported.
+     */
+    public static NotificationContentType fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        switch (value) {
+            case HttpNotification.CONTENT_JSON:
+                return JSON;
+            case HttpNotification.CONTENT_TEXT:
+                return TEXT;
+            case HttpNotification.CONTENT_XML:
+                return XML;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.http.utility;
+
+/**
+ * Http methods supported for notifications.
+ */
+public enum NotificationMethod {
+
+    POST(HttpNotification.HTTP_METHOD_POST),
+    PUT(HttpNotification.HTTP_METHOD_PUT);
+
+    private final String value;
+
+    NotificationMethod(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return The Http method name, as sent on the request line.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Looks up a supported method by name.
+     *
+     * @param value The Http method name.
+     * @return The matching method, or null if the method is not supported.
+     */
+    public static NotificationMethod fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        switch (value) {
+            case HttpNotification.HTTP_METHOD_POST:
+                return POST;
+            case HttpNotification.HTTP_METHOD_PUT:
+                return PUT;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.http.utility;
+
+/**
+ * Priority classes of notifications. With priority lanes enabled, each class waits in its own queue for the
+ * connections to a receiver, and freed connections are shared out between the classes by weight.
+ */
+public enum NotificationPriority {
+
+    /**
+     * Alerts which must not wait behind other traffic. By default a few connections per receiver are reserved for
+     * them and they get most of the freed connections.
+     */
+    CRITICAL(16, 4),
+
+    /**
+     * Regular notifications. This is the default.
+     */
+    NORMAL(4, 0),
+
+    /**
+     * Low-value bulk traffic such as digests and large fan-outs, sent with whatever capacity is left.
+     */
+    BULK(1, 0);
+
+    private final int defaultWeight;
+    private final int defaultReservedCapacity;
+
+    NotificationPriority(int defaultWeight, int defaultReservedCapacity) {
+        this.defaultWeight = defaultWeight;
+        this.defaultReservedCapacity = defaultReservedCapacity;
+    }
+
+    /**
+     * @return The share of freed connections the class gets relative to the other waiting classes, by default.
+     */
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    /**
+     * @return Number of connections per receiver only the class may use, by default.
+     */
+    public int getDefaultReservedCapacity() {
+        return defaultReservedCapacity;
+    }
+}
@@ -0,0 +1,63 @@
+package com.http.utility;
+
+/**
+ * A single Http notification to be delivered as part of a bulk send.
+ */
+public class NotificationRequest {
+
+    private final String url;
+    private final String httpMethod;
+    private final String contentType;
+    private final String body;
+    private final NotificationPriority priority;
+
+    /**
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     */
+    public NotificationRequest(String url, String httpMethod, String contentType, String body) {
+        this(url, httpMethod, contentType, body, NotificationPriority.NORMAL);
+    }
+
+    /**
+     * @param url         The designated endpoint accepting the notification.
+     * @param httpMethod  The HTTP method to use.
+     * @param contentType Request header content type.
+     * @param body        The notification body.
+     * @param priority    The priority class of the notification, e.g. BULK for a large fan-out.
+     */
+    public NotificationRequest(String url, String httpMethod, String contentType, String body, NotificationPriority priority) {
+        this.url = url;
+        this.httpMethod = httpMethod;
+        this.contentType = contentType;
+        this.body = body;
+        this.priority = priority != null ? priority : NotificationPriority.NORMAL;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public NotificationPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationRequest{url='" + url + "', httpMethod='" + httpMethod + "', contentType='" + contentType + "'}";
+    }
+}
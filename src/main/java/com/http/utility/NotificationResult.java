@@ -0,0 +1,60 @@
+package com.http.utility;
+
+/**
+ * Outcome of a delivered Http notification, as reported by the receiving server.
+ */
+public class NotificationResult {
+
+    /*
+        Result of a repeat notification which was suppressed by the deduplication window, without a request being made.
+     */
+    public static final NotificationResult DEDUPLICATED = new NotificationResult(null, null, true);
+
+    private final Integer statusCode;
+    private final String statusText;
+    private final boolean deduplicated;
+
+    public NotificationResult(Integer statusCode, String statusText) {
+        this(statusCode, statusText, false);
+    }
+
+    private NotificationResult(Integer statusCode, String statusText, boolean deduplicated) {
+        this.statusCode = statusCode;
+        this.statusText = statusText;
+        this.deduplicated = deduplicated;
+    }
+
+    /**
+     * Getter method for statusCode.
+     *
+     * @return The Http status code returned by the receiver, null if the notification was deduplicated.
+     */
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Getter method for statusText.
+     *
+     * @return The Http status text (reason phrase) returned by the receiver.
+     */
+    public String getStatusText() {
+        return statusText;
+    }
+
+    /**
+     * @return True if the notification was a repeat of one sent within the deduplication window, and was not sent.
+     */
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+
+    @Override
+    public String toString() {
+        if (deduplicated) {
+            return "NotificationResult{deduplicated}";
+        }
+
+        return "NotificationResult{statusCode=" + statusCode + ", statusText='" + statusText + "'}";
+    }
+}
@@ -0,0 +1,316 @@
+package com.http.utility;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded, lock-free multi-producer queue of fire-and-forget notifications, drained by a fixed set of dispatcher
+ * threads which send them synchronously.
+ *
+ * The slots are preallocated parallel arrays. Each slot carries a sequence number telling producers and dispatchers
+ * whose turn it is, so a producer claims a slot with a single compare-and-set on the enqueue cursor and publishes
+ * it with an ordered write of its sequence. Enqueueing allocates nothing. The cursors sit on their own cache lines
+ * so producers and dispatchers do not contend on them.
+ *
+ * Idle dispatchers spin briefly and then park until a producer or shutdown wakes them, a producer only wakes one when
+ * some dispatcher is parked.
+ */
+class NotificationRing {
+
+    private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /*
+        Cursor indexes into the padded cursor array, 128 bytes apart.
+     */
+    private static final int ENQUEUE = 15;
+    private static final int DEQUEUE = 31;
+
+    private static final int IDLE_SPINS = 100;
+    private static final long DRAIN_PARK = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final long FULL_PARK = TimeUnit.MICROSECONDS.toNanos(50L);
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Endpoint[] endpoints;
+    private final String[] bodies;
+    private final AtomicLongArray cursors = new AtomicLongArray(DEQUEUE + 16);
+
+    private final OverflowPolicy policy;
+    private final BiConsumer<Endpoint, String> overflowHandler;
+
+    private final Thread[] dispatchers;
+    private final AtomicIntegerArray parked;
+    private final AtomicInteger sleepers = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity        Number of queued notifications at most, rounded up to a power of two.
+     * @param dispatcherCount Number of dispatcher threads.
+     * @param policy          What happens to a notification enqueued while the queue is full.
+     * @param overflowHandler Receives the notifications spilled under the SPILL policy, may be null.
+     */
+    NotificationRing(int capacity, int dispatcherCount, OverflowPolicy policy, BiConsumer<Endpoint, String> overflowHandler) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.endpoints = new Endpoint[size];
+        this.bodies = new String[size];
+        this.policy = policy;
+        this.overflowHandler = overflowHandler;
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+
+        this.dispatchers = new Thread[dispatcherCount];
+        this.parked = new AtomicIntegerArray(dispatcherCount);
+
+        for (int i = 0; i < dispatcherCount; i++) {
+            final int index = i;
+            dispatchers[i] = new Thread(() -> dispatch(index), "http-notification-dispatcher-" + i);
+            dispatchers[i].setDaemon(true);
+            dispatchers[i].start();
+        }
+    }
+
+    /**
+     * Queues a notification for one of the dispatchers, applying the overflow policy if the queue is full.
+     *
+     * @param endpoint The endpoint accepting the notification.
+     * @param body     The notification body, validated by the dispatcher.
+     * @return True if the notification was queued, False if it was dropped or spilled.
+     * @throws HttpNotificationException
+     */
+    boolean enqueue(Endpoint endpoint, String body) throws HttpNotificationException {
+        while (accepting) {
+            if (offer(endpoint, body)) {
+                if (sleepers.get() > 0) {
+                    wakeDispatcher();
+                }
+                return true;
+            }
+
+            switch (policy) {
+                case DROP_OLDEST:
+                    long position = claim();
+                    if (position >= 0L) {
+                        release(position);
+                        dropped.increment();
+                    }
+                    break;
+                case DROP_NEWEST:
+                    dropped.increment();
+                    return false;
+                case SPILL:
+                    if (overflowHandler != null) {
+                        overflowHandler.accept(endpoint, body);
+                    } else {
+                        dropped.increment();
+                    }
+                    return false;
+                default:
+                    LockSupport.parkNanos(this, FULL_PARK);
+                    if (Thread.interrupted()) {
+                        Thread.currentThread().interrupt();
+                        throw new HttpNotificationException("Error: Interrupted while waiting for notification queue capacity.");
+                    }
+            }
+        }
+
+        throw new HttpNotificationException("Error: Notification queue is shut down.");
+    }
+
+    /**
+     * Stops accepting notifications and lets the dispatchers send the queued ones for at most drainTimeout
+     * milliseconds. Notifications still queued afterwards are spilled to the overflow handler if there is one, or
+     * else dropped.
+     *
+     * @param drainTimeout Time in milliseconds to wait for the queue to drain.
+     * @return True if every queued notification was sent, False if not.
+     */
+    boolean shutdown(long drainTimeout) {
+        accepting = false;
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeout);
+        boolean drained;
+
+        while (!(drained = size() == 0 && active.get() == 0) && System.nanoTime() < deadline) {
+            wakeDispatcher();
+            LockSupport.parkNanos(this, DRAIN_PARK);
+        }
+
+        running = false;
+        for (Thread dispatcher : dispatchers) {
+            LockSupport.unpark(dispatcher);
+        }
+
+        int remaining = 0;
+        long position;
+
+        while ((position = claim()) >= 0L) {
+            final int index = (int) position & mask;
+            final Endpoint endpoint = endpoints[index];
+            final String body = bodies[index];
+            release(position);
+
+            if (overflowHandler != null) {
+                overflowHandler.accept(endpoint, body);
+            } else {
+                dropped.increment();
+            }
+            remaining++;
+        }
+
+        if (remaining > 0) {
+            LOGGER.log(Level.SEVERE, "Error: " + remaining + " queued Http Notifications were not sent before shutdown.");
+        }
+
+        return drained;
+    }
+
+    /**
+     * @return Number of notifications waiting in the queue.
+     */
+    int size() {
+        return (int) Math.max(cursors.get(ENQUEUE) - cursors.get(DEQUEUE), 0L);
+    }
+
+    /**
+     * @return Number of slots of the queue.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return Number of notifications dropped because the queue was full or shut down.
+     */
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    private boolean offer(Endpoint endpoint, String body) {
+        long position = cursors.get(ENQUEUE);
+
+        while (true) {
+            final int index = (int) position & mask;
+            final long lag = sequences.get(index) - position;
+
+            if (lag == 0L) {
+                if (cursors.compareAndSet(ENQUEUE, position, position + 1L)) {
+                    endpoints[index] = endpoint;
+                    bodies[index] = body;
+                    sequences.set(index, position + 1L);
+                    return true;
+                }
+            } else if (lag < 0L) {
+                // The slot still holds the notification from one lap ago, the queue is full.
+                return false;
+            }
+            position = cursors.get(ENQUEUE);
+        }
+    }
+
+    /**
+     * Claims the oldest published slot, which must be released once its notification was read.
+     *
+     * @return The position of the claimed slot, -1 if the queue is empty.
+     */
+    private long claim() {
+        long position = cursors.get(DEQUEUE);
+
+        while (true) {
+            final int index = (int) position & mask;
+            final long lag = sequences.get(index) - (position + 1L);
+
+            if (lag == 0L) {
+                if (cursors.compareAndSet(DEQUEUE, position, position + 1L)) {
+                    return position;
+                }
+            } else if (lag < 0L) {
+                return -1L;
+            }
+            position = cursors.get(DEQUEUE);
+        }
+    }
+
+    private void release(long position) {
+        final int index = (int) position & mask;
+        endpoints[index] = null;
+        bodies[index] = null;
+        sequences.set(index, position + mask + 1L);
+    }
+
+    private void wakeDispatcher() {
+        for (int i = 0; i < dispatchers.length; i++) {
+            // Clearing the flag claims the sleeper, so that concurrent producers wake different dispatchers.
+            if (parked.compareAndSet(i, 1, 0)) {
+                LockSupport.unpark(dispatchers[i]);
+                return;
+            }
+        }
+    }
+
+    private void dispatch(int index) {
+        int spins = 0;
+
+        while (running) {
+            // Counted as active before claiming, so that a drain never sees an empty queue and an idle dispatcher
+            // while a notification is between the two.
+            active.incrementAndGet();
+            final long position = claim();
+
+            if (position < 0L) {
+                active.decrementAndGet();
+
+                if (++spins < IDLE_SPINS) {
+                    Thread.yield();
+                    continue;
+                }
+
+                parked.set(index, 1);
+                sleepers.incrementAndGet();
+                // A producer publishes before it checks for sleepers, so either this sees its notification or it sees
+                // this sleeper and unparks it. Shutdown unparks every dispatcher after clearing running.
+                if (size() == 0 && running) {
+                    LockSupport.park(this);
+                }
+                sleepers.decrementAndGet();
+                parked.set(index, 0);
+                spins = 0;
+                continue;
+            }
+
+            final int slot = (int) position & mask;
+            final Endpoint endpoint = endpoints[slot];
+            final String body = bodies[slot];
+            release(position);
+            spins = 0;
+
+            try {
+                endpoint.send(body);
+            } catch (HttpNotificationException e) {
+                LOGGER.log(Level.SEVERE, "Error: Queued Http Notification to " + endpoint.getUri() + " failed. " + e.getMessage());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Error: Queued Http Notification to " + endpoint.getUri() + " failed. " + e);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+}
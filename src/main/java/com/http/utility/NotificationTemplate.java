@@ -0,0 +1,577 @@
+package com.http.utility;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A notification body compiled once from a json, xml or text skeleton holding ${name} parameters, e.g.
+ *
+ * <pre>
+ *     {"host":"${host}","load":${load}}
+ * </pre>
+ *
+ * The skeleton is parsed and validated when the template is compiled, with each parameter standing in for a value of
+ * its slot. It is kept as UTF-8 encoded literal segments between typed slots, so rendering only escapes and copies
+ * the parameter values. Rendered bodies are well formed by construction and are not validated again when sent.
+ *
+ * Slots are typed by where the parameter appears:
+ * <ul>
+ *     <li>Inside a json string, the value's string form is escaped as json string content.</li>
+ *     <li>In place of a json value, null, booleans and finite numbers are written as json literals, any other value
+ *     as an escaped json string.</li>
+ *     <li>In xml text or a quoted attribute value, the value's string form is escaped as xml character data.
+ *     Parameters are not substituted in xml comments, CDATA sections, processing instructions or declarations.</li>
+ *     <li>In text, the value's string form is copied as it is.</li>
+ * </ul>
+ * A null value renders as nothing inside strings and character data. A literal ${ is written as $${.
+ *
+ * Templates are immutable and may be shared between threads.
+ */
+public final class NotificationTemplate {
+
+    /*
+        Each thread renders into one reusable buffer. Buffers grown past this size are not kept for the next render.
+     */
+    static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<RenderBuffer> BUFFER = ThreadLocal.withInitial(RenderBuffer::new);
+
+    private enum SlotType {
+        JSON_STRING,
+        JSON_VALUE,
+        XML_TEXT,
+        XML_ATTRIBUTE,
+        TEXT
+    }
+
+    private final NotificationContentType contentType;
+    private final List<String> parameters;
+
+    /*
+        literals[i] precedes slots[i], the last literal follows the last slot.
+     */
+    private final byte[][] literals;
+    private final SlotType[] slotTypes;
+    private final int[] slotParameters;
+    private final int literalSize;
+
+    private NotificationTemplate(NotificationContentType contentType, List<String> parameters, List<byte[]> literals, List<SlotType> slotTypes, List<Integer> slotParameters) {
+        this.contentType = contentType;
+        this.parameters = Collections.unmodifiableList(parameters);
+        this.literals = literals.toArray(new byte[0][]);
+        this.slotTypes = slotTypes.toArray(new SlotType[0]);
+        this.slotParameters = new int[slotParameters.size()];
+
+        int size = 0;
+        for (byte[] literal : this.literals) {
+            size += literal.length;
+        }
+        for (int i = 0; i < this.slotParameters.length; i++) {
+            this.slotParameters[i] = slotParameters.get(i);
+        }
+        this.literalSize = size;
+    }
+
+    /**
+     * The following method compiles a notification template, validating its skeleton once.
+     *
+     * @param contentType Request header content type of the notifications rendered from the template.
+     * @param template    The body skeleton holding ${name} parameters.
+     * @return The compiled template.
+     * @throws HttpNotificationException
+     */
+    public static NotificationTemplate compile(String contentType, String template) throws HttpNotificationException {
+        final NotificationContentType type = NotificationContentType.fromValue(contentType);
+
+        if (contentType == null || contentType.isEmpty()) {
+            throw new HttpNotificationException("Error: Content type is required.");
+        } else if (type == null) {
+            throw new HttpNotificationException("Error: Content type not supported. The following methods are supported: " + HttpNotification.SUPPORTED_CONTENT_TYPES.toString());
+        } else if (template == null || template.isEmpty()) {
+            throw new HttpNotificationException("Error: Notification template is required.");
+        }
+
+        return new Compiler(type, template).compile();
+    }
+
+    /**
+     * @return The content type of the notifications rendered from this template.
+     */
+    public NotificationContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The parameter names, in the order of their first appearance in the template.
+     */
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Renders a notification body.
+     *
+     * @param values The parameter values, in the order of {@link #getParameters()}.
+     * @return The UTF-8 encoded body.
+     * @throws HttpNotificationException
+     */
+    public byte[] render(Object... values) throws HttpNotificationException {
+        final ByteBuffer rendered = renderShared(values);
+        final byte[] body = new byte[rendered.remaining()];
+        rendered.get(body);
+
+        return body;
+    }
+
+    /**
+     * Renders a notification body.
+     *
+     * @param values The parameter values by name.
+     * @return The UTF-8 encoded body.
+     * @throws HttpNotificationException
+     */
+    public byte[] render(Map<String, ?> values) throws HttpNotificationException {
+        return render(values(values));
+    }
+
+    /**
+     * Renders a notification body into the calling thread's reusable buffer. The returned buffer is only valid until
+     * the thread renders again, so it must be sent, or copied, before that.
+     *
+     * @param values The parameter values, in the order of {@link #getParameters()}.
+     * @return A view of the UTF-8 encoded body.
+     * @throws HttpNotificationException
+     */
+    ByteBuffer renderShared(Object[] values) throws HttpNotificationException {
+        if (values == null || values.length != parameters.size()) {
+            throw new HttpNotificationException("Error: Template expects " + parameters.size() + " parameters, got " + (values != null ? values.length : 0) + ".");
+        }
+
+        final RenderBuffer buffer = BUFFER.get();
+        buffer.reset(literalSize + 16 * slotTypes.length);
+
+        for (int i = 0; i < slotTypes.length; i++) {
+            buffer.write(literals[i]);
+            writeValue(buffer, slotTypes[i], parameters.get(slotParameters[i]), values[slotParameters[i]]);
+        }
+        buffer.write(literals[slotTypes.length]);
+
+        return buffer.release();
+    }
+
+    private Object[] values(Map<String, ?> values) throws HttpNotificationException {
+        final Object[] ordered = new Object[parameters.size()];
+
+        for (int i = 0; i < ordered.length; i++) {
+            if (values == null || !values.containsKey(parameters.get(i))) {
+                throw new HttpNotificationException("Error: Template parameter " + parameters.get(i) + " is missing.");
+            }
+            ordered[i] = values.get(parameters.get(i));
+        }
+
+        return ordered;
+    }
+
+    private static void writeValue(RenderBuffer buffer, SlotType type, String name, Object value) throws HttpNotificationException {
+        switch (type) {
+            case JSON_VALUE:
+                if (value == null) {
+                    buffer.writeAscii("null");
+                } else if (value instanceof Boolean) {
+                    buffer.writeAscii(value.toString());
+                } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                        || value instanceof BigInteger || value instanceof BigDecimal) {
+                    buffer.writeAscii(value.toString());
+                } else if (value instanceof Double || value instanceof Float) {
+                    if (Double.isNaN(((Number) value).doubleValue()) || Double.isInfinite(((Number) value).doubleValue())) {
+                        throw new HttpNotificationException("Error: Template parameter " + name + " is not a finite number.");
+                    }
+                    buffer.writeAscii(value.toString());
+                } else {
+                    buffer.writeByte('"');
+                    buffer.writeEscaped(value.toString(), SlotType.JSON_STRING);
+                    buffer.writeByte('"');
+                }
+                break;
+            default:
+                if (value != null) {
+                    buffer.writeEscaped(value.toString(), type);
+                }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationTemplate{contentType='" + contentType.getValue() + "', parameters=" + parameters + "}";
+    }
+
+    /**
+     * Single pass over a template skeleton, splitting it into literal segments and slots. The slot type is taken from
+     * the lexical context the parameter appears in.
+     */
+    private static class Compiler {
+
+        private final NotificationContentType contentType;
+        private final String template;
+
+        private final List<String> parameters = new ArrayList<>();
+        private final List<byte[]> literals = new ArrayList<>();
+        private final List<SlotType> slotTypes = new ArrayList<>();
+        private final List<Integer> slotParameters = new ArrayList<>();
+
+        /*
+            The skeleton validated at compile time, with every slot replaced by a stand-in value of its type.
+         */
+        private final StringBuilder skeleton = new StringBuilder();
+        private final StringBuilder literal = new StringBuilder();
+
+        Compiler(NotificationContentType contentType, String template) {
+            this.contentType = contentType;
+            this.template = template;
+        }
+
+        NotificationTemplate compile() throws HttpNotificationException {
+            if (contentType == NotificationContentType.JSON) {
+                compileJson();
+            } else if (contentType == NotificationContentType.XML) {
+                compileXml();
+            } else {
+                compileText();
+            }
+            literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+
+            if (contentType == NotificationContentType.JSON && !PayloadValidator.isWellFormedJson(new StringReader(skeleton.toString()))) {
+                throw new HttpNotificationException("Error: Json is invalid.");
+            } else if (contentType == NotificationContentType.XML && !PayloadValidator.isWellFormedXml(new StringReader(skeleton.toString()))) {
+                throw new HttpNotificationException("Error: Xml is invalid.");
+            }
+
+            return new NotificationTemplate(contentType, parameters, literals, slotTypes, slotParameters);
+        }
+
+        private void compileJson() throws HttpNotificationException {
+            boolean inString = false;
+
+            for (int i = 0; i < template.length(); i++) {
+                char c = template.charAt(i);
+
+                if (c == '$' && isParameterAt(i)) {
+                    i = slot(i, inString ? SlotType.JSON_STRING : SlotType.JSON_VALUE, inString ? "" : "\"\"");
+                    continue;
+                } else if (c == '$' && isEscapedParameterAt(i)) {
+                    appendLiteral("${");
+                    i += 2;
+                    continue;
+                }
+
+                appendLiteral(c);
+
+                if (inString && c == '\\' && i + 1 < template.length()) {
+                    appendLiteral(template.charAt(++i));
+                } else if (c == '"') {
+                    inString = !inString;
+                }
+            }
+        }
+
+        private void compileXml() throws HttpNotificationException {
+            char quote = 0;
+            boolean inTag = false;
+
+            for (int i = 0; i < template.length(); i++) {
+                char c = template.charAt(i);
+
+                if (!inTag && c == '<') {
+                    int end = unparsedEnd(i);
+
+                    if (end > i) {
+                        appendLiteral(template.substring(i, end));
+                        i = end - 1;
+                        continue;
+                    }
+                    inTag = true;
+                } else if (inTag && quote == 0 && c == '>') {
+                    inTag = false;
+                } else if (inTag && (c == '"' || c == '\'')) {
+                    quote = quote == 0 ? c : quote == c ? 0 : quote;
+                } else if (c == '$' && isParameterAt(i)) {
+                    if (inTag && quote == 0) {
+                        throw new HttpNotificationException("Error: Template parameter " + parameterAt(i) + " must be inside xml text or an attribute value.");
+                    }
+                    i = slot(i, inTag ? SlotType.XML_ATTRIBUTE : SlotType.XML_TEXT, "");
+                    continue;
+                } else if (c == '$' && isEscapedParameterAt(i)) {
+                    appendLiteral("${");
+                    i += 2;
+                    continue;
+                }
+
+                appendLiteral(c);
+            }
+        }
+
+        private void compileText() throws HttpNotificationException {
+            for (int i = 0; i < template.length(); i++) {
+                char c = template.charAt(i);
+
+                if (c == '$' && isParameterAt(i)) {
+                    i = slot(i, SlotType.TEXT, "");
+                } else if (c == '$' && isEscapedParameterAt(i)) {
+                    appendLiteral("${");
+                    i += 2;
+                } else {
+                    appendLiteral(c);
+                }
+            }
+        }
+
+        /**
+         * @return The index following the comment, CDATA section, processing instruction or declaration starting at
+         * the given index, the end of the template if it is not closed, or the given index if none starts there.
+         */
+        private int unparsedEnd(int start) {
+            final String end;
+
+            if (template.startsWith("<!--", start)) {
+                end = "-->";
+            } else if (template.startsWith("<![CDATA[", start)) {
+                end = "]]>";
+            } else if (template.startsWith("<?", start)) {
+                end = "?>";
+            } else if (template.startsWith("<!", start)) {
+                end = ">";
+            } else {
+                return start;
+            }
+
+            int index = template.indexOf(end, start + 2);
+
+            return index < 0 ? template.length() : index + end.length();
+        }
+
+        private boolean isParameterAt(int index) {
+            return template.startsWith("${", index);
+        }
+
+        private boolean isEscapedParameterAt(int index) {
+            return template.startsWith("$${", index);
+        }
+
+        private String parameterAt(int index) throws HttpNotificationException {
+            final int end = template.indexOf('}', index + 2);
+
+            if (end < 0) {
+                throw new HttpNotificationException("Error: Template parameter at index " + index + " is not closed.");
+            }
+
+            final String name = template.substring(index + 2, end);
+
+            if (name.isEmpty()) {
+                throw new HttpNotificationException("Error: Template parameter at index " + index + " has no name.");
+            }
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                    throw new HttpNotificationException("Error: Template parameter name " + name + " is invalid.");
+                }
+            }
+
+            return name;
+        }
+
+        /**
+         * Closes the current literal segment and adds a slot for the parameter starting at the given index.
+         *
+         * @return The index of the parameter's closing brace.
+         */
+        private int slot(int index, SlotType type, String standIn) throws HttpNotificationException {
+            final String name = parameterAt(index);
+            int parameter = parameters.indexOf(name);
+
+            if (parameter < 0) {
+                parameter = parameters.size();
+                parameters.add(name);
+            }
+
+            literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+            literal.setLength(0);
+            slotTypes.add(type);
+            slotParameters.add(parameter);
+            skeleton.append(standIn);
+
+            return index + name.length() + 2;
+        }
+
+        private void appendLiteral(char c) {
+            literal.append(c);
+            skeleton.append(c);
+        }
+
+        private void appendLiteral(String s) {
+            literal.append(s);
+            skeleton.append(s);
+        }
+    }
+
+    /**
+     * Growable byte buffer encoding escaped values as UTF-8 directly, without intermediate strings or encoders.
+     */
+    private static class RenderBuffer {
+
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        void reset(int capacity) {
+            size = 0;
+            ensureCapacity(capacity);
+        }
+
+        /**
+         * @return A view of the rendered bytes. A buffer which grew past MAX_RETAINED_BUFFER is handed over to the
+         * view and replaced by a new one.
+         */
+        ByteBuffer release() {
+            final ByteBuffer view = ByteBuffer.wrap(bytes, 0, size);
+
+            if (bytes.length > MAX_RETAINED_BUFFER) {
+                bytes = new byte[1024];
+            }
+
+            return view;
+        }
+
+        void write(byte[] literal) {
+            ensureCapacity(size + literal.length);
+            System.arraycopy(literal, 0, bytes, size, literal.length);
+            size += literal.length;
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeAscii(String s) {
+            ensureCapacity(size + s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[size++] = (byte) s.charAt(i);
+            }
+        }
+
+        void writeEscaped(String s, SlotType type) {
+            // Escaped characters take at most 6 bytes, any other char at most 3 bytes of UTF-8.
+            ensureCapacity(size + 6 * s.length());
+
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+
+                if (c < 0x80) {
+                    writeEscapedAscii(c, type);
+                } else if (c < 0x800) {
+                    bytes[size++] = (byte) (0xc0 | c >> 6);
+                    bytes[size++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    bytes[size++] = (byte) (0xf0 | codePoint >> 18);
+                    bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    bytes[size++] = (byte) (0x80 | codePoint & 0x3f);
+                } else if (Character.isSurrogate(c) || (c >= 0xfffe && type != SlotType.JSON_STRING && type != SlotType.TEXT)) {
+                    // Unpaired surrogates cannot be encoded, U+FFFE and U+FFFF are not xml characters.
+                    writeReplacement(type);
+                } else {
+                    bytes[size++] = (byte) (0xe0 | c >> 12);
+                    bytes[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    bytes[size++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+        }
+
+        private void writeEscapedAscii(char c, SlotType type) {
+            switch (type) {
+                case JSON_STRING:
+                    if (c == '"' || c == '\\') {
+                        bytes[size++] = '\\';
+                        bytes[size++] = (byte) c;
+                    } else if (c == '\n') {
+                        bytes[size++] = '\\';
+                        bytes[size++] = 'n';
+                    } else if (c == '\r') {
+                        bytes[size++] = '\\';
+                        bytes[size++] = 'r';
+                    } else if (c == '\t') {
+                        bytes[size++] = '\\';
+                        bytes[size++] = 't';
+                    } else if (c < 0x20 || c == 0x7f) {
+                        bytes[size++] = '\\';
+                        bytes[size++] = 'u';
+                        bytes[size++] = '0';
+                        bytes[size++] = '0';
+                        bytes[size++] = HEX[c >> 4];
+                        bytes[size++] = HEX[c & 0xf];
+                    } else {
+                        bytes[size++] = (byte) c;
+                    }
+                    break;
+                case XML_TEXT:
+                case XML_ATTRIBUTE:
+                    if (c == '&') {
+                        writeEntity("&amp;");
+                    } else if (c == '<') {
+                        writeEntity("&lt;");
+                    } else if (c == '>') {
+                        writeEntity("&gt;");
+                    } else if (type == SlotType.XML_ATTRIBUTE && c == '"') {
+                        writeEntity("&quot;");
+                    } else if (type == SlotType.XML_ATTRIBUTE && c == '\'') {
+                        writeEntity("&#39;");
+                    } else if (type == SlotType.XML_ATTRIBUTE && (c == '\n' || c == '\r' || c == '\t')) {
+                        // Attribute value normalization would turn these into spaces.
+                        writeEntity(c == '\n' ? "&#10;" : c == '\r' ? "&#13;" : "&#9;");
+                    } else if (c < 0x20 && c != '\n' && c != '\r' && c != '\t') {
+                        writeReplacement(type);
+                    } else {
+                        bytes[size++] = (byte) c;
+                    }
+                    break;
+                default:
+                    bytes[size++] = (byte) c;
+            }
+        }
+
+        private void writeEntity(String entity) {
+            for (int i = 0; i < entity.length(); i++) {
+                bytes[size++] = (byte) entity.charAt(i);
+            }
+        }
+
+        /**
+         * Writes U+FFFD, or the json escape for it, in place of a character the body cannot hold.
+         */
+        private void writeReplacement(SlotType type) {
+            if (type == SlotType.JSON_STRING) {
+                writeEntity("\\ufffd");
+            } else {
+                bytes[size++] = (byte) 0xef;
+                bytes[size++] = (byte) 0xbf;
+                bytes[size++] = (byte) 0xbd;
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.http.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Http client an HttpNotification instance sends through. A transport only makes single attempts: validation,
+ * compression, retries, circuit breakers, rate limits and metrics are handled by HttpNotification.
+ *
+ * The default transport is built on the pooled Apache clients, configured through the HttpNotification builder.
+ * On JDK 11 and later, JdkHttpTransport sends through java.net.http.HttpClient with HTTP/2 multiplexing.
+ *
+ * Transports must be safe for use by multiple threads. They are closed with the HttpNotification instance using them.
+ */
+public interface NotificationTransport extends Closeable {
+
+    /**
+     * Sends a request, blocking until the receiver's response has been read.
+     *
+     * @param request The request to send.
+     * @return The receiver's response.
+     * @throws IOException If the request could not be delivered or the response could not be read.
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+     * Sends a request without blocking the caller.
+     *
+     * @param request The request to send.
+     * @return A future holding the receiver's response. It completes exceptionally with an IOException if the request
+     * could not be delivered, or with an HttpNotificationException if the transport is closed.
+     */
+    CompletableFuture<TransportResponse> executeAsync(TransportRequest request);
+
+    /**
+     * Opens connections to a receiver ahead of its first notification, including their TLS handshakes. Transports
+     * which cannot open connections ahead of time open none.
+     *
+     * @param uri               The receiver's url.
+     * @param connections       Number of connections to open.
+     * @param connectionTimeout Time in milliseconds to wait for each connection.
+     * @return Number of connections opened.
+     * @throws IOException If a connection could not be opened.
+     */
+    default int warmUp(URI uri, int connections, long connectionTimeout) throws IOException {
+        return 0;
+    }
+}
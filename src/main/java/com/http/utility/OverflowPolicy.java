@@ -0,0 +1,28 @@
+package com.http.utility;
+
+/**
+ * Controls what happens to a notification enqueued while the fire-and-forget queue is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The calling thread waits until a dispatcher frees a slot. This is the default.
+     */
+    BLOCK,
+
+    /**
+     * The enqueued notification is dropped, the queued ones are kept.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest queued notification is dropped to make room for the enqueued one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The enqueued notification is handed to the overflow handler on the calling thread, e.g. to persist it in a
+     * DurableNotificationQueue. Without a handler the notification is dropped.
+     */
+    SPILL
+}
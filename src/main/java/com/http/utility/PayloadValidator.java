@@ -0,0 +1,311 @@
+package com.http.utility;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming well-formedness checks for notification bodies. The payload is tokenized once and no document tree is
+ * kept in memory, so validation cost stays flat in heap regardless of the body size.
+ */
+final class PayloadValidator {
+
+    /*
+        StAX factories are thread safe once configured. DTDs and external entities are disabled, a notification
+        body never needs them to be well formed.
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    private PayloadValidator() {
+    }
+
+    /**
+     * Determines if the given body holds exactly one json value. Parsing is lenient, as with Gson.
+     *
+     * @param json The json body.
+     * @return True if well formed, False if not.
+     */
+    static boolean isWellFormedJson(Reader json) {
+        try (JsonReader reader = new JsonReader(json)) {
+            reader.setLenient(true);
+            reader.skipValue();
+
+            return reader.peek() == JsonToken.END_DOCUMENT;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Determines if the given body is a well formed xml document.
+     *
+     * @param xml The xml body.
+     * @return True if well formed, False if not.
+     */
+    static boolean isWellFormedXml(Reader xml) {
+        try {
+            return isWellFormedXml(XML_INPUT_FACTORY.createXMLStreamReader(xml));
+        } catch (XMLStreamException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Determines if the given body is a well formed xml document. The encoding is taken from the xml declaration,
+     * UTF-8 if there is none.
+     *
+     * @param xml The xml body.
+     * @return True if well formed, False if not.
+     */
+    static boolean isWellFormedXml(InputStream xml) {
+        try {
+            return isWellFormedXml(XML_INPUT_FACTORY.createXMLStreamReader(xml));
+        } catch (XMLStreamException e) {
+            return false;
+        }
+    }
+
+    private static boolean isWellFormedXml(XMLStreamReader reader) {
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+
+            return true;
+        } catch (XMLStreamException e) {
+            return false;
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // nothing left to release
+            }
+        }
+    }
+
+    /**
+     * Validates the body of the given content type according to the validation mode.
+     *
+     * @param mode        The validation mode in use.
+     * @param contentType The content type of the body.
+     * @param body        The notification body.
+     * @return True if valid, False if not.
+     */
+    static boolean isValid(ValidationMode mode, NotificationContentType contentType, String body) {
+        if (contentType == NotificationContentType.JSON) {
+            return mode == ValidationMode.FULL ? isWellFormedJson(new StringReader(body)) : mode != ValidationMode.SYNTAX_ONLY || hasJsonDelimiters(body);
+        } else if (contentType == NotificationContentType.XML) {
+            return mode == ValidationMode.FULL ? isWellFormedXml(new StringReader(body)) : mode != ValidationMode.SYNTAX_ONLY || hasXmlDelimiters(body);
+        }
+
+        return true;
+    }
+
+    /**
+     * Validates a UTF-8 encoded body of the given content type according to the validation mode, reading the bytes
+     * in place. The position of the buffer is left untouched.
+     *
+     * @param mode        The validation mode in use.
+     * @param contentType The content type of the body.
+     * @param body        The notification body.
+     * @return True if valid, False if not.
+     */
+    static boolean isValid(ValidationMode mode, NotificationContentType contentType, ByteBuffer body) {
+        if (contentType == NotificationContentType.TEXT || mode == ValidationMode.NONE) {
+            return true;
+        } else if (mode == ValidationMode.SYNTAX_ONLY) {
+            return hasDelimiters(contentType, edges(body));
+        } else if (contentType == NotificationContentType.JSON) {
+            return isWellFormedJson(new InputStreamReader(new ByteBufferInputStream(body.duplicate()), StandardCharsets.UTF_8));
+        }
+
+        return isWellFormedXml(new ByteBufferInputStream(body.duplicate()));
+    }
+
+    /**
+     * Validates a UTF-8 encoded file body of the given content type according to the validation mode, streaming it
+     * from the channel.
+     *
+     * @param mode        The validation mode in use.
+     * @param contentType The content type of the body.
+     * @param body        Channel of the file holding the notification body, positioned at its start.
+     * @return True if valid, False if not.
+     * @throws IOException
+     */
+    static boolean isValid(ValidationMode mode, NotificationContentType contentType, FileChannel body) throws IOException {
+        if (contentType == NotificationContentType.TEXT || mode == ValidationMode.NONE) {
+            return true;
+        } else if (mode == ValidationMode.SYNTAX_ONLY) {
+            return hasDelimiters(contentType, edges(body));
+        }
+
+        // The parsers close their input once done, which must not close the caller's channel.
+        final InputStream in = new BufferedInputStream(new FilterInputStream(Channels.newInputStream(body)) {
+            @Override
+            public void close() {
+            }
+        }, ResponseDrain.BUFFER_SIZE);
+
+        if (contentType == NotificationContentType.JSON) {
+            return isWellFormedJson(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        return isWellFormedXml(in);
+    }
+
+    private static boolean hasDelimiters(NotificationContentType contentType, CharSequence edges) {
+        return contentType == NotificationContentType.JSON ? hasJsonDelimiters(edges) : hasXmlDelimiters(edges);
+    }
+
+    /**
+     * @return The first and last non whitespace bytes of the buffer as characters, one character if they are the
+     * same byte, none if the buffer is blank.
+     */
+    private static CharSequence edges(ByteBuffer body) {
+        int first = body.position();
+        int last = body.limit() - 1;
+
+        while (first <= last && isWhitespace(body.get(first))) {
+            first++;
+        }
+        while (last > first && isWhitespace(body.get(last))) {
+            last--;
+        }
+
+        return edges(first <= last ? body.get(first) & 0xff : -1, last > first ? body.get(last) & 0xff : -1);
+    }
+
+    /**
+     * @return The first and last non whitespace bytes of the file as characters, see {@link #edges(ByteBuffer)}.
+     */
+    private static CharSequence edges(FileChannel body) throws IOException {
+        final ByteBuffer block = ByteBuffer.allocate(512);
+        final long size = body.size();
+        long first = -1L;
+        long last = -1L;
+        byte firstByte = 0;
+        byte lastByte = 0;
+
+        for (long position = 0L; position < size && first < 0L; position += block.capacity()) {
+            block.clear();
+            body.read(block, position);
+            for (int i = 0; i < block.position(); i++) {
+                if (!isWhitespace(block.get(i))) {
+                    first = position + i;
+                    firstByte = block.get(i);
+                    break;
+                }
+            }
+        }
+
+        for (long end = size; end > first + 1 && first >= 0L && last < 0L; end -= block.capacity()) {
+            long position = Math.max(first + 1, end - block.capacity());
+            block.clear();
+            block.limit((int) (end - position));
+            body.read(block, position);
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (!isWhitespace(block.get(i))) {
+                    last = position + i;
+                    lastByte = block.get(i);
+                    break;
+                }
+            }
+        }
+
+        return edges(first >= 0L ? firstByte & 0xff : -1, last >= 0L ? lastByte & 0xff : -1);
+    }
+
+    private static CharSequence edges(int first, int last) {
+        if (first < 0) {
+            return "";
+        }
+
+        return last < 0 ? String.valueOf((char) first) : new String(new char[]{(char) first, (char) last});
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * Cheap structural check for json: the outermost non whitespace characters must form an object, array or string,
+     * otherwise the body must start like a literal (number, true, false or null).
+     */
+    static boolean hasJsonDelimiters(CharSequence body) {
+        int first = firstNonWhitespace(body);
+        int last = lastNonWhitespace(body);
+
+        if (first < 0) {
+            return false;
+        }
+
+        char open = body.charAt(first);
+        char close = body.charAt(last);
+
+        switch (open) {
+            case '{':
+                return close == '}' && last > first;
+            case '[':
+                return close == ']' && last > first;
+            case '"':
+                return close == '"' && last > first;
+            case 't':
+            case 'f':
+            case 'n':
+            case '-':
+                return true;
+            default:
+                return open >= '0' && open <= '9';
+        }
+    }
+
+    /**
+     * Cheap structural check for xml: the body must open with '<' and close with '>'.
+     */
+    static boolean hasXmlDelimiters(CharSequence body) {
+        int first = firstNonWhitespace(body);
+
+        return first >= 0 && body.charAt(first) == '<' && body.charAt(lastNonWhitespace(body)) == '>';
+    }
+
+    private static int firstNonWhitespace(CharSequence body) {
+        for (int i = 0; i < body.length(); i++) {
+            if (!Character.isWhitespace(body.charAt(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int lastNonWhitespace(CharSequence body) {
+        for (int i = body.length() - 1; i >= 0; i--) {
+            if (!Character.isWhitespace(body.charAt(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
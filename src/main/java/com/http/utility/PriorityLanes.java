@@ -0,0 +1,200 @@
+package com.http.utility;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission of the notifications to one receiver by priority class, keeping the requests in flight within the
+ * receiver's share of the connection pool so that no notification waits inside the pool.
+ *
+ * Each class may have connections reserved for it: a class is admitted while the free connections exceed the unused
+ * reservations of the other classes. Notifications which are not admitted wait in a FIFO queue per class. A released
+ * connection goes to the head of the queue which waited longer than the starvation threshold, if any, or else to the
+ * next class in a smooth weighted round robin over the classes which may be admitted.
+ */
+class PriorityLanes {
+
+    private static final CompletableFuture<Void> ADMITTED = CompletableFuture.completedFuture(null);
+    private static final NotificationPriority[] PRIORITIES = NotificationPriority.values();
+
+    private final int capacity;
+    private final int[] reserved = new int[PRIORITIES.length];
+    private final int[] weights = new int[PRIORITIES.length];
+    private final long starvationThreshold;
+
+    private final int[] inFlight = new int[PRIORITIES.length];
+    private final int[] credits = new int[PRIORITIES.length];
+    private final List<ArrayDeque<Waiter>> queues = new ArrayList<>(PRIORITIES.length);
+    private int total;
+    private long promotions;
+
+    /**
+     * @param capacity            Number of notifications in flight at most.
+     * @param reserved            Connections reserved per class, indexed by ordinal. The reservations are granted in
+     *                            priority order and always leave at least one connection shared.
+     * @param weights             Weight of each class in the round robin, indexed by ordinal.
+     * @param starvationThreshold Time in milliseconds after which a waiting notification is admitted first.
+     */
+    PriorityLanes(int capacity, int[] reserved, int[] weights, long starvationThreshold) {
+        int unreserved = capacity - 1;
+
+        this.capacity = capacity;
+        this.starvationThreshold = TimeUnit.MILLISECONDS.toNanos(starvationThreshold);
+
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            this.reserved[i] = Math.max(Math.min(reserved[i], unreserved), 0);
+            this.weights[i] = Math.max(weights[i], 1);
+            unreserved -= this.reserved[i];
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Admits a notification of the given class, or queues it until a connection is released for it.
+     *
+     * @param priority The class of the notification.
+     * @return A future completing once the notification is admitted, which must then be released.
+     */
+    CompletableFuture<Void> acquire(NotificationPriority priority) {
+        final int lane = priority.ordinal();
+        final Waiter waiter;
+
+        synchronized (this) {
+            if (queues.get(lane).isEmpty() && admissible(lane)) {
+                admit(lane);
+                return ADMITTED;
+            }
+
+            waiter = new Waiter(System.nanoTime());
+            queues.get(lane).add(waiter);
+        }
+
+        return waiter;
+    }
+
+    /**
+     * Withdraws a notification which stopped waiting, or releases its connection if it was admitted meanwhile.
+     *
+     * @param priority The class of the notification.
+     * @param admission The future returned by acquire.
+     */
+    void abandon(NotificationPriority priority, CompletableFuture<Void> admission) {
+        synchronized (this) {
+            if (admission instanceof Waiter && queues.get(priority.ordinal()).remove(admission)) {
+                return;
+            }
+        }
+
+        release(priority);
+    }
+
+    /**
+     * Releases the connection of an admitted notification and admits the waiting notifications it makes room for.
+     *
+     * @param priority The class of the notification.
+     */
+    void release(NotificationPriority priority) {
+        final List<Waiter> admitted = new ArrayList<>(1);
+
+        synchronized (this) {
+            inFlight[priority.ordinal()]--;
+            total--;
+
+            int lane;
+            while ((lane = next()) >= 0) {
+                admitted.add(queues.get(lane).poll());
+                admit(lane);
+            }
+        }
+
+        for (Waiter waiter : admitted) {
+            waiter.complete(null);
+        }
+    }
+
+    synchronized int getInFlight(NotificationPriority priority) {
+        return inFlight[priority.ordinal()];
+    }
+
+    synchronized int getQueued(NotificationPriority priority) {
+        return queues.get(priority.ordinal()).size();
+    }
+
+    /**
+     * @return Number of notifications admitted ahead of their turn by the starvation guard.
+     */
+    synchronized long getPromotions() {
+        return promotions;
+    }
+
+    /**
+     * @return The class whose head notification is admitted next, -1 if none may be admitted.
+     */
+    private int next() {
+        final long now = System.nanoTime();
+        int starved = -1;
+        int picked = -1;
+        int weightSum = 0;
+
+        for (int lane = 0; lane < PRIORITIES.length; lane++) {
+            final Waiter head = queues.get(lane).peek();
+
+            if (head == null || !admissible(lane)) {
+                continue;
+            }
+            if (now - head.since >= starvationThreshold && (starved < 0 || head.since < queues.get(starved).peek().since)) {
+                starved = lane;
+            }
+
+            credits[lane] += weights[lane];
+            weightSum += weights[lane];
+
+            if (picked < 0 || credits[lane] > credits[picked]) {
+                picked = lane;
+            }
+        }
+
+        if (starved >= 0) {
+            // The round robin turn is spent on the starved class, so the guard does not skew the weights.
+            credits[starved] -= weightSum;
+            promotions++;
+            return starved;
+        } else if (picked >= 0) {
+            credits[picked] -= weightSum;
+        }
+
+        return picked;
+    }
+
+    private boolean admissible(int lane) {
+        if (total >= capacity) {
+            return false;
+        }
+
+        int heldForOthers = 0;
+        for (int other = 0; other < PRIORITIES.length; other++) {
+            if (other != lane) {
+                heldForOthers += Math.max(reserved[other] - inFlight[other], 0);
+            }
+        }
+
+        return capacity - total > heldForOthers;
+    }
+
+    private void admit(int lane) {
+        inFlight[lane]++;
+        total++;
+    }
+
+    private static class Waiter extends CompletableFuture<Void> {
+
+        private final long since;
+
+        Waiter(long since) {
+            this.since = since;
+        }
+    }
+}
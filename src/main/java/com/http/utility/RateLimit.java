@@ -0,0 +1,165 @@
+package com.http.utility;
+
+/**
+ * Limits the load put on a receiver: at most permitsPerSecond notifications per second, with bursts of up to burst
+ * notifications, and at most maxInFlight notifications awaiting a response at any time. Every attempt counts,
+ * retries included. What happens to a notification over the limit is decided by the policy.
+ *
+ * Limits are immutable and may be shared. Each host or url a limit is configured for gets its own counters.
+ */
+public class RateLimit {
+
+    /*
+        Plugin default rate limit settings. A rate or in-flight cap of 0 leaves it unlimited.
+     */
+    public static final Double DEFAULT_PERMITS_PER_SECOND = 0.0;
+    public static final Integer DEFAULT_BURST = 10;
+    public static final Integer DEFAULT_MAX_IN_FLIGHT = 0;
+    public static final Integer DEFAULT_MAX_QUEUED = 1000;
+    public static final Long DEFAULT_MAX_WAIT = 30000L;
+
+    private final Double permitsPerSecond;
+    private final Integer burst;
+    private final Integer maxInFlight;
+    private final RateLimitPolicy policy;
+    private final Integer maxQueued;
+    private final Long maxWait;
+
+    private RateLimit(Builder builder) {
+        this.permitsPerSecond = builder.permitsPerSecond != null && builder.permitsPerSecond > 0.0 ? builder.permitsPerSecond : DEFAULT_PERMITS_PER_SECOND;
+        this.burst = builder.burst != null && builder.burst > 0 ? builder.burst : DEFAULT_BURST;
+        this.maxInFlight = builder.maxInFlight != null && builder.maxInFlight > 0 ? builder.maxInFlight : DEFAULT_MAX_IN_FLIGHT;
+        this.policy = builder.policy != null ? builder.policy : RateLimitPolicy.BLOCK;
+        this.maxQueued = builder.maxQueued != null && builder.maxQueued > 0 ? builder.maxQueued : DEFAULT_MAX_QUEUED;
+        this.maxWait = builder.maxWait != null && builder.maxWait > 0L ? builder.maxWait : DEFAULT_MAX_WAIT;
+    }
+
+    /**
+     * Creates a builder for configuring a new RateLimit.
+     *
+     * @return A builder holding the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Sustained number of notifications per second, 0 if the rate is unlimited.
+     */
+    public Double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * @return Number of notifications which may be sent at once after an idle period.
+     */
+    public Integer getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return Number of notifications which may await a response at once, 0 if unlimited.
+     */
+    public Integer getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return What happens to a notification over the limit.
+     */
+    public RateLimitPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return Number of notifications which may wait in the queue with the QUEUE policy.
+     */
+    public Integer getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * @return Time in milliseconds a notification waits for the limit before it is rejected.
+     */
+    public Long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Builder for RateLimit instances. Settings which are left unset, or set to a non positive value, fall back to
+     * the plugin defaults.
+     */
+    public static class Builder {
+
+        private Double permitsPerSecond;
+        private Integer burst;
+        private Integer maxInFlight;
+        private RateLimitPolicy policy;
+        private Integer maxQueued;
+        private Long maxWait;
+
+        private Builder() {
+        }
+
+        /**
+         * @param permitsPerSecond Sustained number of notifications per second.
+         * @return This builder.
+         */
+        public Builder permitsPerSecond(Double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+            return this;
+        }
+
+        /**
+         * @param burst Number of notifications which may be sent at once after an idle period.
+         * @return This builder.
+         */
+        public Builder burst(Integer burst) {
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight Number of notifications which may await a response at once.
+         * @return This builder.
+         */
+        public Builder maxInFlight(Integer maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param policy What happens to a notification over the limit, BLOCK by default.
+         * @return This builder.
+         */
+        public Builder policy(RateLimitPolicy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * @param maxQueued Number of notifications which may wait in the queue with the QUEUE policy.
+         * @return This builder.
+         */
+        public Builder maxQueued(Integer maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /**
+         * @param maxWait Time in milliseconds a notification waits for the limit before it is rejected.
+         * @return This builder.
+         */
+        public Builder maxWait(Long maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * @return A new RateLimit.
+         */
+        public RateLimit build() {
+            return new RateLimit(this);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.http.utility;
+
+/**
+ * Controls what happens to a notification sent while its receiver's rate limit is exhausted.
+ */
+public enum RateLimitPolicy {
+
+    /**
+     * The calling thread waits until the notification may be sent, for at most maxWait milliseconds. This is the
+     * default. Retries, batches, bulk sends and the hedged or failed over copies of an endpoint group never block a
+     * thread, they wait in the limiter's queue.
+     */
+    BLOCK,
+
+    /**
+     * The notification waits in a queue of at most maxQueued notifications without blocking asynchronous callers. A
+     * notification arriving at a full queue is rejected.
+     */
+    QUEUE,
+
+    /**
+     * The notification is rejected immediately with an HttpNotificationException.
+     */
+    REJECT
+}
@@ -0,0 +1,272 @@
+package com.http.utility;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free enforcement of a RateLimit for one host or url.
+ *
+ * The token bucket is kept as the theoretical arrival time of the next notification (GCRA): a permit is granted when
+ * that time is no further ahead than the burst, and taking it moves the time one interval forward with a single
+ * compare-and-set. The in-flight cap is a counter incremented on acquire and decremented on release.
+ *
+ * Notifications which cannot be sent right away wait in a FIFO queue of futures. The queue is drained by whichever
+ * thread releases a permit, or by the timer wheel once the bucket has refilled, one drainer at a time. New
+ * notifications only bypass the queue while it is empty, so waiting notifications are not overtaken.
+ */
+class RateLimiter {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final String key;
+    private final RateLimit limit;
+    private final TimerWheel timer;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxInFlight;
+
+    private final AtomicLong nextFree = new AtomicLong(System.nanoTime());
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+
+    /**
+     * @param key   The host or url limited, used in error messages.
+     * @param limit The limit to enforce.
+     * @param timer Timer wheel used for refills and wait timeouts.
+     */
+    RateLimiter(String key, RateLimit limit, TimerWheel timer) {
+        this.key = key;
+        this.limit = limit;
+        this.timer = timer;
+        this.intervalNanos = limit.getPermitsPerSecond() > 0.0 ? (long) (TimeUnit.SECONDS.toNanos(1L) / limit.getPermitsPerSecond()) : 0L;
+        this.burstNanos = intervalNanos * limit.getBurst();
+        this.maxInFlight = limit.getMaxInFlight() > 0 ? limit.getMaxInFlight() : Integer.MAX_VALUE;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    RateLimitPolicy getPolicy() {
+        return limit.getPolicy();
+    }
+
+    /**
+     * @return Number of notifications awaiting a response.
+     */
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Number of notifications waiting for a permit.
+     */
+    int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Asks for a permit to send one notification. Every granted permit must be given back through
+     * {@link #release()} once the notification completed.
+     *
+     * @return A future completing once the permit is granted. It completes exceptionally with an
+     * HttpNotificationException if the notification is rejected or waited longer than maxWait.
+     */
+    CompletableFuture<Void> acquire() {
+        if (waiters.isEmpty() && tryAcquire()) {
+            return GRANTED;
+        }
+
+        if (limit.getPolicy() == RateLimitPolicy.REJECT) {
+            return failed("Error: Rate limit exceeded for " + key + ".");
+        }
+
+        if (limit.getPolicy() == RateLimitPolicy.QUEUE) {
+            int current;
+            do {
+                current = queued.get();
+                if (current >= limit.getMaxQueued()) {
+                    return failed("Error: Rate limit queue is full for " + key + ".");
+                }
+            } while (!queued.compareAndSet(current, current + 1));
+        } else {
+            queued.incrementAndGet();
+        }
+
+        final Waiter waiter = new Waiter();
+        waiters.add(waiter);
+
+        timer.schedule(limit.getMaxWait(), () -> {
+            if (waiter.claim()) {
+                waiter.completeExceptionally(new HttpNotificationException("Error: Timed out waiting for the rate limit of " + key + "."));
+            }
+        });
+
+        drain();
+
+        return waiter;
+    }
+
+    /**
+     * Gives up on a permit which is no longer wanted, whether it was granted yet or not.
+     *
+     * @param permit A future returned by {@link #acquire()}.
+     */
+    void abandon(CompletableFuture<Void> permit) {
+        if (permit instanceof Waiter && ((Waiter) permit).claim()) {
+            permit.cancel(false);
+        } else if (!permit.isCompletedExceptionally()) {
+            release();
+        }
+    }
+
+    /**
+     * Gives back a granted permit, letting the next waiting notification through.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+
+        if (!waiters.isEmpty()) {
+            drain();
+        }
+    }
+
+    /**
+     * @return True if a permit was taken, both from the in-flight cap and from the bucket.
+     */
+    private boolean tryAcquire() {
+        if (!tryAcquireSlot()) {
+            return false;
+        }
+        if (tokenWait(System.nanoTime()) > 0L) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean tryAcquireSlot() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    /**
+     * Takes a token from the bucket if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the time in nanoseconds until the next one is available.
+     */
+    private long tokenWait(long now) {
+        if (intervalNanos == 0L) {
+            return 0L;
+        }
+
+        for (; ; ) {
+            long next = nextFree.get();
+            long base = next - now > 0L ? next : now;
+            long wait = base + intervalNanos - burstNanos - now;
+
+            if (wait > 0L) {
+                return wait;
+            }
+            if (nextFree.compareAndSet(next, base + intervalNanos)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * Grants permits to waiting notifications in order, for as long as permits are available. Only one thread drains
+     * at a time, a thread arriving while another drains makes it run one more round instead.
+     */
+    private void drain() {
+        if (drainers.getAndIncrement() != 0) {
+            return;
+        }
+
+        do {
+            Waiter waiter;
+
+            while ((waiter = waiters.peek()) != null) {
+                if (waiter.isClaimed()) {
+                    // Timed out or abandoned.
+                    waiters.poll();
+                    continue;
+                }
+                if (!tryAcquireSlot()) {
+                    // The next release drains again.
+                    break;
+                }
+
+                long wait = tokenWait(System.nanoTime());
+                if (wait > 0L) {
+                    inFlight.decrementAndGet();
+                    scheduleRefill(wait);
+                    break;
+                }
+
+                waiters.poll();
+                if (waiter.claim()) {
+                    waiter.complete(null);
+                } else {
+                    inFlight.decrementAndGet();
+                }
+            }
+        } while (drainers.decrementAndGet() != 0);
+    }
+
+    private void scheduleRefill(long waitNanos) {
+        if (refillScheduled.compareAndSet(false, true)) {
+            timer.schedule(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(waitNanos + 999999L)), () -> {
+                refillScheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    /**
+     * A queued permit. Granting, timing out and abandoning race for the waiter, only the one claiming it completes it.
+     */
+    private final class Waiter extends CompletableFuture<Void> {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        /**
+         * @return True if the caller claimed the waiter and must complete it, False if it was claimed already.
+         */
+        boolean claim() {
+            if (claimed.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                return true;
+            }
+
+            return false;
+        }
+
+        boolean isClaimed() {
+            return claimed.get();
+        }
+    }
+
+    private static CompletableFuture<Void> failed(String message) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new HttpNotificationException(message));
+        return future;
+    }
+}
@@ -0,0 +1,24 @@
+package com.http.utility;
+
+/**
+ * Content codings a notification body may be compressed with, for receivers which accept compressed requests.
+ */
+public enum RequestCompression {
+
+    NONE(null),
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String value;
+
+    RequestCompression(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return The content coding, as sent in the Content-Encoding header, or null for NONE.
+     */
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.http.utility;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads receiver responses without materializing their bodies. The body is pulled through a per-thread buffer of
+ * fixed size, which returns the connection to the pool for reuse, and at most captureLimit bytes are kept.
+ */
+final class ResponseDrain {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static final ThreadLocal<ByteBuffer> NIO_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    private ResponseDrain() {
+    }
+
+    /**
+     * Reads the given body stream to its end.
+     *
+     * @param in           The response body, may be null if the response has none.
+     * @param captureLimit Maximum number of bytes to keep, 0 to keep nothing.
+     * @return The captured prefix of the body decoded as UTF-8, or null if nothing was captured.
+     * @throws IOException
+     */
+    static String drain(InputStream in, int captureLimit) throws IOException {
+        if (in == null) {
+            return null;
+        }
+
+        final byte[] buffer = BUFFER.get();
+        final ByteArrayOutputStream captured = captureLimit > 0 ? new ByteArrayOutputStream(Math.min(captureLimit, BUFFER_SIZE)) : null;
+
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (captured != null && captured.size() < captureLimit) {
+                captured.write(buffer, 0, Math.min(read, captureLimit - captured.size()));
+            }
+        }
+
+        return captured != null ? new String(captured.toByteArray(), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * @param response The receiver's response.
+     * @return The delay in milliseconds asked for by the Retry-After header, or null if the response has none.
+     */
+    static Long retryAfter(HttpResponse response) {
+        final Header header = response.getFirstHeader("Retry-After");
+
+        return header != null ? RetryPolicy.parseRetryAfter(header.getValue()) : null;
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #drain(InputStream, int)}, consuming the response on the I/O dispatcher
+     * thread as content arrives.
+     */
+    static class Consumer extends AbstractAsyncResponseConsumer<TransportResponse> {
+
+        private final int captureLimit;
+        private final boolean captureSuccess;
+
+        private Integer statusCode;
+        private String statusText;
+        private Long retryAfter;
+        private ByteArrayOutputStream captured;
+
+        /**
+         * @param captureLimit   Maximum number of bytes to keep, 0 to keep nothing.
+         * @param captureSuccess Whether to keep the body of successful responses too, or only of error responses.
+         */
+        Consumer(int captureLimit, boolean captureSuccess) {
+            this.captureLimit = captureLimit;
+            this.captureSuccess = captureSuccess;
+        }
+
+        @Override
+        protected void onResponseReceived(HttpResponse response) {
+            statusCode = response.getStatusLine().getStatusCode();
+            statusText = response.getStatusLine().getReasonPhrase();
+            retryAfter = retryAfter(response);
+
+            if (captureLimit > 0 && (captureSuccess || statusCode >= 300)) {
+                captured = new ByteArrayOutputStream(Math.min(captureLimit, BUFFER_SIZE));
+            }
+        }
+
+        @Override
+        protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        }
+
+        @Override
+        protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+            final ByteBuffer buffer = NIO_BUFFER.get();
+
+            int read;
+            while ((read = decoder.read(buffer)) > 0) {
+                if (captured != null && captured.size() < captureLimit) {
+                    captured.write(buffer.array(), 0, Math.min(read, captureLimit - captured.size()));
+                }
+                buffer.clear();
+            }
+            buffer.clear();
+        }
+
+        @Override
+        protected TransportResponse buildResult(HttpContext context) {
+            return new TransportResponse(statusCode, statusText, captured != null ? new String(captured.toByteArray(), StandardCharsets.UTF_8) : null, retryAfter);
+        }
+
+        @Override
+        protected void releaseResources() {
+            captured = null;
+        }
+    }
+}
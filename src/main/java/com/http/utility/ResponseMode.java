@@ -0,0 +1,20 @@
+package com.http.utility;
+
+/**
+ * Controls how the body of a receiver's response is handled. Only the status line is ever used to decide the outcome
+ * of a notification.
+ */
+public enum ResponseMode {
+
+    /**
+     * The response body is read fully into memory and attached to error status exceptions.
+     */
+    BUFFER,
+
+    /**
+     * The response body is drained through a fixed-size buffer, so the connection stays reusable without holding the
+     * body on the heap. At most responseCaptureLimit bytes are kept, and only for error status codes. This is the
+     * default.
+     */
+    DISCARD
+}
@@ -0,0 +1,317 @@
+package com.http.utility;
+
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed notification is attempted again, and after which delay.
+ *
+ * Retries back off exponentially from initialBackoff, multiplied by multiplier per attempt and capped at maxBackoff.
+ * Each delay is shortened by a random part of up to jitter (a fraction between 0 and 1) so that senders which failed
+ * together do not retry together. A receiver's Retry-After header is honoured as a lower bound for the delay, a
+ * Retry-After longer than maxRetryAfter gives up instead.
+ *
+ * Policies are immutable and may be shared between HttpNotification instances.
+ */
+public class RetryPolicy {
+
+    /*
+        Plugin default retry settings.
+     */
+    public static final Integer DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Long DEFAULT_INITIAL_BACKOFF = 100L;
+    public static final Long DEFAULT_MAX_BACKOFF = 30000L;
+    public static final Double DEFAULT_MULTIPLIER = 2.0;
+    public static final Double DEFAULT_JITTER = 0.5;
+    public static final Long DEFAULT_MAX_RETRY_AFTER = 60000L;
+    public static final Collection<Integer> DEFAULT_RETRYABLE_STATUS_CLASSES = Collections.singletonList(5);
+    public static final Collection<Integer> DEFAULT_RETRYABLE_STATUS_CODES = Arrays.asList(408, 429);
+
+    /*
+        Policy attempting each notification once, the plugin default.
+     */
+    public static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+    private final Integer maxAttempts;
+    private final Long initialBackoff;
+    private final Long maxBackoff;
+    private final Double multiplier;
+    private final Double jitter;
+    private final Boolean respectRetryAfter;
+    private final Long maxRetryAfter;
+    private final Boolean retryTransportErrors;
+    private final BitSet retryableStatusCodes = new BitSet(600);
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts != null && builder.maxAttempts > 0 ? builder.maxAttempts : DEFAULT_MAX_ATTEMPTS;
+        this.initialBackoff = builder.initialBackoff != null && builder.initialBackoff > 0L ? builder.initialBackoff : DEFAULT_INITIAL_BACKOFF;
+        this.maxBackoff = builder.maxBackoff != null && builder.maxBackoff > 0L ? Math.max(builder.maxBackoff, this.initialBackoff) : Math.max(DEFAULT_MAX_BACKOFF, this.initialBackoff);
+        this.multiplier = builder.multiplier != null && builder.multiplier >= 1.0 ? builder.multiplier : DEFAULT_MULTIPLIER;
+        this.jitter = builder.jitter != null && builder.jitter >= 0.0 && builder.jitter <= 1.0 ? builder.jitter : DEFAULT_JITTER;
+        this.respectRetryAfter = builder.respectRetryAfter != null ? builder.respectRetryAfter : Boolean.TRUE;
+        this.maxRetryAfter = builder.maxRetryAfter != null && builder.maxRetryAfter > 0L ? builder.maxRetryAfter : DEFAULT_MAX_RETRY_AFTER;
+        this.retryTransportErrors = builder.retryTransportErrors != null ? builder.retryTransportErrors : Boolean.TRUE;
+
+        for (Integer statusClass : builder.retryableStatusClasses != null ? builder.retryableStatusClasses : DEFAULT_RETRYABLE_STATUS_CLASSES) {
+            if (statusClass != null && statusClass >= 1 && statusClass <= 5) {
+                retryableStatusCodes.set(statusClass * 100, statusClass * 100 + 100);
+            }
+        }
+        for (Integer statusCode : builder.retryableStatusCodes != null ? builder.retryableStatusCodes : DEFAULT_RETRYABLE_STATUS_CODES) {
+            if (statusCode != null && statusCode >= 100 && statusCode < 600) {
+                retryableStatusCodes.set(statusCode);
+            }
+        }
+    }
+
+    /**
+     * Creates a builder for configuring a new RetryPolicy.
+     *
+     * @return A builder holding the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Maximum number of attempts per notification, including the first one.
+     */
+    public Integer getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return Delay in milliseconds before the first retry.
+     */
+    public Long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @return Upper bound in milliseconds of the exponential backoff.
+     */
+    public Long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @return Factor the backoff grows by with each attempt.
+     */
+    public Double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * @return Fraction of each delay which is randomized.
+     */
+    public Double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @return Whether a receiver's Retry-After header is honoured.
+     */
+    public Boolean getRespectRetryAfter() {
+        return respectRetryAfter;
+    }
+
+    /**
+     * @return Longest Retry-After in milliseconds which is waited for, longer ones are not retried.
+     */
+    public Long getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    /**
+     * @return Whether notifications which could not be delivered at all are retried.
+     */
+    public Boolean getRetryTransportErrors() {
+        return retryTransportErrors;
+    }
+
+    /**
+     * @param statusCode The status code the receiver responded with, or null if the notification could not be delivered.
+     * @return True if a notification failing with the given status is worth another attempt.
+     */
+    public boolean isRetryable(Integer statusCode) {
+        if (statusCode == null) {
+            return retryTransportErrors;
+        }
+
+        return statusCode >= 0 && retryableStatusCodes.get(statusCode);
+    }
+
+    /**
+     * @param attempt    Number of attempts made so far.
+     * @param statusCode The status code of the last attempt, or null if it could not be delivered.
+     * @param retryAfter The receiver's Retry-After in milliseconds, or null if it sent none.
+     * @return True if another attempt should be made.
+     */
+    public boolean shouldRetry(int attempt, Integer statusCode, Long retryAfter) {
+        if (attempt >= maxAttempts || !isRetryable(statusCode)) {
+            return false;
+        }
+
+        return !respectRetryAfter || retryAfter == null || retryAfter <= maxRetryAfter;
+    }
+
+    /**
+     * @param attempt    Number of attempts made so far.
+     * @param retryAfter The receiver's Retry-After in milliseconds, or null if it sent none.
+     * @return Delay in milliseconds before the next attempt.
+     */
+    public long delay(int attempt, Long retryAfter) {
+        final double backoff = Math.min(initialBackoff * Math.pow(multiplier, Math.max(0, attempt - 1)), maxBackoff);
+        final long delay = (long) (backoff * (1.0 - jitter * ThreadLocalRandom.current().nextDouble()));
+
+        if (respectRetryAfter && retryAfter != null) {
+            return Math.max(delay, retryAfter);
+        }
+
+        return delay;
+    }
+
+    /**
+     * Parses a Retry-After header, given either in delta seconds or as an Http date.
+     *
+     * @param value The header value, may be null.
+     * @return The delay in milliseconds, or null if the value is missing or malformed.
+     */
+    static Long parseRetryAfter(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Math.max(0L, Long.parseLong(value.trim())) * 1000L;
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value.trim());
+
+            return date != null ? Math.max(0L, date.getTime() - System.currentTimeMillis()) : null;
+        }
+    }
+
+    /**
+     * Builder for RetryPolicy instances. Settings which are left unset, or set to an out of range value, fall back to
+     * the plugin defaults.
+     */
+    public static class Builder {
+
+        private Integer maxAttempts;
+        private Long initialBackoff;
+        private Long maxBackoff;
+        private Double multiplier;
+        private Double jitter;
+        private Boolean respectRetryAfter;
+        private Long maxRetryAfter;
+        private Boolean retryTransportErrors;
+        private Collection<Integer> retryableStatusClasses;
+        private Collection<Integer> retryableStatusCodes;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxAttempts Maximum number of attempts per notification, including the first one.
+         * @return This builder.
+         */
+        public Builder maxAttempts(Integer maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param initialBackoff Delay in milliseconds before the first retry.
+         * @return This builder.
+         */
+        public Builder initialBackoff(Long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * @param maxBackoff Upper bound in milliseconds of the exponential backoff.
+         * @return This builder.
+         */
+        public Builder maxBackoff(Long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * @param multiplier Factor the backoff grows by with each attempt, at least 1.
+         * @return This builder.
+         */
+        public Builder multiplier(Double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * @param jitter Fraction of each delay which is randomized, between 0 and 1.
+         * @return This builder.
+         */
+        public Builder jitter(Double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * @param respectRetryAfter Whether a receiver's Retry-After header is honoured.
+         * @return This builder.
+         */
+        public Builder respectRetryAfter(Boolean respectRetryAfter) {
+            this.respectRetryAfter = respectRetryAfter;
+            return this;
+        }
+
+        /**
+         * @param maxRetryAfter Longest Retry-After in milliseconds which is waited for, longer ones are not retried.
+         * @return This builder.
+         */
+        public Builder maxRetryAfter(Long maxRetryAfter) {
+            this.maxRetryAfter = maxRetryAfter;
+            return this;
+        }
+
+        /**
+         * @param retryTransportErrors Whether notifications which could not be delivered at all are retried.
+         * @return This builder.
+         */
+        public Builder retryTransportErrors(Boolean retryTransportErrors) {
+            this.retryTransportErrors = retryTransportErrors;
+            return this;
+        }
+
+        /**
+         * @param retryableStatusClasses Status classes which are retried, e.g. 5 for every 5xx status code.
+         * @return This builder.
+         */
+        public Builder retryableStatusClasses(Collection<Integer> retryableStatusClasses) {
+            this.retryableStatusClasses = retryableStatusClasses;
+            return this;
+        }
+
+        /**
+         * @param retryableStatusCodes Individual status codes which are retried, in addition to the status classes.
+         * @return This builder.
+         */
+        public Builder retryableStatusCodes(Collection<Integer> retryableStatusCodes) {
+            this.retryableStatusCodes = retryableStatusCodes;
+            return this;
+        }
+
+        /**
+         * @return A new RetryPolicy.
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.http.utility;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timer wheel scheduling delayed tasks, such as notification retries, on a single daemon thread.
+ *
+ * Scheduling only enqueues the task, the wheel thread moves new tasks into their bucket on the next tick and runs
+ * the tasks of the current bucket whose deadline has passed. Scheduling and expiring are O(1), which keeps thousands of
+ * pending retries cheap, at the cost of a precision of one tick. Tasks run on the wheel thread and must not block.
+ */
+final class TimerWheel {
+
+    private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final long tickNanos;
+    private final int mask;
+    private final String threadName;
+
+    private final List<ArrayDeque<Timeout>> buckets;
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+
+    private volatile Thread worker;
+    private long startTime;
+
+    /**
+     * @param tickMillis Duration of one tick in milliseconds.
+     * @param wheelSize  Number of buckets, rounded up to a power of two.
+     * @param threadName Name of the wheel thread, started on first use.
+     */
+    TimerWheel(long tickMillis, int wheelSize, String threadName) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.threadName = threadName;
+        this.buckets = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Schedules a task to run once the given delay has elapsed.
+     *
+     * @param delayMillis Delay in milliseconds.
+     * @param task        The task, run on the wheel thread.
+     */
+    void schedule(long delayMillis, Runnable task) {
+        start();
+
+        incoming.add(new Timeout(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delayMillis)), task));
+    }
+
+    /**
+     * @param delayMillis Delay in milliseconds.
+     * @return A future completing once the given delay has elapsed.
+     */
+    CompletableFuture<Void> delay(long delayMillis) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        schedule(delayMillis, () -> future.complete(null));
+
+        return future;
+    }
+
+    private void start() {
+        if (worker == null) {
+            synchronized (this) {
+                if (worker == null) {
+                    startTime = System.nanoTime();
+
+                    Thread thread = new Thread(this::run, threadName);
+                    thread.setDaemon(true);
+                    thread.start();
+
+                    worker = thread;
+                }
+            }
+        }
+    }
+
+    private void run() {
+        long tick = 0L;
+
+        while (true) {
+            final long deadline = startTime + (tick + 1) * tickNanos;
+            long sleepNanos;
+
+            while ((sleepNanos = deadline - System.nanoTime()) > 0L) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    // the wheel runs for the lifetime of the JVM
+                }
+            }
+
+            transferIncoming(tick);
+            expire(buckets.get((int) (tick & mask)), deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Moves newly scheduled tasks into the bucket of the tick at which they expire.
+     */
+    private void transferIncoming(long currentTick) {
+        Timeout timeout;
+
+        while ((timeout = incoming.poll()) != null) {
+            long expiryTick = Math.max(currentTick, (timeout.deadline - startTime) / tickNanos);
+
+            timeout.rounds = (expiryTick - currentTick) / buckets.size();
+            buckets.get((int) (expiryTick & mask)).add(timeout);
+        }
+    }
+
+    private void expire(ArrayDeque<Timeout> bucket, long deadline) {
+        final Iterator<Timeout> iterator = bucket.iterator();
+
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+
+            if (timeout.rounds > 0L) {
+                timeout.rounds--;
+            } else if (timeout.deadline <= deadline) {
+                iterator.remove();
+
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Error: Scheduled task failed.", e);
+                }
+            }
+        }
+    }
+
+    private static class Timeout {
+
+        final long deadline;
+        final Runnable task;
+        long rounds;
+
+        Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.http.utility;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * One attempt at delivering a notification, handed to a {@link NotificationTransport}. The body has already been
+ * validated and, if the receiver opted in, compressed.
+ *
+ * The response settings tell the transport how much of the response body to keep: at most captureLimit bytes, of
+ * every response if captureSuccess is set, otherwise only of error responses.
+ */
+public final class TransportRequest {
+
+    private final URI uri;
+    private final NotificationMethod method;
+    private final NotificationContentType contentType;
+    private final HttpEntity entity;
+    private final Long connectionTimeout;
+    private final Long socketTimeout;
+    private final int captureLimit;
+    private final boolean captureSuccess;
+    private final String idempotencyKey;
+
+    TransportRequest(URI uri, NotificationMethod method, NotificationContentType contentType, HttpEntity entity, Long connectionTimeout, Long socketTimeout, int captureLimit, boolean captureSuccess, String idempotencyKey) {
+        this.uri = uri;
+        this.method = method;
+        this.contentType = contentType;
+        this.entity = entity;
+        this.connectionTimeout = connectionTimeout;
+        this.socketTimeout = socketTimeout;
+        this.captureLimit = captureLimit;
+        this.captureSuccess = captureSuccess;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public NotificationMethod getMethod() {
+        return method;
+    }
+
+    public NotificationContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The Content-Encoding of the body, or null if it is not compressed.
+     */
+    public String getContentEncoding() {
+        final Header header = entity.getContentEncoding();
+
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * @return The value of the Idempotency-Key header, or null if none is sent.
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * @return Length of the body in bytes, or -1 if it is only known once the body has been read.
+     */
+    public long getContentLength() {
+        return entity.isChunked() ? -1L : entity.getContentLength();
+    }
+
+    /**
+     * @return True if the body can be read more than once.
+     */
+    public boolean isRepeatable() {
+        return entity.isRepeatable();
+    }
+
+    /**
+     * @return A stream over the body. Repeatable bodies return a new stream on each call.
+     * @throws IOException
+     */
+    public InputStream getContent() throws IOException {
+        return entity.getContent();
+    }
+
+    /**
+     * Writes the body to the given stream.
+     *
+     * @param out The stream to write to, not closed.
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        entity.writeTo(out);
+    }
+
+    /**
+     * @return Connection timeout in milliseconds.
+     */
+    public Long getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * @return Socket timeout in milliseconds.
+     */
+    public Long getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     * @return Maximum number of response body bytes to keep.
+     */
+    public int getCaptureLimit() {
+        return captureLimit;
+    }
+
+    /**
+     * @return Whether to keep the body of successful responses too, or only of error responses.
+     */
+    public boolean isCaptureSuccess() {
+        return captureSuccess;
+    }
+
+    /**
+     * @param statusCode The status code of the response.
+     * @return Maximum number of bytes to keep of a response with the given status code.
+     */
+    public int captureLimit(int statusCode) {
+        return captureSuccess || statusCode >= 300 ? captureLimit : 0;
+    }
+
+    HttpEntity getEntity() {
+        return entity;
+    }
+}
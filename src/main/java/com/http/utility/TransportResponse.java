@@ -0,0 +1,42 @@
+package com.http.utility;
+
+/**
+ * The status line, captured body prefix and Retry-After delay of a receiver's response, as reported by a
+ * {@link NotificationTransport}.
+ */
+public class TransportResponse {
+
+    private final Integer statusCode;
+    private final String statusText;
+    private final String body;
+    private final Long retryAfter;
+
+    /**
+     * @param statusCode The Http status code of the response.
+     * @param statusText The Http status text of the response.
+     * @param body       The captured prefix of the response body decoded as UTF-8, null if nothing was captured.
+     * @param retryAfter The delay in milliseconds asked for by the Retry-After header, null if the response has none.
+     */
+    public TransportResponse(Integer statusCode, String statusText, String body, Long retryAfter) {
+        this.statusCode = statusCode;
+        this.statusText = statusText;
+        this.body = body;
+        this.retryAfter = retryAfter;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public String getStatusText() {
+        return statusText;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Long getRetryAfter() {
+        return retryAfter;
+    }
+}
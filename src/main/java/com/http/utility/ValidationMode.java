@@ -0,0 +1,24 @@
+package com.http.utility;
+
+/**
+ * Controls how much work is spent validating a notification before it is sent.
+ */
+public enum ValidationMode {
+
+    /**
+     * The url is validated and json and xml bodies are streamed end to end through a parser to check they are
+     * well formed. This is the default.
+     */
+    FULL,
+
+    /**
+     * The url is validated, but json and xml bodies are only checked for the opening and closing delimiters of
+     * their content type, without being parsed.
+     */
+    SYNTAX_ONLY,
+
+    /**
+     * Neither the url nor the body are inspected beyond being present. Meant for trusted producers.
+     */
+    NONE
+}
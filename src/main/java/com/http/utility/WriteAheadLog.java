@@ -0,0 +1,417 @@
+package com.http.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented, memory-mapped append-only log backing the durable notification queue.
+ *
+ * Each segment is a fixed size file mapped into memory. Records are laid out as
+ * [int length][int crc32][byte state][payload], a zero length marks the end of the written part of a segment.
+ * Records are acknowledged in place by rewriting their state byte, and a segment is deleted once it is full and none
+ * of its records is pending anymore.
+ *
+ * Appends only copy into the mapped segment. Durability is provided in groups by {@link #sync()}, which forces every
+ * dirty segment to disk and completes the futures of all records appended before it.
+ *
+ * Records are handed out to readers in append order through {@link #next(long)}, starting with the pending records
+ * of the segments found on disk when the log was opened.
+ */
+class WriteAheadLog implements Closeable {
+
+    static final byte STATE_PENDING = 0;
+    static final byte STATE_ACKNOWLEDGED = 1;
+    static final byte STATE_FAILED = 2;
+
+    static final int HEADER_SIZE = 9;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+
+    private int readSegment;
+    private int readOffset;
+
+    private List<CompletableFuture<RecordRef>> unsynced = new ArrayList<>();
+    private List<RecordRef> unsyncedRecords = new ArrayList<>();
+
+    private boolean closed;
+
+    /**
+     * Opens the log in the given directory, recovering the segments left by a previous run. New records are always
+     * appended to a fresh segment.
+     *
+     * @param directory   Directory holding the segment files, created if missing.
+     * @param segmentSize Size in bytes of each segment file.
+     * @throws IOException
+     */
+    WriteAheadLog(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+
+        long nextId = 0L;
+        for (Path file : files) {
+            Segment segment = recover(file);
+            nextId = Math.max(nextId, segment.id + 1);
+
+            if (segment.pending.get() > 0) {
+                segments.add(segment);
+            } else {
+                segment.delete();
+            }
+        }
+
+        roll(nextId);
+    }
+
+    /**
+     * Appends a record to the log.
+     *
+     * @param payload The record payload.
+     * @return A future completing with a reference to the record once it has been forced to disk.
+     * @throws IOException
+     */
+    synchronized CompletableFuture<RecordRef> append(byte[] payload) throws IOException {
+        if (closed) {
+            throw new IOException("Write ahead log is closed.");
+        }
+        if (payload.length + HEADER_SIZE + 4 > segmentSize) {
+            throw new IOException("Record of " + payload.length + " bytes exceeds the segment size.");
+        }
+        if (current.writeOffset + HEADER_SIZE + payload.length + 4 > segmentSize) {
+            roll(current.id + 1);
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        final ByteBuffer writer = current.writer;
+        final int offset = current.writeOffset;
+
+        writer.putInt(offset + 4, (int) crc.getValue());
+        writer.put(offset + 8, STATE_PENDING);
+        writer.position(offset + HEADER_SIZE);
+        writer.put(payload);
+        // The length is written last, a reader never sees a record before its payload is in place.
+        writer.putInt(offset, payload.length);
+
+        current.writeOffset = offset + HEADER_SIZE + payload.length;
+        current.pending.incrementAndGet();
+        current.dirty = true;
+
+        final RecordRef record = new RecordRef(current, offset);
+        final CompletableFuture<RecordRef> durable = new CompletableFuture<>();
+        unsynced.add(durable);
+        unsyncedRecords.add(record);
+
+        notifyAll();
+
+        return durable;
+    }
+
+    /**
+     * Forces every segment written since the previous sync to disk, then completes the futures of the records they
+     * hold. Called periodically, so that concurrent appends share one fsync.
+     */
+    void sync() {
+        final List<CompletableFuture<RecordRef>> futures;
+        final List<RecordRef> records;
+        final List<Segment> dirty = new ArrayList<>();
+
+        synchronized (this) {
+            futures = unsynced;
+            records = unsyncedRecords;
+            unsynced = new ArrayList<>();
+            unsyncedRecords = new ArrayList<>();
+
+            for (Segment segment : segments) {
+                if (segment.dirty) {
+                    segment.dirty = false;
+                    dirty.add(segment);
+                }
+            }
+        }
+
+        for (Segment segment : dirty) {
+            segment.buffer.force();
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            futures.get(i).complete(records.get(i));
+        }
+    }
+
+    /**
+     * Hands out the next pending record in append order, waiting for one to be appended if necessary.
+     *
+     * @param timeoutMillis Maximum time to wait for a record.
+     * @return The next pending record, or null if none was appended in time or the log is closed.
+     * @throws InterruptedException
+     */
+    synchronized RecordRef next(long timeoutMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        while (!closed) {
+            RecordRef record = advance();
+
+            if (record != null) {
+                return record;
+            }
+
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0L) {
+                return null;
+            }
+            wait(remaining);
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the payload of a record.
+     *
+     * @param record The record to read.
+     * @return A copy of the record payload.
+     */
+    byte[] read(RecordRef record) {
+        final ByteBuffer view = record.segment.buffer.duplicate();
+        final byte[] payload = new byte[view.getInt(record.offset)];
+
+        view.position(record.offset + HEADER_SIZE);
+        view.get(payload);
+
+        return payload;
+    }
+
+    /**
+     * Marks a record as acknowledged or failed, so it is not replayed after a restart. The record's segment is
+     * deleted once none of its records is pending anymore.
+     *
+     * @param record The record to complete.
+     * @param state  STATE_ACKNOWLEDGED or STATE_FAILED.
+     */
+    void complete(RecordRef record, byte state) {
+        final Segment segment = record.segment;
+        segment.buffer.put(record.offset + 8, state);
+        segment.dirty = true;
+
+        if (segment.pending.decrementAndGet() == 0) {
+            synchronized (this) {
+                if (segment != current && segment.pending.get() == 0) {
+                    delete(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of records which are neither acknowledged nor failed.
+     */
+    synchronized int pending() {
+        int pending = 0;
+
+        for (Segment segment : segments) {
+            pending += segment.pending.get();
+        }
+
+        return pending;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+
+        sync();
+
+        synchronized (this) {
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+        }
+    }
+
+    /**
+     * Moves the read cursor to the next pending record.
+     *
+     * @return The next pending record, or null if the cursor reached the end of the log.
+     */
+    private RecordRef advance() {
+        while (readSegment < segments.size()) {
+            final Segment segment = segments.get(readSegment);
+
+            if (readOffset + HEADER_SIZE <= segment.writeOffset) {
+                final int offset = readOffset;
+                final int length = segment.buffer.getInt(offset);
+                readOffset = offset + HEADER_SIZE + length;
+
+                if (segment.buffer.get(offset + 8) == STATE_PENDING) {
+                    return new RecordRef(segment, offset);
+                }
+            } else if (segment != current) {
+                readSegment++;
+                readOffset = 0;
+            } else {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts a new segment for appends.
+     */
+    private void roll(long id) throws IOException {
+        final Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        current = new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        segments.add(current);
+
+        if (segments.size() > 1) {
+            Segment previous = segments.get(segments.size() - 2);
+            if (previous.pending.get() == 0) {
+                delete(previous);
+            }
+        }
+    }
+
+    /**
+     * Drops a segment without pending records from the log, keeping the read cursor in place.
+     */
+    private void delete(Segment segment) {
+        final int index = segments.indexOf(segment);
+
+        if (index < 0) {
+            return;
+        }
+
+        segments.remove(index);
+        if (index < readSegment) {
+            readSegment--;
+        } else if (index == readSegment) {
+            readOffset = 0;
+        }
+
+        segment.delete();
+    }
+
+    /**
+     * Maps a segment left by a previous run and counts its pending records. Scanning stops at the first record with
+     * a zero length or a bad checksum, the rest of the segment is considered lost in a crash.
+     */
+    private Segment recover(Path file) throws IOException {
+        final String name = file.getFileName().toString();
+        final long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final Segment segment = new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        final MappedByteBuffer buffer = segment.buffer;
+
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+
+            if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(offset + HEADER_SIZE);
+            payload.limit(offset + HEADER_SIZE + length);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+
+            if (buffer.get(offset + 8) == STATE_PENDING) {
+                segment.pending.incrementAndGet();
+            }
+            offset += HEADER_SIZE + length;
+        }
+
+        segment.writeOffset = offset;
+
+        return segment;
+    }
+
+    /**
+     * Position of a record in the log.
+     */
+    static class RecordRef {
+
+        final Segment segment;
+        final int offset;
+
+        RecordRef(Segment segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+
+    static class Segment {
+
+        final long id;
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final ByteBuffer writer;
+        final AtomicInteger pending = new AtomicInteger();
+
+        volatile int writeOffset;
+        volatile boolean dirty;
+
+        Segment(long id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.writer = buffer.duplicate();
+        }
+
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // The segment holds no pending record, it is recovered as empty and deleted on the next start.
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class BodyCompressorTest {
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] json(int size) {
+        StringBuilder json = new StringBuilder("[");
+        while (json.length() < size) {
+            json.append("{\"name\":\"Ruben Gutierrez\", \"message\":\"This is a notification.\"},");
+        }
+        return json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        byte[] input = json(100000);
+        byte[] compressed = BodyCompressor.compress(RequestCompression.GZIP, input);
+
+        assert compressed.length < input.length / 10;
+        assert Arrays.equals(readFully(new GZIPInputStream(new ByteArrayInputStream(compressed))), input);
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws IOException {
+        byte[] input = json(100000);
+        byte[] compressed = BodyCompressor.compress(RequestCompression.DEFLATE, input);
+
+        assert compressed.length < input.length / 10;
+        assert Arrays.equals(readFully(new InflaterInputStream(new ByteArrayInputStream(compressed))), input);
+    }
+
+    @Test
+    public void testIncompressibleAndEmptyInput() throws IOException {
+        byte[] random = new byte[300000];
+        new Random(42).nextBytes(random);
+
+        for (RequestCompression compression : new RequestCompression[]{RequestCompression.GZIP, RequestCompression.DEFLATE}) {
+            for (byte[] input : new byte[][]{random, new byte[0], json(10)}) {
+                byte[] compressed = BodyCompressor.compress(compression, input);
+                InputStream in = compression == RequestCompression.GZIP ? new GZIPInputStream(new ByteArrayInputStream(compressed)) : new InflaterInputStream(new ByteArrayInputStream(compressed));
+
+                assert Arrays.equals(readFully(in), input);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeBodyAfterBufferRelease() throws IOException {
+        byte[] large = new byte[NotificationTemplate.MAX_RETAINED_BUFFER * 2];
+        new Random(7).nextBytes(large);
+
+        // The oversized buffer is handed off with the first body, the following ones start from a small buffer again.
+        for (byte[] input : new byte[][]{large, json(100), large, json(100000)}) {
+            byte[] compressed = BodyCompressor.compress(RequestCompression.GZIP, input);
+
+            assert Arrays.equals(readFully(new GZIPInputStream(new ByteArrayInputStream(compressed))), input);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+
+public class CachingDnsResolverTest {
+
+    @Test
+    public void testResolvedAddressesAreCached() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(60000L);
+
+        InetAddress[] first = resolver.resolve("127.0.0.1");
+        InetAddress[] second = resolver.resolve("127.0.0.1");
+
+        assert first.length > 0;
+        assert first == second;
+    }
+
+    @Test
+    public void testZeroTtlDisablesCaching() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(0L);
+
+        assert resolver.resolve("127.0.0.1") != resolver.resolve("127.0.0.1");
+    }
+}
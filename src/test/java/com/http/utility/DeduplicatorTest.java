@@ -0,0 +1,76 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class DeduplicatorTest {
+
+    private static ContentHash hash(String body) {
+        ContentHash hash = new ContentHash();
+        hash.update(body);
+        return hash;
+    }
+
+    @Test
+    public void testContentHash() {
+        String body = "{\"name\":\"R\u00fcben\", \"emoji\":\"\ud83d\ude00\"}";
+        ContentHash fromBytes = new ContentHash();
+        fromBytes.update(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+
+        assert hash(body).first() == fromBytes.first();
+        assert hash(body).second() == fromBytes.second();
+        assert hash(body).toKey().equals(fromBytes.toKey());
+        assert hash(body).toKey().matches("[0-9a-f]{32}");
+
+        assert !hash(body).toKey().equals(hash(body + " ").toKey());
+        assert !hash("ab").toKey().equals(hash("ba").toKey());
+        assert !hash("").toKey().equals(hash("\u0000").toKey());
+    }
+
+    @Test
+    public void testRecordAndForget() {
+        Deduplicator deduplicator = new Deduplicator(60000L, 100);
+
+        assert deduplicator.record(hash("a"));
+        assert !deduplicator.record(hash("a"));
+        assert deduplicator.record(hash("b"));
+
+        deduplicator.forget(hash("a"));
+        assert deduplicator.record(hash("a"));
+        assert !deduplicator.record(hash("a"));
+    }
+
+    @Test
+    public void testWindowExpires() throws InterruptedException {
+        Deduplicator deduplicator = new Deduplicator(50L, 100);
+
+        assert deduplicator.record(hash("a"));
+        assert !deduplicator.record(hash("a"));
+
+        Thread.sleep(80L);
+        assert deduplicator.record(hash("a"));
+    }
+
+    @Test
+    public void testBounded() {
+        Deduplicator deduplicator = new Deduplicator(60000L, 1000);
+
+        assert deduplicator.capacity() == 1024;
+
+        for (int i = 0; i < 10000; i++) {
+            assert deduplicator.record(hash("notification " + i));
+        }
+
+        int remembered = 0;
+        for (int i = 9999; i >= 9500; i--) {
+            if (!deduplicator.record(hash("notification " + i))) {
+                remembered++;
+            }
+        }
+        // The most recent notifications are mostly remembered, older ones were evicted to keep the bound.
+        assert remembered > 350;
+        assert deduplicator.record(hash("notification 0"));
+    }
+}
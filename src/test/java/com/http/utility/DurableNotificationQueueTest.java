@@ -0,0 +1,137 @@
+package com.http.utility;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class DurableNotificationQueueTest {
+
+    private final String valid_json = "{\"name\":\"Ruben Gutierrez\", \"message\":\"This is a notification.\"}";
+    private final String invalid_json = "{\"name\"::::\"Ruben Gutierrez\", \"message\":\"This is a notification.\"}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException exceptionRule = ExpectedException.none();
+
+    private void awaitDelivery(DurableNotificationQueue queue) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+
+        while (queue.getPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+    }
+
+    @Test
+    public void testSubmittedNotificationsAreDelivered() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().build();
+             DurableNotificationQueue queue = DurableNotificationQueue.builder(notification, folder.getRoot().toPath()).segmentSize(4096).build()) {
+
+            List<CompletableFuture<Void>> persisted = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                persisted.add(queue.submit(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json));
+            }
+            for (CompletableFuture<Void> future : persisted) {
+                future.get();
+            }
+
+            awaitDelivery(queue);
+
+            assert queue.getPending() == 0;
+            assert receiver.getReceived() == 100;
+        }
+    }
+
+    @Test
+    public void testUndeliveredNotificationsAreReplayed() throws Exception {
+        Path directory = folder.getRoot().toPath();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().build()) {
+
+            receiver.setStatusCode(503);
+
+            try (DurableNotificationQueue queue = DurableNotificationQueue.builder(notification, directory).retryDelay(60000L).build()) {
+                queue.submit(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get();
+                queue.submit(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, valid_json).get();
+
+                while (receiver.getReceived() < 2) {
+                    Thread.sleep(10L);
+                }
+            }
+
+            receiver.setStatusCode(200);
+
+            try (DurableNotificationQueue queue = DurableNotificationQueue.builder(notification, directory).build()) {
+                awaitDelivery(queue);
+
+                assert queue.getPending() == 0;
+                assert receiver.getReceived() == 4;
+            }
+        }
+    }
+
+    @Test
+    public void testClientErrorsAreNotRetried() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().build();
+             DurableNotificationQueue queue = DurableNotificationQueue.builder(notification, folder.getRoot().toPath()).retryDelay(10L).build()) {
+
+            receiver.setStatusCode(400);
+
+            queue.submit(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get();
+            awaitDelivery(queue);
+
+            assert queue.getPending() == 0;
+            assert receiver.getReceived() == 1;
+        }
+    }
+
+    @Test
+    public void testReplayedInvalidNotificationsAreNotRetried() throws Exception {
+        Path directory = folder.getRoot().toPath();
+
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            receiver.setStatusCode(503);
+
+            try (HttpNotification notification = HttpNotification.builder().validationMode(ValidationMode.NONE).build();
+                 DurableNotificationQueue queue = DurableNotificationQueue.builder(notification, directory).retryDelay(60000L).build()) {
+                queue.submit(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, invalid_json).get();
+
+                while (receiver.getReceived() < 1) {
+                    Thread.sleep(10L);
+                }
+            }
+
+            // The stricter instance fails the replayed record instead of retrying it forever.
+            try (HttpNotification notification = HttpNotification.builder().build();
+                 DurableNotificationQueue queue = DurableNotificationQueue.builder(notification, directory).retryDelay(10L).build()) {
+                awaitDelivery(queue);
+
+                assert queue.getPending() == 0;
+                assert receiver.getReceived() == 1;
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidNotificationIsRejected() throws Exception {
+        try (HttpNotification notification = HttpNotification.builder().build();
+             DurableNotificationQueue queue = DurableNotificationQueue.builder(notification, folder.getRoot().toPath()).build()) {
+
+            exceptionRule.expect(ExecutionException.class);
+            exceptionRule.expectMessage("Error: Json is invalid.");
+
+            queue.submit("http://127.0.0.1:8080/post", HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, invalid_json).get();
+        }
+    }
+}
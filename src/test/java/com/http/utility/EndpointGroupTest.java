@@ -0,0 +1,287 @@
+package com.http.utility;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class EndpointGroupTest {
+
+    private final String valid_json = "{\"name\":\"Ruben Gutierrez\", \"message\":\"This is a notification.\"}";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static String unreachableUrl() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://127.0.0.1:" + socket.getLocalPort() + "/post";
+        }
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(receiver.url("/post"))
+                    .hedging(true)
+                    .hedgeDelay(-1L)
+                    .build();
+
+            assert group.getEndpoints().size() == 1;
+            assert !group.isHedging();
+            assert group.getHedgeDelay().equals(EndpointGroup.DEFAULT_HEDGE_DELAY);
+            assert group.getEjectionDuration().equals(EndpointGroup.DEFAULT_EJECTION_DURATION);
+            assert group.hedgeDelay() == EndpointGroup.DEFAULT_HEDGE_DELAY;
+
+            assert group.send(valid_json);
+            assert receiver.getReceived() == 1;
+        }
+    }
+
+    @Test
+    public void testRequiresUrls() throws Exception {
+        try (HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+            thrown.expect(HttpNotificationException.class);
+            thrown.expectMessage("Error: Endpoint group requires at least one URL.");
+
+            notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON).build();
+        }
+    }
+
+    @Test
+    public void testFailoverOnServerError() throws Exception {
+        try (LocalReceiver failing = new LocalReceiver();
+             LocalReceiver healthy = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            failing.setStatusCode(503);
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(failing.url("/post"))
+                    .url(healthy.url("/post"))
+                    .build();
+
+            for (int i = 0; i < 5; i++) {
+                assert group.sendAsync(valid_json).get().getStatusCode() == 200;
+            }
+
+            // The failing replica is ejected after its first failure and only tried again once it expires.
+            assert failing.getReceived() <= 1;
+            assert healthy.getReceived() == 5;
+            assert group.getFailovers() == failing.getReceived();
+        }
+    }
+
+    @Test
+    public void testFailoverOnUnreachableReplica() throws Exception {
+        try (LocalReceiver healthy = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(unreachableUrl())
+                    .url(healthy.url("/post"))
+                    .build();
+
+            for (int i = 0; i < 5; i++) {
+                assert group.send(valid_json);
+            }
+            assert healthy.getReceived() == 5;
+            assert group.getFailovers() <= 1;
+        }
+    }
+
+    @Test
+    public void testEveryReplicaFails() throws Exception {
+        try (LocalReceiver first = new LocalReceiver();
+             LocalReceiver second = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            first.setStatusCode(500);
+            second.setStatusCode(502);
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(first.url("/post"))
+                    .url(second.url("/post"))
+                    .build();
+
+            try {
+                group.sendAsync(valid_json).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert ((HttpNotificationException) e.getCause()).getStatusCode() >= 500;
+            }
+            assert first.getReceived() == 1 && second.getReceived() == 1;
+
+            EndpointGroup unreachable = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(unreachableUrl())
+                    .url(unreachableUrl())
+                    .build();
+            assert !unreachable.send(valid_json);
+        }
+    }
+
+    @Test
+    public void testClientErrorIsNotFailedOver() throws Exception {
+        try (LocalReceiver first = new LocalReceiver();
+             LocalReceiver second = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            first.setStatusCode(400);
+            second.setStatusCode(400);
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(first.url("/post"))
+                    .url(second.url("/post"))
+                    .build();
+
+            try {
+                group.send(valid_json);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getStatusCode() == 400;
+            }
+            assert first.getReceived() + second.getReceived() == 1;
+            assert group.getFailovers() == 0;
+        }
+    }
+
+    @Test
+    public void testPrefersFasterReplica() throws Exception {
+        try (LocalReceiver slow = new LocalReceiver();
+             LocalReceiver fast = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            slow.setResponseDelay(100L);
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(slow.url("/post"))
+                    .url(fast.url("/post"))
+                    .build();
+
+            for (int i = 0; i < 20; i++) {
+                assert group.send(valid_json);
+            }
+
+            // Each replica is tried once while its latency is unknown, the slow one is avoided afterwards.
+            assert slow.getReceived() == 1;
+            assert fast.getReceived() == 19;
+            assert group.load(0) > group.load(1);
+        }
+    }
+
+    @Test
+    public void testHedging() throws Exception {
+        try (LocalReceiver first = new LocalReceiver();
+             LocalReceiver second = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            second.setResponseDelay(150L);
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(first.url("/post"))
+                    .url(second.url("/post"))
+                    .hedging(true)
+                    .hedgeDelay(30L)
+                    .build();
+
+            assert group.isHedging();
+
+            // Both replicas respond once, the second one slowly.
+            for (int i = 0; i < 3; i++) {
+                assert group.send(valid_json);
+            }
+            Thread.sleep(300L);
+            assert second.getReceived() >= 1;
+            assert group.load(0) < group.load(1);
+
+            // The first replica turns slow: it is still picked, and the hedged copy to the second one wins.
+            first.setResponseDelay(400L);
+            second.setResponseDelay(0L);
+            long hedges = group.getHedges();
+            long start = System.nanoTime();
+
+            assert group.sendAsync(valid_json).get().getStatusCode() == 200;
+            assert System.nanoTime() - start < 300_000_000L;
+            assert group.getHedges() == hedges + 1;
+        }
+    }
+
+    @Test
+    public void testHedgedClientErrorWaitsForOtherCopy() throws Exception {
+        try (LocalReceiver first = new LocalReceiver();
+             LocalReceiver second = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            second.setResponseDelay(150L);
+
+            EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                    .url(first.url("/post"))
+                    .url(second.url("/post"))
+                    .hedging(true)
+                    .hedgeDelay(30L)
+                    .build();
+
+            for (int i = 0; i < 3; i++) {
+                assert group.send(valid_json);
+            }
+            Thread.sleep(300L);
+            assert group.load(0) < group.load(1);
+
+            // The hedged copy is rejected by the second replica while the first one is still sending a success.
+            first.setResponseDelay(200L);
+            second.setResponseDelay(0L);
+            second.setStatusCode(400);
+            long hedges = group.getHedges();
+
+            assert group.sendAsync(valid_json).get().getStatusCode() == 200;
+            assert group.getHedges() == hedges + 1;
+            assert group.getFailovers() == 0;
+        }
+    }
+
+    @Test
+    public void testHedgeWaitsForRateLimitWithoutBlockingTimer() throws Exception {
+        try (LocalReceiver first = new LocalReceiver();
+             LocalReceiver second = new LocalReceiver()) {
+
+            RateLimit limit = RateLimit.builder().permitsPerSecond(0.25).burst(1).maxWait(500L).build();
+
+            try (HttpNotification notification = HttpNotification.builder().rateLimit(second.url("/post"), limit).build()) {
+                second.setResponseDelay(150L);
+
+                EndpointGroup group = notification.endpointGroup(HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON)
+                        .url(first.url("/post"))
+                        .url(second.url("/post"))
+                        .hedging(true)
+                        .hedgeDelay(30L)
+                        .build();
+
+                // The second replica is tried once, which uses up its rate limit for the next four seconds.
+                for (int i = 0; i < 3; i++) {
+                    assert group.send(valid_json);
+                }
+                Thread.sleep(300L);
+                assert second.getReceived() == 1;
+                assert group.load(0) < group.load(1);
+
+                // The hedged copy to the second replica waits for its permit in the limiter's queue, not on the timer.
+                first.setResponseDelay(300L);
+                long hedges = group.getHedges();
+                CompletableFuture<NotificationResult> result = group.sendAsync(valid_json);
+
+                Thread.sleep(100L);
+                assert group.getHedges() == hedges + 1;
+                HttpNotification.TIMER_WHEEL.delay(10L).get(1, TimeUnit.SECONDS);
+
+                assert result.get().getStatusCode() == 200;
+                assert second.getReceived() == 1;
+            }
+        }
+    }
+}
@@ -4,6 +4,21 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 public class HttpNotificationTest {
 
     private final String blank_url = "";
@@ -211,4 +226,759 @@ public class HttpNotificationTest {
 
         assert notificationPlugin.getSocketTimeout() == 3000L;
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPostJsonNotificationAsync() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            NotificationResult result = notificationPlugin.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get();
+
+            assert result.getStatusCode() == 200;
+            assert receiver.getReceived() == 1;
+        } finally {
+            notificationPlugin.close();
+        }
+    }
+
+    @Test
+    public void testPutXmlNotificationAsync() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            NotificationResult result = notificationPlugin.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_XML, valid_xml).get();
+
+            assert result.getStatusCode() == 200;
+        } finally {
+            notificationPlugin.close();
+        }
+    }
+
+    @Test
+    public void testInvalidJsonNotificationAsync() throws Exception {
+        CompletableFuture<NotificationResult> future = notificationPlugin.sendNotificationAsync(valid_url_post, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, invalid_json);
+
+        exceptionRule.expect(ExecutionException.class);
+        exceptionRule.expectMessage("Error: Json is invalid.");
+
+        future.get();
+    }
+
+    @Test
+    public void testServerErrorNotificationAsync() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            receiver.setStatusCode(503);
+
+            CompletableFuture<NotificationResult> future = notificationPlugin.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+
+            exceptionRule.expect(ExecutionException.class);
+            exceptionRule.expectMessage("Error: Server responded with server error. Code: 503");
+
+            future.get();
+        } finally {
+            notificationPlugin.close();
+        }
+    }
+
+    @Test
+    public void testBuilderDefaults() throws Exception {
+        try (HttpNotification notification = HttpNotification.builder().build()) {
+            assert notification.getConnectionTimeout() == HttpNotification.DEFAULT_CONNECTION_TIMEOUT;
+            assert notification.getSocketTimeout() == HttpNotification.DEFAULT_SOCKET_TIMEOUT;
+            assert notification.getMaxConnectionsTotal() == HttpNotification.DEFAULT_MAX_CONNECTIONS_TOTAL;
+            assert notification.getMaxConnectionsPerRoute() == HttpNotification.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+            assert notification.getKeepAliveTtl() == HttpNotification.DEFAULT_KEEP_ALIVE_TTL;
+            assert notification.getIdleEviction() == HttpNotification.DEFAULT_IDLE_EVICTION;
+        }
+    }
+
+    @Test
+    public void testInstancesKeepTheirOwnSettings() throws Exception {
+        try (HttpNotification bulk = HttpNotification.builder().socketTimeout(120000L).maxConnectionsTotal(500).build();
+             HttpNotification latencySensitive = HttpNotification.builder().socketTimeout(2000L).maxConnectionsPerRoute(4).build()) {
+
+            assert bulk.getSocketTimeout() == 120000L;
+            assert bulk.getMaxConnectionsTotal() == 500;
+            assert latencySensitive.getSocketTimeout() == 2000L;
+            assert latencySensitive.getMaxConnectionsPerRoute() == 4;
+        }
+    }
+
+    @Test
+    public void testPostJsonNotificationPooled() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().maxConnectionsPerRoute(1).build()) {
+
+            for (int i = 0; i < 3; i++) {
+                assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            }
+
+            assert receiver.getReceived() == 3;
+        }
+    }
+
+    @Test
+    public void testBroadcastNotification() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().bulkConcurrency(4).build()) {
+
+            List<String> urls = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                urls.add(receiver.url("/subscriber/" + i));
+            }
+            urls.add(invalid_url);
+
+            List<DeliveryResult> results = notification.broadcast(urls, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+
+            assert results.size() == 21;
+            for (int i = 0; i < 20; i++) {
+                assert results.get(i).isSuccess();
+                assert results.get(i).getStatusCode() == 200;
+                assert results.get(i).getLatencyNanos() > 0L;
+            }
+            assert !results.get(20).isSuccess();
+            assert results.get(20).getError().getMessage().equals("Error: URL is invalid.");
+            assert receiver.getReceived() == 20;
+        }
+    }
+
+    @Test
+    public void testSendNotificationsReportsEachFailure() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            receiver.setStatusCode(500);
+
+            List<DeliveryResult> results = notificationPlugin.sendNotifications(Arrays.asList(
+                    new NotificationRequest(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, invalid_json),
+                    new NotificationRequest(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_XML, valid_xml)));
+
+            assert results.get(0).getError().getMessage().equals("Error: Json is invalid.");
+            assert results.get(1).getStatusCode() == 500;
+            assert results.get(1).getError().getMessage().startsWith("Error: Server responded with server error.");
+            assert receiver.getReceived() == 1;
+        } finally {
+            notificationPlugin.close();
+        }
+    }
+
+    @Test
+    public void testValidationModeNoneSkipsBodyValidation() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().validationMode(ValidationMode.NONE).build()) {
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, invalid_json);
+            assert receiver.getReceived() == 1;
+        }
+    }
+
+    @Test
+    public void testDiscardedResponseCapturesPrefixOnError() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().responseCaptureLimit(9).build()) {
+
+            receiver.setStatusCode(400);
+            receiver.setResponseBody("{\"error\":\"missing field\"}");
+
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getStatusCode() == 400;
+                assert e.getResponseBody().equals("{\"error\":");
+            }
+
+            try {
+                notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert ((HttpNotificationException) e.getCause()).getResponseBody().equals("{\"error\":");
+            }
+        }
+    }
+
+    @Test
+    public void testLargeResponsesAreDrained() throws Exception {
+        StringBuilder largeBody = new StringBuilder();
+        while (largeBody.length() < 1024 * 1024) {
+            largeBody.append(valid_json);
+        }
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().maxConnectionsPerRoute(1).build()) {
+
+            receiver.setResponseBody(largeBody.toString());
+
+            for (int i = 0; i < 5; i++) {
+                assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                assert notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get().getStatusCode() == 200;
+            }
+
+            assert receiver.getReceived() == 10;
+        }
+    }
+
+    @Test
+    public void testEndpointSend() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            Endpoint endpoint = notificationPlugin.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+
+            assert endpoint.getMethod() == NotificationMethod.POST;
+            assert endpoint.getContentType() == NotificationContentType.JSON;
+
+            for (int i = 0; i < 3; i++) {
+                assert endpoint.send(valid_json);
+            }
+            assert endpoint.sendAsync(valid_json).get().getStatusCode() == 200;
+            assert receiver.getReceived() == 4;
+        } finally {
+            notificationPlugin.close();
+        }
+    }
+
+    @Test
+    public void testEndpointInvalidURL() throws HttpNotificationException {
+        exceptionRule.expect(HttpNotificationException.class);
+        exceptionRule.expectMessage("Error: URL is invalid.");
+
+        notificationPlugin.endpoint(invalid_url, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+    }
+
+    @Test
+    public void testEndpointInvalidJsonBody() throws HttpNotificationException {
+        Endpoint endpoint = notificationPlugin.endpoint(valid_url_post, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+
+        exceptionRule.expect(HttpNotificationException.class);
+        exceptionRule.expectMessage("Error: Json is invalid.");
+
+        endpoint.send(invalid_json);
+    }
+
+    @Test
+    public void testRetriesServerErrors() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(3).initialBackoff(10L).build();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().retryPolicy(retryPolicy).build()) {
+
+            receiver.failNext(2, 503);
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert receiver.getReceived() == 3;
+
+            receiver.failNext(2, 503);
+            assert notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get().getStatusCode() == 200;
+            assert receiver.getReceived() == 6;
+        }
+    }
+
+    @Test
+    public void testRetriesAreBoundedByMaxAttempts() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(2).initialBackoff(10L).build();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().retryPolicy(retryPolicy).build()) {
+
+            receiver.failNext(5, 429);
+            receiver.setRetryAfter("0");
+
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getStatusCode() == 429;
+                assert e.getRetryAfter() == 0L;
+            }
+
+            assert receiver.getReceived() == 2;
+        }
+    }
+
+    @Test
+    public void testClientErrorsAreNotRetried() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(3).initialBackoff(10L).build();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().retryPolicy(retryPolicy).build()) {
+
+            receiver.setStatusCode(400);
+
+            try {
+                notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert ((HttpNotificationException) e.getCause()).getStatusCode() == 400;
+            }
+
+            assert receiver.getReceived() == 1;
+        }
+    }
+
+    @Test
+    public void testLongRetryAfterIsNotWaitedFor() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(3).maxRetryAfter(1000L).build();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().retryPolicy(retryPolicy).build()) {
+
+            receiver.setStatusCode(503);
+            receiver.setRetryAfter("3600");
+
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getRetryAfter() == 3600000L;
+            }
+
+            assert receiver.getReceived() == 1;
+        }
+    }
+
+    @Test
+    public void testCircuitBreakerShedsLoad() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().circuitBreakerThreshold(2).circuitBreakerOpenDuration(60000L).build()) {
+
+            receiver.setStatusCode(503);
+
+            for (int i = 0; i < 2; i++) {
+                try {
+                    notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                    assert false;
+                } catch (HttpNotificationException e) {
+                    assert e.getStatusCode() == 503;
+                }
+            }
+
+            exceptionRule.expect(HttpNotificationException.class);
+            exceptionRule.expectMessage("Error: Circuit breaker is open for 127.0.0.1:");
+
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            } finally {
+                assert receiver.getReceived() == 2;
+            }
+        }
+    }
+
+    @Test
+    public void testBatchedNotificationsShareOneRequest() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().batchLinger(100L).build()) {
+
+            List<CompletableFuture<NotificationResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(notification.sendNotificationBatched(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, "{\"id\":" + i + "}"));
+            }
+
+            for (CompletableFuture<NotificationResult> future : futures) {
+                assert future.get().getStatusCode() == 200;
+            }
+
+            assert receiver.getReceived() == 1;
+            assert receiver.getLastBody().startsWith("[{\"id\":0},{\"id\":1}");
+            assert HttpNotification.isValidJson(receiver.getLastBody());
+        }
+    }
+
+    @Test
+    public void testBatchesAreBoundedByCount() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().batchLinger(60000L).batchMaxCount(2).build()) {
+
+            List<CompletableFuture<NotificationResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(notification.sendNotificationBatched(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, valid_json));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+            assert receiver.getReceived() == 2;
+        }
+    }
+
+    @Test
+    public void testBatchedNotificationsAreValidated() throws Exception {
+        try (HttpNotification notification = HttpNotification.builder().build()) {
+            try {
+                notification.sendNotificationBatched(valid_url_post, HttpNotification.HTTP_METHOD_POST, invalid_json).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause().getMessage().equals("Error: Json is invalid.");
+            }
+
+            try {
+                notification.endpoint(valid_url_post, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT).sendBatched(valid_text).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause().getMessage().equals("Error: Only json notifications can be batched.");
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionForReceiversWhichOptIn() throws Exception {
+        StringBuilder largeJson = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            largeJson.append(i > 0 ? "," : "").append(valid_json);
+        }
+        String largeBody = largeJson.append("]").toString();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().compression("127.0.0.1", RequestCompression.GZIP).compressionThreshold(1024).build()) {
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, largeBody);
+            assert "gzip".equals(receiver.getLastContentEncoding());
+            assert receiver.getLastBody().equals(largeBody);
+
+            assert notification.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, largeBody).get().getStatusCode() == 200;
+            assert "gzip".equals(receiver.getLastContentEncoding());
+            assert receiver.getLastBody().equals(largeBody);
+
+            // Below the threshold the body is sent as is.
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert receiver.getLastContentEncoding() == null;
+            assert receiver.getLastBody().equals(valid_json);
+        }
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().compression("example.com", RequestCompression.GZIP).build()) {
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, largeBody);
+            assert receiver.getLastContentEncoding() == null;
+            assert receiver.getLastBody().equals(largeBody);
+        }
+    }
+
+    @Test
+    public void testDeliveryMetrics() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(2).initialBackoff(10L).build();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.http.utility:type=HttpNotification,name=\"metrics-test\"");
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().retryPolicy(retryPolicy).jmxName("metrics-test").build()) {
+
+            for (int i = 0; i < 5; i++) {
+                assert notification.sendNotification(receiver.url("/post?attempt=" + i), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            }
+            receiver.failNext(1, 503);
+            assert notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get().getStatusCode() == 200;
+
+            MetricsSnapshot metrics = notification.getMetrics();
+            MetricsSnapshot.EndpointStats stats = metrics.getEndpoints().get(receiver.url("/post"));
+
+            assert metrics.getEndpoints().size() == 1;
+            assert stats.getRequests() == 7;
+            assert stats.getResponses(2) == 6;
+            assert stats.getResponses(5) == 1;
+            assert stats.getRetries() == 1;
+            assert stats.getInFlight() == 0;
+            assert stats.getBytesSent() == 7L * valid_json.length();
+            assert stats.getLatency().getCount() == 7;
+            assert stats.getLatency(5).getCount() == 1;
+            assert stats.getLatency().getPercentile(99.9) > 0L;
+            assert metrics.getSucceeded() == 6 && metrics.getFailed() == 1;
+            assert metrics.getMaxConnections() > 0;
+
+            assert (Long) server.getAttribute(name, "Requests") == 7L;
+            assert server.getAttribute(name, "P99LatencyByEndpoint") != null;
+        }
+
+        // Closing the instance unregisters its metrics.
+        assert !server.isRegistered(name);
+    }
+
+    @Test
+    public void testByteBodyNotifications() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            byte[] bytes = valid_json.getBytes(StandardCharsets.UTF_8);
+            assert notificationPlugin.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, bytes);
+            assert receiver.getLastBody().equals(valid_json);
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 4);
+            direct.put("xx".getBytes(StandardCharsets.UTF_8)).put(bytes).flip();
+            direct.position(2);
+            assert notificationPlugin.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, direct).get().getStatusCode() == 200;
+            assert receiver.getLastBody().equals(valid_json);
+            assert direct.position() == 2;
+
+            assert notificationPlugin.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_XML, ByteBuffer.wrap(valid_xml.getBytes(StandardCharsets.UTF_8)));
+            assert receiver.getLastBody().equals(valid_xml);
+        }
+    }
+
+    @Test
+    public void testInvalidByteBodyNotification() throws HttpNotificationException {
+        exceptionRule.expect(HttpNotificationException.class);
+        exceptionRule.expectMessage("Error: Json is invalid.");
+        notificationPlugin.sendNotification(valid_url_post, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, invalid_json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEmptyByteBodyNotification() throws HttpNotificationException {
+        exceptionRule.expect(HttpNotificationException.class);
+        exceptionRule.expectMessage("Error: Notification body is required.");
+        notificationPlugin.sendNotification(valid_url_post, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, new byte[0]);
+    }
+
+    @Test
+    public void testFileBodyNotifications() throws Exception {
+        Path file = Files.createTempFile("notification", ".json");
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            Files.write(file, valid_json.getBytes(StandardCharsets.UTF_8));
+
+            assert notificationPlugin.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, file);
+            assert receiver.getLastBody().equals(valid_json);
+
+            assert notificationPlugin.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, file).get().getStatusCode() == 200;
+            assert receiver.getLastBody().equals(valid_json);
+
+            Files.write(file, invalid_json.getBytes(StandardCharsets.UTF_8));
+            try {
+                notificationPlugin.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, file).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause().getMessage().equals("Error: Json is invalid.");
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testMissingFileBodyNotification() throws IOException, HttpNotificationException {
+        Path file = Files.createTempFile("notification", ".json");
+        Files.delete(file);
+
+        exceptionRule.expect(HttpNotificationException.class);
+        exceptionRule.expectMessage("Error: Notification body could not be read.");
+        notificationPlugin.sendNotification(valid_url_post, HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, file);
+    }
+
+    @Test
+    public void testStreamBodyNotifications() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            assert notificationPlugin.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, new ByteArrayInputStream(valid_text.getBytes(StandardCharsets.UTF_8)));
+            assert receiver.getLastBody().equals(valid_text);
+
+            assert notificationPlugin.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_XML, new ByteArrayInputStream(valid_xml.getBytes(StandardCharsets.UTF_8))).get().getStatusCode() == 200;
+            assert receiver.getLastBody().equals(valid_xml);
+
+            try {
+                notificationPlugin.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, new ByteArrayInputStream(invalid_json.getBytes(StandardCharsets.UTF_8)));
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getMessage().equals("Error: Json is invalid.");
+            }
+        }
+    }
+
+    private static class TrackedStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        TrackedStream(String body) {
+            super(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Test
+    public void testStreamBodiesAreClosed() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            TrackedStream json = new TrackedStream(valid_json);
+            assert notificationPlugin.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, json);
+            assert json.closed;
+
+            // Asynchronous stream bodies are read and closed on the calling thread.
+            TrackedStream text = new TrackedStream(valid_text);
+            CompletableFuture<NotificationResult> future = notificationPlugin.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, text);
+            assert text.closed;
+            assert future.get().getStatusCode() == 200;
+            assert receiver.getLastBody().equals(valid_text);
+
+            TrackedStream empty = new TrackedStream("");
+            try {
+                notificationPlugin.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, empty);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getMessage().equals("Error: Notification body is required.");
+            }
+            assert empty.closed;
+
+            try {
+                notificationPlugin.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, new TrackedStream("")).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause().getMessage().equals("Error: Notification body is required.");
+            }
+            assert receiver.getReceived() == 2;
+        }
+    }
+
+    @Test
+    public void testStreamBodyIsNotRetried() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(3).initialBackoff(10L).build();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().retryPolicy(retryPolicy).build()) {
+            receiver.failNext(1, 503);
+
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, new ByteArrayInputStream(valid_text.getBytes(StandardCharsets.UTF_8)));
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getStatusCode() == 503;
+            }
+            assert receiver.getReceived() == 1;
+
+            receiver.failNext(1, 503);
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, valid_text.getBytes(StandardCharsets.UTF_8));
+            assert receiver.getReceived() == 3;
+        }
+    }
+
+    @Test
+    public void testRateLimitRejects() throws Exception {
+        RateLimit limit = RateLimit.builder().permitsPerSecond(1.0).burst(2).policy(RateLimitPolicy.REJECT).build();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().rateLimit("127.0.0.1", limit).build()) {
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get().getStatusCode() == 200;
+
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getMessage().equals("Error: Rate limit exceeded for 127.0.0.1.");
+            }
+            assert receiver.getReceived() == 2;
+            assert notification.getMetrics().getEndpoints().get(receiver.url("/post")).getRejected() == 1;
+        }
+    }
+
+    @Test
+    public void testRateLimitQueuesPerUrl() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            RateLimit limit = RateLimit.builder().permitsPerSecond(10.0).burst(1).policy(RateLimitPolicy.QUEUE).build();
+
+            try (HttpNotification notification = HttpNotification.builder().rateLimit(receiver.url("/slow"), limit).build()) {
+                List<CompletableFuture<NotificationResult>> futures = new ArrayList<>();
+
+                long start = System.nanoTime();
+                for (int i = 0; i < 6; i++) {
+                    futures.add(notification.sendNotificationAsync(receiver.url("/slow?n=" + i), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json));
+                }
+                // Other urls of the same host are not limited.
+                for (int i = 0; i < 6; i++) {
+                    assert notification.sendNotification(receiver.url("/fast"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                }
+                assert !futures.get(5).isDone();
+
+                for (CompletableFuture<NotificationResult> future : futures) {
+                    assert future.get().getStatusCode() == 200;
+                }
+                assert System.nanoTime() - start >= 500_000_000L;
+                assert receiver.getReceived() == 12;
+            }
+        }
+    }
+
+    @Test
+    public void testRateLimitBlocksCaller() throws Exception {
+        RateLimit limit = RateLimit.builder().permitsPerSecond(20.0).burst(1).build();
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().rateLimit(limit).build()) {
+
+            assert notification.getRateLimit() == limit;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < 3; i++) {
+                notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            }
+            // The third call returns once its permit is granted, 100 milliseconds after the first one.
+            assert System.nanoTime() - start >= 90_000_000L;
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert receiver.getReceived() == 4;
+        }
+    }
+
+    @Test
+    public void testDeduplicationWindow() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().deduplicationWindow(60000L).build()) {
+
+            assert notification.getDeduplicationWindow() == 60000L;
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            String key = receiver.getLastIdempotencyKey();
+            assert key != null && key.length() == 32;
+
+            // The same body as bytes and as a string is the same notification.
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json.getBytes(StandardCharsets.UTF_8));
+            NotificationResult repeat = notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get();
+            assert repeat.isDeduplicated();
+            assert repeat.getStatusCode() == null;
+            assert receiver.getReceived() == 1;
+
+            // Another url, method or body is another notification.
+            assert !notification.sendNotificationAsync(receiver.url("/other"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get().isDeduplicated();
+            assert !receiver.getLastIdempotencyKey().equals(key);
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, valid_json);
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, valid_text);
+            assert receiver.getReceived() == 4;
+
+            List<DeliveryResult> results = notification.broadcast(Arrays.asList(receiver.url("/post"), receiver.url("/broadcast")), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert results.get(0).isDeduplicated() && results.get(0).isSuccess();
+            assert !results.get(1).isDeduplicated() && results.get(1).getStatusCode() == 200;
+            assert receiver.getReceived() == 5;
+
+            assert notification.getMetrics().getEndpoints().get(receiver.url("/post")).getDeduplicated() == 3;
+        }
+    }
+
+    @Test
+    public void testDeduplicationForgetsFailures() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().deduplicationWindow(60000L).build()) {
+
+            receiver.failNext(1, 500);
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getStatusCode() == 500;
+            }
+            String key = receiver.getLastIdempotencyKey();
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert receiver.getLastIdempotencyKey().equals(key);
+
+            receiver.failNext(1, 503);
+            try {
+                notification.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, valid_json).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause() instanceof HttpNotificationException;
+            }
+            assert notification.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, valid_json).get().getStatusCode() == 200;
+            assert receiver.getReceived() == 4;
+        }
+    }
+
+    @Test
+    public void testNoDeduplicationByDefault() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            assert notification.getDeduplicationWindow() == 0L;
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert receiver.getLastIdempotencyKey() == null;
+            assert receiver.getReceived() == 2;
+        }
+    }
+}
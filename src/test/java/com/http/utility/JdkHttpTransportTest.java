@@ -0,0 +1,135 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class JdkHttpTransportTest {
+
+    private final String valid_json = "{\"name\":\"Ruben Gutierrez\", \"message\":\"This is a notification.\"}";
+    private final String valid_text = "This is a notification";
+
+    private HttpNotification.Builder builder() {
+        return HttpNotification.builder().transport(JdkHttpTransport.builder().build());
+    }
+
+    @Test
+    public void testDefaults() {
+        try (JdkHttpTransport transport = JdkHttpTransport.builder().connectionTimeout(-1L).build()) {
+            assert transport.getVersion() == HttpClient.Version.HTTP_2;
+            assert !transport.isVirtualThreads();
+        }
+
+        try (JdkHttpTransport transport = JdkHttpTransport.builder().version(HttpClient.Version.HTTP_1_1).virtualThreads(true).build()) {
+            assert transport.getVersion() == HttpClient.Version.HTTP_1_1;
+            assert transport.isVirtualThreads() == JdkHttpTransport.isVirtualThreadsSupported();
+        }
+    }
+
+    @Test
+    public void testSendNotifications() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = builder().build()) {
+
+            assert notification.getTransport() instanceof JdkHttpTransport;
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert receiver.getLastBody().equals(valid_json);
+
+            List<CompletableFuture<NotificationResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(notification.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, HttpNotification.CONTENT_JSON, valid_json));
+            }
+            for (CompletableFuture<NotificationResult> future : futures) {
+                NotificationResult result = future.get();
+                assert result.getStatusCode() == 200;
+                assert result.getStatusText().equals("OK");
+            }
+            assert receiver.getReceived() == 21;
+
+            MetricsSnapshot metrics = notification.getMetrics();
+            assert metrics.getEndpoints().get(receiver.url("/put")).getRequests() == 20;
+            assert metrics.getMaxConnections() == 0;
+        }
+    }
+
+    @Test
+    public void testBodies() throws Exception {
+        Path file = Files.createTempFile("notification", ".json");
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = builder().compression("127.0.0.1", RequestCompression.GZIP).build()) {
+
+            StringBuilder largeBody = new StringBuilder("[");
+            for (int i = 0; i < 200; i++) {
+                largeBody.append(i > 0 ? "," : "").append(valid_json);
+            }
+            largeBody.append(']');
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, largeBody.toString());
+            assert "gzip".equals(receiver.getLastContentEncoding());
+            assert receiver.getLastBody().equals(largeBody.toString());
+
+            Files.write(file, valid_json.getBytes(StandardCharsets.UTF_8));
+            assert notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, file).get().getStatusCode() == 200;
+            assert receiver.getLastBody().equals(valid_json);
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_TEXT, new ByteArrayInputStream(valid_text.getBytes(StandardCharsets.UTF_8)));
+            assert receiver.getLastBody().equals(valid_text);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testErrorResponses() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = builder().responseCaptureLimit(9).retryPolicy(RetryPolicy.builder().maxAttempts(2).initialBackoff(10L).build()).build()) {
+
+            receiver.setStatusCode(400);
+            receiver.setResponseBody("{\"error\":\"missing field\"}");
+
+            try {
+                notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getStatusCode() == 400;
+                assert e.getResponseBody().equals("{\"error\":");
+                assert e.getMessage().equals("Error: Server responded with client side error. Code: 400, Text: Bad Request");
+            }
+
+            receiver.setStatusCode(200);
+            receiver.failNext(1, 503);
+            receiver.setRetryAfter("0");
+            assert notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get().getStatusCode() == 200;
+            assert receiver.getReceived() == 3;
+        }
+    }
+
+    @Test
+    public void testUnreachableReceiver() throws Exception {
+        int port;
+        try (LocalReceiver receiver = new LocalReceiver()) {
+            port = Integer.parseInt(receiver.url("").substring("http://127.0.0.1:".length()));
+        }
+
+        try (HttpNotification notification = builder().build()) {
+            assert !notification.sendNotification("http://127.0.0.1:" + port + "/post", HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+
+            try {
+                notification.sendNotificationAsync("http://127.0.0.1:" + port + "/post", HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json).get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause().getMessage().equals("Error: Failed to POST Http Notification.");
+            }
+        }
+    }
+}
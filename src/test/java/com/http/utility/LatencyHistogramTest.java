@@ -0,0 +1,75 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assert snapshot.getCount() == 0L;
+        assert snapshot.getPercentile(99.0) == 0L;
+        assert snapshot.getMean() == 0.0;
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        for (long value = 0L; value < 100000L; value++) {
+            int index = LatencyHistogram.index(value);
+
+            assert LatencyHistogram.highestValue(index) >= value;
+            assert index == 0 || LatencyHistogram.highestValue(index - 1) < value;
+        }
+
+        assert LatencyHistogram.index(Long.MAX_VALUE) == LatencyHistogram.BUCKETS - 1;
+        assert LatencyHistogram.index(1L << LatencyHistogram.MAX_EXPONENT) < LatencyHistogram.BUCKETS;
+    }
+
+    @Test
+    public void testPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // 1 to 10000 microseconds
+        for (long micros = 1L; micros <= 10000L; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assert snapshot.getCount() == 10000L;
+        assert snapshot.getMax() == 10000L * 1000L;
+        assertWithinPrecision(snapshot.getPercentile(50.0), 5000L * 1000L);
+        assertWithinPrecision(snapshot.getPercentile(99.0), 9900L * 1000L);
+        assertWithinPrecision(snapshot.getPercentile(99.9), 9990L * 1000L);
+        assert snapshot.getPercentile(100.0) == snapshot.getMax();
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    histogram.record(i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assert histogram.snapshot().getCount() == 800000L;
+    }
+
+    private static void assertWithinPrecision(long actual, long expected) {
+        assert actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS : actual + " != " + expected;
+    }
+}
@@ -0,0 +1,159 @@
+package com.http.utility;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * In-process Http receiver used by the tests, so notifications can be delivered without leaving the machine.
+ */
+public class LocalReceiver implements AutoCloseable {
+
+    private final HttpServer server;
+    private final String scheme;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger received = new AtomicInteger();
+
+    private volatile int statusCode = 200;
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile int failureStatusCode = 503;
+    private volatile String retryAfter;
+    private volatile long responseDelay;
+    private volatile String lastBody;
+    private volatile String lastContentEncoding;
+    private volatile String lastIdempotencyKey;
+    private volatile byte[] responseBody = "{\"received\":true}".getBytes(StandardCharsets.UTF_8);
+
+    public LocalReceiver() throws IOException {
+        this(null);
+    }
+
+    /**
+     * @param sslContext Server side SSL context to receive https notifications with, null for plain http.
+     */
+    public LocalReceiver(SSLContext sslContext) throws IOException {
+        if (sslContext != null) {
+            HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+            server = httpsServer;
+            scheme = "https";
+        } else {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            scheme = "http";
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url(String path) {
+        return scheme + "://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Answers the next requests with the given status code before responding with the regular status code again.
+     */
+    public void failNext(int requests, int failureStatusCode) {
+        this.failureStatusCode = failureStatusCode;
+        this.failures.set(requests);
+    }
+
+    /**
+     * Delays each response by the given time, to simulate a slow receiver.
+     */
+    public void setResponseDelay(long responseDelay) {
+        this.responseDelay = responseDelay;
+    }
+
+    public void setRetryAfter(String retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public String getLastBody() {
+        return lastBody;
+    }
+
+    public String getLastContentEncoding() {
+        return lastContentEncoding;
+    }
+
+    public String getLastIdempotencyKey() {
+        return lastIdempotencyKey;
+    }
+
+    public int getReceived() {
+        return received.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        lastContentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        lastIdempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+
+        try (InputStream in = decode(exchange.getRequestBody(), lastContentEncoding)) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            lastBody = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        received.incrementAndGet();
+
+        if (responseDelay > 0L) {
+            try {
+                Thread.sleep(responseDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int status = failures.getAndDecrement() > 0 ? failureStatusCode : statusCode;
+        byte[] response = responseBody;
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (retryAfter != null && status >= 300) {
+            exchange.getResponseHeaders().set("Retry-After", retryAfter);
+        }
+        exchange.sendResponseHeaders(status, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+
+    private static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        if ("gzip".equals(contentEncoding)) {
+            return new GZIPInputStream(in);
+        } else if ("deflate".equals(contentEncoding)) {
+            return new InflaterInputStream(in);
+        }
+        return in;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,233 @@
+package com.http.utility;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class NotificationRingTest {
+
+    private final String valid_json = "{\"name\":\"Ruben Gutierrez\", \"message\":\"This is a notification.\"}";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static void await(LocalReceiver receiver, int received) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (receiver.getReceived() < received && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+    }
+
+    private static String json(int i) {
+        return "{\"sequence\":" + i + "}";
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        try (HttpNotification notification = HttpNotification.builder().queueCapacity(-1).queueDispatchers(0).build()) {
+            assert notification.getQueueCapacity().equals(HttpNotification.DEFAULT_QUEUE_CAPACITY);
+            assert notification.getQueueDispatchers().equals(HttpNotification.DEFAULT_QUEUE_DISPATCHERS);
+            assert notification.getOverflowPolicy() == OverflowPolicy.BLOCK;
+            assert notification.getQueueSize() == 0;
+            assert notification.getQueueDropped() == 0L;
+        }
+
+        NotificationRing ring = new NotificationRing(1000, 1, OverflowPolicy.BLOCK, null);
+        assert ring.capacity() == 1024;
+        assert ring.shutdown(0L);
+    }
+
+    @Test
+    public void testEnqueueFromManyProducers() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().queueCapacity(64).build()) {
+
+            Endpoint endpoint = notification.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+            List<Thread> producers = new ArrayList<>();
+
+            for (int p = 0; p < 4; p++) {
+                Thread producer = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            assert endpoint.enqueue(valid_json);
+                        }
+                    } catch (HttpNotificationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            assert notification.shutdown(5000L);
+            assert receiver.getReceived() == 200;
+            assert notification.getQueueDropped() == 0L;
+        }
+    }
+
+    @Test
+    public void testParkedDispatchersAreWoken() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().queueCapacity(64).queueDispatchers(2).build()) {
+
+            Endpoint endpoint = notification.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+
+            // Idle dispatchers park without a timeout, each round is only delivered if a producer wakes one.
+            for (int round = 1; round <= 5; round++) {
+                Thread.sleep(50L);
+                assert endpoint.enqueue(valid_json);
+                assert endpoint.enqueue(valid_json);
+                await(receiver, round * 2);
+            }
+
+            assert notification.shutdown(5000L);
+            assert receiver.getReceived() == 10;
+        }
+    }
+
+    @Test
+    public void testInvalidBodyIsNotSent() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            assert notification.enqueue(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, "{invalid");
+            assert notification.enqueue(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+
+            assert notification.shutdown(5000L);
+            assert receiver.getReceived() == 1;
+            assert receiver.getLastBody().equals(valid_json);
+        }
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().queueCapacity(4).queueDispatchers(1)
+                     .overflowPolicy(OverflowPolicy.DROP_NEWEST).build()) {
+
+            receiver.setResponseDelay(100L);
+            Endpoint endpoint = notification.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+
+            // The dispatcher is held by the first notification while the queue fills up.
+            assert endpoint.enqueue(json(0));
+            await(receiver, 1);
+            for (int i = 1; i <= 4; i++) {
+                assert endpoint.enqueue(json(i));
+            }
+            assert !endpoint.enqueue(json(5));
+            assert notification.getQueueSize() == 4;
+            assert notification.getQueueDropped() == 1L;
+
+            receiver.setResponseDelay(0L);
+            assert notification.shutdown(5000L);
+            assert receiver.getReceived() == 5;
+            assert receiver.getLastBody().equals(json(4));
+        }
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().queueCapacity(4).queueDispatchers(1)
+                     .overflowPolicy(OverflowPolicy.DROP_OLDEST).build()) {
+
+            receiver.setResponseDelay(100L);
+            Endpoint endpoint = notification.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+
+            assert endpoint.enqueue(json(0));
+            await(receiver, 1);
+            for (int i = 1; i <= 6; i++) {
+                assert endpoint.enqueue(json(i));
+            }
+            assert notification.getQueueSize() == 4;
+            assert notification.getQueueDropped() == 2L;
+
+            receiver.setResponseDelay(0L);
+            assert notification.shutdown(5000L);
+            assert receiver.getReceived() == 5;
+            assert receiver.getLastBody().equals(json(6));
+        }
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        List<String> spilled = Collections.synchronizedList(new ArrayList<>());
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().queueCapacity(2).queueDispatchers(1)
+                     .overflowPolicy(OverflowPolicy.SPILL).overflowHandler((endpoint, body) -> spilled.add(body)).build()) {
+
+            receiver.setResponseDelay(100L);
+            Endpoint endpoint = notification.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+
+            assert endpoint.enqueue(json(0));
+            await(receiver, 1);
+            assert endpoint.enqueue(json(1));
+            assert endpoint.enqueue(json(2));
+            assert !endpoint.enqueue(json(3));
+            assert spilled.equals(Collections.singletonList(json(3)));
+
+            // Notifications left when the drain times out are spilled as well.
+            assert !notification.shutdown(1L);
+            assert spilled.size() >= 2;
+            assert spilled.get(spilled.size() - 1).equals(json(2));
+            assert notification.getQueueDropped() == 0L;
+        }
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().queueCapacity(2).queueDispatchers(1).build()) {
+
+            receiver.setResponseDelay(100L);
+            Endpoint endpoint = notification.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+
+            assert endpoint.enqueue(json(0));
+            await(receiver, 1);
+            assert endpoint.enqueue(json(1));
+            assert endpoint.enqueue(json(2));
+
+            // The producer waits for the dispatcher to take the next notification.
+            long start = System.nanoTime();
+            assert endpoint.enqueue(json(3));
+            assert System.nanoTime() - start > 50_000_000L;
+
+            receiver.setResponseDelay(0L);
+            assert notification.shutdown(5000L);
+            assert receiver.getReceived() == 4;
+            assert notification.getQueueDropped() == 0L;
+        }
+    }
+
+    @Test
+    public void testEnqueueAfterShutdown() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            assert notification.shutdown(0L);
+
+            thrown.expect(HttpNotificationException.class);
+            thrown.expectMessage("Error: Notification queue is shut down.");
+
+            notification.enqueue(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+        }
+    }
+
+    @Test
+    public void testRequiresBody() throws Exception {
+        try (HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+            thrown.expect(HttpNotificationException.class);
+            thrown.expectMessage("Error: Notification body is required.");
+
+            notification.enqueue("http://127.0.0.1/post", HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, "");
+        }
+    }
+}
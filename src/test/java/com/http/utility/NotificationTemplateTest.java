@@ -0,0 +1,183 @@
+package com.http.utility;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class NotificationTemplateTest {
+
+    private final String json_template = "{\"host\":\"${host}\", \"load\":${load}, \"tags\":[${tag}, \"${host}\"], \"note\":\"cost $${x}\"}";
+    private final String xml_template = "<?xml version=\"1.0\"?><!-- ${ignored} --><alert host=\"${host}\" level='${level}'><message>${message}</message><![CDATA[${raw}]]></alert>";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static String string(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testJsonTemplate() throws HttpNotificationException {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_JSON, json_template);
+
+        assert template.getContentType() == NotificationContentType.JSON;
+        assert template.getParameters().equals(Arrays.asList("host", "load", "tag"));
+
+        String body = string(template.render("web-1", 0.75, true));
+        assert body.equals("{\"host\":\"web-1\", \"load\":0.75, \"tags\":[true, \"web-1\"], \"note\":\"cost ${x}\"}");
+        assert HttpNotification.isValidJson(body);
+
+        body = string(template.render("a\"b\\c\n\u0001\u00e9\ud83d\ude00\ud800", null, "x\"y"));
+        assert HttpNotification.isValidJson(body);
+
+        JsonObject parsed = new JsonParser().parse(body).getAsJsonObject();
+        assert parsed.get("host").getAsString().equals("a\"b\\c\n\u0001\u00e9\ud83d\ude00\ufffd");
+        assert parsed.get("load").isJsonNull();
+        assert parsed.get("tags").getAsJsonArray().get(0).getAsString().equals("x\"y");
+
+        assert string(template.render("h", 42L, new BigDecimal("1E+3"))).contains("\"load\":42, \"tags\":[1E+3,");
+    }
+
+    @Test
+    public void testXmlTemplate() throws Exception {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_XML, xml_template);
+
+        assert template.getParameters().equals(Arrays.asList("host", "level", "message"));
+
+        String body = string(template.render("a\"b'<c>", "x&y\ny", "1 < 2 && \u0002 ]]>"));
+        assert HttpNotification.isValidXml(body);
+        assert body.contains("<!-- ${ignored} -->");
+        assert body.contains("<![CDATA[${raw}]]>");
+
+        org.w3c.dom.Element alert = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+        assert alert.getAttribute("host").equals("a\"b'<c>");
+        assert alert.getAttribute("level").equals("x&y\ny");
+        assert alert.getElementsByTagName("message").item(0).getTextContent().equals("1 < 2 && \ufffd ]]>");
+    }
+
+    @Test
+    public void testTextTemplate() throws HttpNotificationException {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_TEXT, "${a} & ${b}, again ${a}");
+
+        assert template.getParameters().equals(Arrays.asList("a", "b"));
+        assert string(template.render("<x>", 1)).equals("<x> & 1, again <x>");
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", "\"q\"");
+        values.put("b", null);
+        assert string(template.render(values)).equals("\"q\" & , again \"q\"");
+    }
+
+    @Test
+    public void testRenderReusesBuffer() throws HttpNotificationException {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_TEXT, "value=${v}");
+
+        byte[] first = template.render("one");
+        byte[] second = template.render("two");
+        assert string(first).equals("value=one");
+        assert string(second).equals("value=two");
+
+        char[] large = new char[NotificationTemplate.MAX_RETAINED_BUFFER];
+        Arrays.fill(large, 'x');
+        assert template.render(new String(large)).length == NotificationTemplate.MAX_RETAINED_BUFFER + 6;
+        assert string(template.render("three")).equals("value=three");
+    }
+
+    @Test
+    public void testInvalidJsonTemplate() throws HttpNotificationException {
+        thrown.expect(HttpNotificationException.class);
+        thrown.expectMessage("Error: Json is invalid.");
+
+        NotificationTemplate.compile(HttpNotification.CONTENT_JSON, "{\"load\":${a}${b}}");
+    }
+
+    @Test
+    public void testInvalidXmlTemplate() throws HttpNotificationException {
+        thrown.expect(HttpNotificationException.class);
+        thrown.expectMessage("Error: Xml is invalid.");
+
+        NotificationTemplate.compile(HttpNotification.CONTENT_XML, "<alert>${message}</alarm>");
+    }
+
+    @Test
+    public void testXmlParameterInTag() throws HttpNotificationException {
+        thrown.expect(HttpNotificationException.class);
+        thrown.expectMessage("Error: Template parameter name must be inside xml text or an attribute value.");
+
+        NotificationTemplate.compile(HttpNotification.CONTENT_XML, "<alert ${name}=\"1\"/>");
+    }
+
+    @Test
+    public void testUnclosedParameter() throws HttpNotificationException {
+        thrown.expect(HttpNotificationException.class);
+        thrown.expectMessage("Error: Template parameter at index 1 is not closed.");
+
+        NotificationTemplate.compile(HttpNotification.CONTENT_TEXT, "a${b");
+    }
+
+    @Test
+    public void testNonFiniteNumber() throws HttpNotificationException {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_JSON, "{\"load\":${load}}");
+
+        thrown.expect(HttpNotificationException.class);
+        thrown.expectMessage("Error: Template parameter load is not a finite number.");
+
+        template.render(Double.NaN);
+    }
+
+    @Test
+    public void testParameterCount() throws HttpNotificationException {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_JSON, json_template);
+
+        thrown.expect(HttpNotificationException.class);
+        thrown.expectMessage("Error: Template expects 3 parameters, got 1.");
+
+        template.render("web-1");
+    }
+
+    @Test
+    public void testMissingParameter() throws HttpNotificationException {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_TEXT, "${a}${b}");
+
+        thrown.expect(HttpNotificationException.class);
+        thrown.expectMessage("Error: Template parameter b is missing.");
+
+        template.render(Collections.singletonMap("a", 1));
+    }
+
+    @Test
+    public void testSendTemplate() throws Exception {
+        NotificationTemplate template = NotificationTemplate.compile(HttpNotification.CONTENT_JSON, "{\"host\":\"${host}\",\"load\":${load}}");
+
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, template, "web-1", 0.5);
+            assert receiver.getLastBody().equals("{\"host\":\"web-1\",\"load\":0.5}");
+
+            assert notification.sendNotificationAsync(receiver.url("/put"), HttpNotification.HTTP_METHOD_PUT, template, "web-2", 1).get().getStatusCode() == 200;
+            assert receiver.getLastBody().equals("{\"host\":\"web-2\",\"load\":1}");
+
+            Endpoint endpoint = notification.endpoint(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_XML);
+            try {
+                endpoint.send(template, "web-3", 2);
+                assert false;
+            } catch (HttpNotificationException e) {
+                assert e.getMessage().equals("Error: Template content type application/json does not match the endpoint's text/xml.");
+            }
+            assert receiver.getReceived() == 2;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PayloadValidatorTest {
+
+    private final String valid_json = "{\"name\":\"Ruben Gutierrez\", \"tags\":[1, 2.5, true, null], \"nested\":{\"a\":\"b\"}}";
+    private final String invalid_json = "{\"name\"::::\"Ruben Gutierrez\"}";
+    private final String trailing_json = "{\"name\":\"Ruben\"} {\"name\":\"Gutierrez\"}";
+    private final String truncated_json = "{\"name\":\"Ruben\"";
+
+    private final String valid_xml = "<?xml version=\"1.0\"?><notification><from>Ruben</from><message a=\"1\">Hi &amp; bye</message></notification>";
+    private final String mismatched_xml = "<notification><from>Ruben<from></notification>";
+    private final String two_roots_xml = "<notification/><notification/>";
+
+    @Test
+    public void testWellFormedJson() {
+        assert PayloadValidator.isWellFormedJson(new StringReader(valid_json));
+        assert PayloadValidator.isWellFormedJson(new StringReader("[]"));
+        assert PayloadValidator.isWellFormedJson(new StringReader("42"));
+    }
+
+    @Test
+    public void testMalformedJson() {
+        assert !PayloadValidator.isWellFormedJson(new StringReader(invalid_json));
+        assert !PayloadValidator.isWellFormedJson(new StringReader(trailing_json));
+        assert !PayloadValidator.isWellFormedJson(new StringReader(truncated_json));
+        assert !PayloadValidator.isWellFormedJson(new StringReader(""));
+    }
+
+    @Test
+    public void testWellFormedXml() {
+        assert PayloadValidator.isWellFormedXml(new StringReader(valid_xml));
+    }
+
+    @Test
+    public void testMalformedXml() {
+        assert !PayloadValidator.isWellFormedXml(new StringReader(mismatched_xml));
+        assert !PayloadValidator.isWellFormedXml(new StringReader(two_roots_xml));
+        assert !PayloadValidator.isWellFormedXml(new StringReader(""));
+    }
+
+    @Test
+    public void testSyntaxOnlyMode() {
+        assert PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.JSON, " " + invalid_json + "\n");
+        assert !PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.JSON, truncated_json);
+        assert PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.XML, mismatched_xml);
+        assert !PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.XML, "notification");
+    }
+
+    @Test
+    public void testNoneMode() {
+        assert PayloadValidator.isValid(ValidationMode.NONE, NotificationContentType.JSON, truncated_json);
+        assert PayloadValidator.isValid(ValidationMode.NONE, NotificationContentType.XML, "notification");
+    }
+
+    @Test
+    public void testTextIsNotParsed() {
+        assert PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.TEXT, truncated_json);
+    }
+
+    @Test
+    public void testByteBuffers() {
+        assert PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.JSON, utf8(valid_json, false));
+        assert PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.JSON, utf8("{\"name\":\"Rub\u00e9n \u2713\"}", true));
+        assert !PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.JSON, utf8(trailing_json, true));
+        assert PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.XML, utf8(valid_xml, true));
+        assert !PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.XML, utf8(mismatched_xml, false));
+
+        assert PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.JSON, utf8(" " + invalid_json + "\n", true));
+        assert !PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.JSON, utf8(truncated_json, true));
+        assert !PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.XML, utf8("\u00e9", false));
+    }
+
+    @Test
+    public void testFileChannels() throws IOException {
+        Path file = Files.createTempFile("payload", ".json");
+
+        try {
+            Files.write(file, valid_json.getBytes(StandardCharsets.UTF_8));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                assert PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.JSON, channel);
+                assert PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.JSON, channel);
+            }
+
+            Files.write(file, (" " + truncated_json + " ").getBytes(StandardCharsets.UTF_8));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                assert !PayloadValidator.isValid(ValidationMode.FULL, NotificationContentType.JSON, channel);
+                assert !PayloadValidator.isValid(ValidationMode.SYNTAX_ONLY, NotificationContentType.JSON, channel);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static ByteBuffer utf8(String body, boolean direct) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,164 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.http.utility.NotificationPriority.BULK;
+import static com.http.utility.NotificationPriority.CRITICAL;
+import static com.http.utility.NotificationPriority.NORMAL;
+
+public class PriorityLanesTest {
+
+    private final String valid_json = "{\"name\":\"Ruben Gutierrez\", \"message\":\"This is a notification.\"}";
+
+    private static PriorityLanes lanes(int capacity, int criticalReserved, int criticalWeight, long starvationThreshold) {
+        return new PriorityLanes(capacity, new int[]{criticalReserved, 0, 0}, new int[]{criticalWeight, 4, 1}, starvationThreshold);
+    }
+
+    @Test
+    public void testReservedCapacity() {
+        PriorityLanes lanes = lanes(4, 2, 16, 60000L);
+
+        // Bulk traffic only gets the two shared connections.
+        assert lanes.acquire(BULK).isDone();
+        assert lanes.acquire(BULK).isDone();
+        CompletableFuture<Void> waiting = lanes.acquire(BULK);
+        assert !waiting.isDone();
+        assert lanes.getQueued(BULK) == 1;
+
+        assert lanes.acquire(CRITICAL).isDone();
+        assert lanes.acquire(CRITICAL).isDone();
+        assert !lanes.acquire(CRITICAL).isDone();
+
+        // A released bulk connection goes to the waiting critical alert first.
+        lanes.release(BULK);
+        assert lanes.getInFlight(CRITICAL) == 3;
+        assert !waiting.isDone();
+
+        // Once the critical alerts are back within their reservation, bulk traffic gets the shared connection.
+        lanes.release(CRITICAL);
+        assert waiting.isDone();
+        assert lanes.getInFlight(BULK) == 2;
+    }
+
+    @Test
+    public void testReservationsLeaveSharedCapacity() {
+        PriorityLanes lanes = lanes(2, 10, 16, 60000L);
+
+        assert lanes.acquire(NORMAL).isDone();
+        assert !lanes.acquire(NORMAL).isDone();
+        assert lanes.acquire(CRITICAL).isDone();
+    }
+
+    @Test
+    public void testWeightedOrder() {
+        PriorityLanes lanes = lanes(1, 0, 3, 60000L);
+        List<String> order = new ArrayList<>();
+
+        assert lanes.acquire(NORMAL).isDone();
+        for (int i = 0; i < 8; i++) {
+            lanes.acquire(CRITICAL).thenRun(() -> order.add("C"));
+            lanes.acquire(BULK).thenRun(() -> order.add("B"));
+        }
+
+        lanes.release(NORMAL);
+        for (int i = 0; i < 7; i++) {
+            lanes.release(order.get(order.size() - 1).equals("C") ? CRITICAL : BULK);
+        }
+
+        // Critical alerts get three of every four connections, bulk traffic still moves.
+        assert String.join("", order).equals("CCBCCCBC");
+        assert lanes.getPromotions() == 0L;
+    }
+
+    @Test
+    public void testStarvationGuard() throws InterruptedException {
+        PriorityLanes lanes = lanes(1, 0, 1000, 50L);
+
+        assert lanes.acquire(CRITICAL).isDone();
+        CompletableFuture<Void> bulk = lanes.acquire(BULK);
+        Thread.sleep(80L);
+        CompletableFuture<Void> critical = lanes.acquire(CRITICAL);
+
+        lanes.release(CRITICAL);
+        assert bulk.isDone();
+        assert !critical.isDone();
+        assert lanes.getPromotions() == 1L;
+
+        lanes.release(BULK);
+        assert critical.isDone();
+    }
+
+    @Test
+    public void testAbandon() {
+        PriorityLanes lanes = lanes(1, 0, 16, 60000L);
+
+        assert lanes.acquire(BULK).isDone();
+        CompletableFuture<Void> waiting = lanes.acquire(BULK);
+
+        lanes.abandon(BULK, waiting);
+        assert lanes.getQueued(BULK) == 0;
+
+        lanes.release(BULK);
+        assert lanes.getInFlight(BULK) == 0;
+        assert lanes.acquire(CRITICAL).isDone();
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        try (HttpNotification notification = HttpNotification.builder()
+                .reservedCapacity(BULK, 2).priorityWeight(NORMAL, 0).starvationThreshold(-1L).build()) {
+
+            assert !notification.getPriorityLanes();
+            assert notification.getReservedCapacity(CRITICAL) == CRITICAL.getDefaultReservedCapacity();
+            assert notification.getReservedCapacity(BULK) == 2;
+            assert notification.getPriorityWeight(NORMAL) == NORMAL.getDefaultWeight();
+            assert notification.getStarvationThreshold().equals(HttpNotification.DEFAULT_STARVATION_THRESHOLD);
+
+            Endpoint endpoint = notification.endpoint("http://127.0.0.1/post", HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON);
+            assert endpoint.getPriority() == NORMAL;
+            assert endpoint.getLanes() == null;
+            assert endpoint.withPriority(null) == endpoint;
+            assert endpoint.withPriority(CRITICAL).getPriority() == CRITICAL;
+        }
+    }
+
+    @Test
+    public void testCriticalBypassesBulkTraffic() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().maxConnectionsPerRoute(4)
+                     .priorityLanes(true).reservedCapacity(CRITICAL, 1).build()) {
+
+            receiver.setResponseDelay(50L);
+
+            List<NotificationRequest> fanOut = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                fanOut.add(new NotificationRequest(receiver.url("/digest"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json, BULK));
+            }
+            CompletableFuture<List<DeliveryResult>> bulk = CompletableFuture.supplyAsync(() -> notification.sendNotifications(fanOut));
+            while (receiver.getReceived() < 6) {
+                Thread.sleep(5L);
+            }
+
+            // The bulk notifications take a second to drain through the three shared connections, without lanes the
+            // alert would wait in the pool behind them.
+            long start = System.nanoTime();
+            assert notification.sendNotificationAsync(receiver.url("/alert"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json, CRITICAL)
+                    .get().getStatusCode() == 200;
+            assert System.nanoTime() - start < 400_000_000L;
+            assert !bulk.isDone();
+
+            start = System.nanoTime();
+            assert notification.sendNotification(receiver.url("/alert"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json, CRITICAL);
+            assert System.nanoTime() - start < 400_000_000L;
+
+            for (DeliveryResult result : bulk.get()) {
+                assert result.isSuccess();
+            }
+            assert receiver.getReceived() == 62;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RateLimiterTest {
+
+    private final TimerWheel timer = new TimerWheel(1L, 64, "rate-limiter-test-timer");
+
+    @Test
+    public void testDefaults() {
+        RateLimit limit = RateLimit.builder().permitsPerSecond(-1.0).burst(0).maxInFlight(-5).maxQueued(0).maxWait(0L).build();
+
+        assert limit.getPermitsPerSecond().equals(RateLimit.DEFAULT_PERMITS_PER_SECOND);
+        assert limit.getBurst().equals(RateLimit.DEFAULT_BURST);
+        assert limit.getMaxInFlight().equals(RateLimit.DEFAULT_MAX_IN_FLIGHT);
+        assert limit.getPolicy() == RateLimitPolicy.BLOCK;
+        assert limit.getMaxQueued().equals(RateLimit.DEFAULT_MAX_QUEUED);
+        assert limit.getMaxWait().equals(RateLimit.DEFAULT_MAX_WAIT);
+    }
+
+    @Test
+    public void testBurstThenReject() throws Exception {
+        RateLimiter limiter = new RateLimiter("example.com", RateLimit.builder().permitsPerSecond(1.0).burst(3).policy(RateLimitPolicy.REJECT).build(), timer);
+
+        for (int i = 0; i < 3; i++) {
+            assert limiter.acquire().isDone();
+            limiter.release();
+        }
+
+        CompletableFuture<Void> rejected = limiter.acquire();
+        assert rejected.isCompletedExceptionally();
+        try {
+            rejected.get();
+        } catch (ExecutionException e) {
+            assert e.getCause() instanceof HttpNotificationException;
+            assert e.getCause().getMessage().equals("Error: Rate limit exceeded for example.com.");
+        }
+    }
+
+    @Test
+    public void testQueuedWaitersAreGrantedInOrderAtTheRate() throws Exception {
+        RateLimiter limiter = new RateLimiter("example.com", RateLimit.builder().permitsPerSecond(100.0).burst(1).policy(RateLimitPolicy.QUEUE).build(), timer);
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<Void>> permits = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            final int index = i;
+            CompletableFuture<Void> permit = limiter.acquire();
+            permits.add(permit.thenRun(() -> {
+                synchronized (order) {
+                    order.add(index);
+                }
+                limiter.release();
+            }));
+        }
+
+        CompletableFuture.allOf(permits.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // One permit right away, then one every 10 milliseconds.
+        assert elapsed >= 80L;
+        for (int i = 0; i < 10; i++) {
+            assert order.get(i) == i;
+        }
+        assert limiter.getQueued() == 0;
+        assert limiter.getInFlight() == 0;
+    }
+
+    @Test
+    public void testBoundedQueue() throws Exception {
+        RateLimiter limiter = new RateLimiter("example.com", RateLimit.builder().maxInFlight(1).policy(RateLimitPolicy.QUEUE).maxQueued(2).build(), timer);
+
+        assert limiter.acquire().isDone();
+        CompletableFuture<Void> first = limiter.acquire();
+        CompletableFuture<Void> second = limiter.acquire();
+        CompletableFuture<Void> third = limiter.acquire();
+
+        assert !first.isDone() && !second.isDone();
+        assert third.isCompletedExceptionally();
+        assert limiter.getQueued() == 2;
+
+        limiter.release();
+        assert first.isDone() && !first.isCompletedExceptionally();
+        assert !second.isDone();
+
+        limiter.release();
+        assert second.isDone();
+        limiter.release();
+        assert limiter.getInFlight() == 0;
+    }
+
+    @Test
+    public void testInFlightCap() throws Exception {
+        RateLimiter limiter = new RateLimiter("example.com", RateLimit.builder().maxInFlight(4).build(), timer);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(8);
+
+        for (int i = 0; i < 8; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    limiter.acquire().join();
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    concurrent.decrementAndGet();
+                    limiter.release();
+                }
+                done.countDown();
+            }).start();
+        }
+
+        assert done.await(10, TimeUnit.SECONDS);
+        assert maxConcurrent.get() <= 4;
+        assert limiter.getInFlight() == 0;
+        assert limiter.getQueued() == 0;
+    }
+
+    @Test
+    public void testWaitTimesOut() throws Exception {
+        RateLimiter limiter = new RateLimiter("example.com", RateLimit.builder().maxInFlight(1).maxWait(20L).build(), timer);
+
+        assert limiter.acquire().isDone();
+        CompletableFuture<Void> waiting = limiter.acquire();
+
+        try {
+            waiting.get(5, TimeUnit.SECONDS);
+            assert false;
+        } catch (ExecutionException e) {
+            assert e.getCause().getMessage().equals("Error: Timed out waiting for the rate limit of example.com.");
+        }
+        assert limiter.getQueued() == 0;
+
+        // The timed out waiter is skipped, the next one gets the permit.
+        CompletableFuture<Void> next = limiter.acquire();
+        limiter.release();
+        assert next.isDone() && !next.isCompletedExceptionally();
+    }
+
+    @Test
+    public void testAbandon() {
+        RateLimiter limiter = new RateLimiter("example.com", RateLimit.builder().maxInFlight(1).build(), timer);
+
+        CompletableFuture<Void> granted = limiter.acquire();
+        CompletableFuture<Void> waiting = limiter.acquire();
+
+        limiter.abandon(waiting);
+        assert limiter.getQueued() == 0;
+
+        limiter.abandon(granted);
+        assert limiter.getInFlight() == 0;
+        assert limiter.acquire().isDone();
+    }
+}
@@ -0,0 +1,137 @@
+package com.http.utility;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testDefaultRetryableStatuses() {
+        RetryPolicy policy = RetryPolicy.builder().build();
+
+        assert policy.isRetryable(null);
+        assert policy.isRetryable(500);
+        assert policy.isRetryable(503);
+        assert policy.isRetryable(408);
+        assert policy.isRetryable(429);
+        assert !policy.isRetryable(400);
+        assert !policy.isRetryable(404);
+        assert !policy.isRetryable(302);
+    }
+
+    @Test
+    public void testCustomRetryableStatuses() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .retryableStatusClasses(Collections.<Integer>emptyList())
+                .retryableStatusCodes(Arrays.asList(503, 409))
+                .retryTransportErrors(false)
+                .build();
+
+        assert !policy.isRetryable(null);
+        assert !policy.isRetryable(500);
+        assert policy.isRetryable(503);
+        assert policy.isRetryable(409);
+    }
+
+    @Test
+    public void testNoneNeverRetries() {
+        assert !RetryPolicy.NONE.shouldRetry(1, 503, null);
+        assert !RetryPolicy.NONE.shouldRetry(1, null, null);
+    }
+
+    @Test
+    public void testShouldRetry() {
+        RetryPolicy policy = RetryPolicy.builder().maxAttempts(3).maxRetryAfter(1000L).build();
+
+        assert policy.shouldRetry(1, 503, null);
+        assert policy.shouldRetry(2, 503, 1000L);
+        assert !policy.shouldRetry(3, 503, null);
+        assert !policy.shouldRetry(1, 503, 1001L);
+        assert !policy.shouldRetry(1, 400, null);
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+        RetryPolicy policy = RetryPolicy.builder().initialBackoff(100L).maxBackoff(1000L).multiplier(2.0).jitter(0.0).build();
+
+        assert policy.delay(1, null) == 100L;
+        assert policy.delay(2, null) == 200L;
+        assert policy.delay(3, null) == 400L;
+        assert policy.delay(10, null) == 1000L;
+    }
+
+    @Test
+    public void testJitterStaysWithinBounds() {
+        RetryPolicy policy = RetryPolicy.builder().initialBackoff(1000L).jitter(0.5).build();
+
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.delay(1, null);
+            assert delay >= 500L && delay <= 1000L;
+        }
+    }
+
+    @Test
+    public void testRetryAfterIsALowerBound() {
+        RetryPolicy policy = RetryPolicy.builder().initialBackoff(100L).jitter(0.0).build();
+        RetryPolicy ignoring = RetryPolicy.builder().initialBackoff(100L).jitter(0.0).respectRetryAfter(false).build();
+
+        assert policy.delay(1, 5000L) == 5000L;
+        assert policy.delay(1, 10L) == 100L;
+        assert ignoring.delay(1, 5000L) == 100L;
+        assert ignoring.shouldRetry(1, 503, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assert RetryPolicy.parseRetryAfter("120") == 120000L;
+        assert RetryPolicy.parseRetryAfter(" 0 ") == 0L;
+        assert RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT") == 0L;
+        assert RetryPolicy.parseRetryAfter("soon") == null;
+        assert RetryPolicy.parseRetryAfter(null) == null;
+    }
+
+    @Test
+    public void testCircuitBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 50L);
+
+        assert breaker.tryAcquire();
+        breaker.onFailure();
+        assert breaker.getState() == CircuitBreaker.State.CLOSED;
+        breaker.onFailure();
+        assert breaker.getState() == CircuitBreaker.State.OPEN;
+        assert !breaker.tryAcquire();
+
+        Thread.sleep(60L);
+
+        assert breaker.tryAcquire();
+        assert !breaker.tryAcquire();
+        breaker.onFailure();
+        assert breaker.getState() == CircuitBreaker.State.OPEN;
+
+        Thread.sleep(60L);
+
+        assert breaker.tryAcquire();
+        breaker.onSuccess();
+        assert breaker.getState() == CircuitBreaker.State.CLOSED;
+        assert breaker.tryAcquire();
+    }
+
+    @Test
+    public void testTimerWheelRunsTasksAfterTheirDelay() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(5L, 8, "test-timer-wheel");
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+
+        wheel.schedule(0L, latch::countDown);
+        wheel.schedule(20L, latch::countDown);
+        // Longer than one revolution of the wheel.
+        wheel.delay(100L).thenRun(latch::countDown);
+
+        assert latch.await(5, TimeUnit.SECONDS);
+        assert TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100L;
+    }
+}
@@ -0,0 +1,161 @@
+package com.http.utility;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+public class WarmUpTest {
+
+    private final String valid_json = "{\"name\":\"Ruben Gutierrez\", \"message\":\"This is a notification.\"}";
+
+    /*
+        Self-signed PKCS12 key store for 127.0.0.1, password "changeit".
+     */
+    private static final String KEY_STORE = "MIIEDgIBAzCCA7gGCSqGSIb3DQEHAaCCA6kEggOlMIIDoTCCASgGCSqGSIb3DQEHAaCCARkEggEVMIIBETCCAQ0GCyqGSIb3DQEM" +
+            "CgECoIG9MIG6MGYGCSqGSIb3DQEFDTBZMDgGCSqGSIb3DQEFDDArBBQpiiLkXoPqKvQNsh6nYkHenuK0oQICJxACASAwDAYIKoZI" +
+            "hvcNAgkFADAdBglghkgBZQMEASoEEDkHCsP2iVrYi99OEwsgtCsEUHJMA0XcSk/LJZ5Z1i55Rjzmd689G0ChSUcDVGDy3tdW5t4G" +
+            "dwtCTtPW3Ns4fZNPGufufxWSBvUM3Zp/lYqk9NhO8vq2heeVRLFiFA5044gyMT4wGQYJKoZIhvcNAQkUMQweCgBsAG8AYwBhAGww" +
+            "IQYJKoZIhvcNAQkVMRQEElRpbWUgMTc5MjIwNTAyOTQyMjCCAnEGCSqGSIb3DQEHBqCCAmIwggJeAgEAMIICVwYJKoZIhvcNAQcB" +
+            "MGYGCSqGSIb3DQEFDTBZMDgGCSqGSIb3DQEFDDArBBT+P3pUlTCofcRIcZTmYIhdLWuqXwICJxACASAwDAYIKoZIhvcNAgkFADAd" +
+            "BglghkgBZQMEASoEELgGFDEB214Puv6Fm8G0nLGAggHgNyN33GSu9TaeHl4lYLgDSGsX6aATJbSiWhi4UZsXe5VEUL88DBy0PxrM" +
+            "km5jw7ffJVJ6z+xWmLj8dbfj0jqyEoVp3eKafJpsgnuNNp6kxXbpfRBjtmdt+jfFyHw3GkfGR4+bKvjjUbp51q/E0DoRAGIiuaLi" +
+            "k7eKtM94SG75E2OE0UaLtTPdQO3CcAp4GBYLzhLNBRV64nkAhKVXyUNrFoeuY0m4F4Uo5HIQhY6MJKee9ljthbUTvH927WFHpPVt" +
+            "v7inyNhXXxs/LqlxeDYFSL7YQ/KCfM17iA/+Np4+Ls3iCPujlCI++4h2iFdATFXjJl9Sr+GWHQW05jTV1d4ffTg2bgmo/k8kUgig" +
+            "TSKNePPpYqlzi6dSWdUge9UIep4q4QcwusKoAOMJ0gU271/z6ivcTg1bw9q1BuPbE1nZN2wVNEPs448xyI28R3nmCV8j1P6Ton/A" +
+            "aBNb6xX4sBZfT+EgrPseQUojwAyyijtG/lrRDQBAc49TSFsacoB2/tTbGBcAee449EB91zDQ3yfSqFagJA3XeobdDORggJ4+xLzA" +
+            "1a00sVUfJ2TRfuhK/c8VuH8Rf5rx6xFvjHftBvi6XefTxkx4s62WYqEdNV4WWp7uDg1XPEe9JOszpZnFgdTOME0wMTANBglghkgB" +
+            "ZQMEAgEFAAQgqRK6r1UEPIDT3tlrQDwgkrzZ8bIEuTG2Npk/wZakwc4EFPSL/jh2ZYfJnPmBjo4e07OWQlw5AgInEA==";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static KeyStore keyStore() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(new ByteArrayInputStream(Base64.getDecoder().decode(KEY_STORE)), "changeit".toCharArray());
+        return keyStore;
+    }
+
+    private static SSLContext serverContext() throws Exception {
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore(), "changeit".toCharArray());
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), null, null);
+        return context;
+    }
+
+    private static SSLContext clientContext() throws Exception {
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore());
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagers.getTrustManagers(), null);
+        return context;
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        try (HttpNotification notification = HttpNotification.builder()
+                .warmUpConnections(0).keepWarmInterval(-1L).tlsSessionCacheSize(0).build()) {
+
+            assert notification.getWarmUpConnections().equals(HttpNotification.DEFAULT_WARM_UP_CONNECTIONS);
+            assert notification.getKeepWarmInterval().equals(HttpNotification.DEFAULT_KEEP_WARM_INTERVAL);
+            assert notification.getTlsSessionCacheSize().equals(HttpNotification.DEFAULT_TLS_SESSION_CACHE_SIZE);
+            assert notification.warmUp(Collections.emptyList()) == 0;
+            assert notification.getMetrics().getWarmedConnections() == 0L;
+        }
+    }
+
+    @Test
+    public void testWarmUpOpensPooledConnections() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().warmUpConnections(3).build()) {
+
+            // Three connections in each of the blocking and non-blocking pools.
+            assert notification.warmUp(Arrays.asList(receiver.url("/post"), receiver.url("/other"))) == 6;
+            assert notification.getMetrics().getAvailableConnections() == 6;
+            assert notification.getMetrics().getWarmedConnections() == 6L;
+            assert receiver.getReceived() == 0;
+
+            // Warm connections are reused, not opened again.
+            assert notification.warmUp(Collections.singletonList(receiver.url("/post"))) == 0;
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert notification.sendNotificationAsync(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json)
+                    .get().getStatusCode() == 200;
+            assert notification.getMetrics().getAvailableConnections() == 6;
+            assert receiver.getReceived() == 2;
+        }
+    }
+
+    @Test
+    public void testWarmUpCappedAtMaxConnectionsPerRoute() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().warmUpConnections(10).maxConnectionsPerRoute(2).build()) {
+
+            assert notification.warmUp(Collections.singletonList(receiver.url("/post"))) == 4;
+        }
+    }
+
+    @Test
+    public void testWarmUpResumesTlsSessions() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver(serverContext());
+             HttpNotification notification = HttpNotification.builder().warmUpConnections(4).sslContext(clientContext()).build()) {
+
+            assert notification.warmUp(Collections.singletonList(receiver.url("/post"))) == 8;
+
+            // The first handshake is a full one, the connections opened after it resume its session.
+            MetricsSnapshot metrics = notification.getMetrics();
+            assert metrics.getTlsHandshakes() >= 4L;
+            assert metrics.getTlsResumptions() >= 3L;
+            assert metrics.getWarmedConnections() == 8L;
+            assert metrics.getHandshakeTimeSaved() > 0L;
+
+            assert notification.sendNotification(receiver.url("/post"), HttpNotification.HTTP_METHOD_POST, HttpNotification.CONTENT_JSON, valid_json);
+            assert receiver.getReceived() == 1;
+        }
+    }
+
+    @Test
+    public void testKeepWarm() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().keepAliveTtl(1000L).idleEviction(500L)
+                     .keepWarmInterval(100L).build()) {
+
+            assert notification.warmUp(Collections.singletonList(receiver.url("/post"))) == 4;
+
+            // The keep-alive of the warm connections is renewed before they expire. A sweep may hold some of them.
+            Thread.sleep(2000L);
+            MetricsSnapshot metrics = notification.getMetrics();
+            assert metrics.getAvailableConnections() + metrics.getLeasedConnections() == 4;
+            assert metrics.getWarmedConnections() == 4L;
+        }
+    }
+
+    @Test
+    public void testUnreachableReceiverIsSkipped() throws Exception {
+        try (LocalReceiver receiver = new LocalReceiver();
+             HttpNotification notification = HttpNotification.builder().connectionTimeout(1000L).build()) {
+
+            assert notification.warmUp(Arrays.asList("http://127.0.0.1:1/post", receiver.url("/post"))) == 4;
+        }
+    }
+
+    @Test
+    public void testInvalidUrl() throws Exception {
+        try (HttpNotification notification = new HttpNotification(5000L, 5000L)) {
+            thrown.expect(HttpNotificationException.class);
+            thrown.expectMessage("Error: URL is invalid.");
+
+            notification.warmUp(Collections.singletonList("not a url"));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.http.utility;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+public class WriteAheadLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] record(int i) {
+        return ("notification-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testAppendSyncAndRead() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(folder.getRoot().toPath(), 4096)) {
+            log.append(record(0));
+            log.append(record(1));
+            log.sync();
+
+            assert new String(log.read(log.next(0L)), StandardCharsets.UTF_8).equals("notification-0");
+            assert new String(log.read(log.next(0L)), StandardCharsets.UTF_8).equals("notification-1");
+            assert log.next(0L) == null;
+            assert log.pending() == 2;
+        }
+    }
+
+    @Test
+    public void testUnacknowledgedRecordsAreReplayed() throws Exception {
+        Path directory = folder.getRoot().toPath();
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 4096)) {
+            for (int i = 0; i < 3; i++) {
+                log.append(record(i));
+            }
+            log.sync();
+
+            log.complete(log.next(0L), WriteAheadLog.STATE_ACKNOWLEDGED);
+            log.next(0L);
+            log.complete(log.next(0L), WriteAheadLog.STATE_FAILED);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 4096)) {
+            assert log.pending() == 1;
+            assert new String(log.read(log.next(0L)), StandardCharsets.UTF_8).equals("notification-1");
+            assert log.next(0L) == null;
+        }
+    }
+
+    @Test
+    public void testCompletedSegmentsAreDeleted() throws Exception {
+        Path directory = folder.getRoot().toPath();
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 64)) {
+            for (int i = 0; i < 10; i++) {
+                log.append(record(i));
+            }
+            log.sync();
+
+            assert folder.getRoot().listFiles().length > 1;
+
+            WriteAheadLog.RecordRef record;
+            while ((record = log.next(0L)) != null) {
+                log.complete(record, WriteAheadLog.STATE_ACKNOWLEDGED);
+            }
+
+            assert log.pending() == 0;
+            assert folder.getRoot().listFiles().length == 1;
+        }
+    }
+
+    @Test
+    public void testTornRecordIsDiscarded() throws Exception {
+        Path directory = folder.getRoot().toPath();
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 4096)) {
+            log.append(record(0));
+            log.append(record(1));
+        }
+
+        File segment = folder.getRoot().listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // Corrupt the payload of the second record.
+            file.seek(WriteAheadLog.HEADER_SIZE + record(0).length + WriteAheadLog.HEADER_SIZE);
+            file.write('X');
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 4096)) {
+            assert log.pending() == 1;
+            assert new String(log.read(log.next(0L)), StandardCharsets.UTF_8).equals("notification-0");
+        }
+    }
+}